@@ -0,0 +1,18 @@
+package uk.co.triad.test.testpyramid.whackamole.gameclient;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.executors.ExecutorType;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.executors.MeteredExecutor;
+
+@Configuration
+public class ExecutorConfig
+{
+  @Bean
+  public MeteredExecutor playerExecutor(@Value("${player.executor.type:fixed}") final ExecutorType type,
+                                        @Value("${player.executor.threads:0}") final int threads)
+  {
+    return new MeteredExecutor("player", "player", type, threads);
+  }
+}
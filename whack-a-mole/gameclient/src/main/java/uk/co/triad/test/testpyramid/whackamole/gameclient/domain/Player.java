@@ -2,16 +2,22 @@ package uk.co.triad.test.testpyramid.whackamole.gameclient.domain;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import uk.co.triad.test.testpyramid.whackamole.gameclient.services.GameService;
 
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Component
 public class Player
@@ -19,11 +25,22 @@ public class Player
   private static final Logger LOGGER = LoggerFactory.getLogger(Player.class);
   private final String playerName;
   private final AtomicBoolean isRegistered;
+  private final Executor executor;
   private Timer gameStepTimer;
+  private GameService pushingService;
+  private Consumer<Mole> spawnListener;
 
-  public Player(@Value("${player.name}") final String playerName)
+  public Player(final String playerName)
+  {
+    this(playerName, ForkJoinPool.commonPool());
+  }
+
+  @Autowired
+  public Player(@Value("${player.name}") final String playerName,
+                @Qualifier("playerExecutor") final Executor executor)
   {
     this.playerName = playerName;
+    this.executor = executor;
     this.isRegistered = new AtomicBoolean(false);
   }
 
@@ -31,7 +48,8 @@ public class Player
   {
     if (!isRegistered.get())
     {
-      return gameService.register(playerName).exceptionally(t -> {
+      return gameService.register(playerName).exceptionally(failure -> {
+        var t = causeOf(failure);
         if (t instanceof PlayerAlreadyRegisteredException)
         {
           LOGGER.info("Name already registered in game - could be by me, or could be someone else!");
@@ -50,13 +68,14 @@ public class Player
     }
     else
     {
-      return CompletableFuture.runAsync(() -> LOGGER.info("I'm already registered!"));
+      return CompletableFuture.runAsync(() -> LOGGER.info("I'm already registered!"), executor);
     }
   }
 
   public CompletionStage<Void> leaveGame(GameService gameService)
   {
-    return this.pause().thenCompose(voidArg -> gameService.deregister(playerName).exceptionally(t -> {
+    return this.pause().thenCompose(voidArg -> gameService.deregister(playerName).exceptionally(failure -> {
+      var t = causeOf(failure);
       if (t instanceof PlayerNotRegisteredException)
       {
         LOGGER.info("Player not registered");
@@ -74,36 +93,54 @@ public class Player
     }));
   }
 
-  private void whackMole(GameService gameService, String playerName, Mole mole)
+  private void whackMoles(GameService gameService, String playerName, List<Mole> moles)
   {
-    gameService.whack(playerName, mole).exceptionally(t -> {
-      LOGGER.info("Whacking mole {}", mole.getId());
+    if (moles == null || moles.isEmpty())
+    {
+      return;
+    }
+    LOGGER.info("Whacking {} moles", moles.size());
+    gameService.whackAll(playerName, moles).exceptionally(failure -> {
+      var t = causeOf(failure);
       if (t instanceof PlayerNotRegisteredException)
       {
-        LOGGER.error("Could not whack mole, as player is not registered");
+        LOGGER.error("Could not whack moles, as player is not registered");
       }
       else
       {
-        LOGGER.info("Could not whack mole: {}", t.getMessage());
+        LOGGER.warn("Could not whack {} moles", moles.size(), t);
       }
       return null;
-    }).thenAccept(res -> {
-      if (Boolean.TRUE.equals(res))
+    }).thenAccept(hits -> {
+      if (hits != null)
       {
-        LOGGER.info("Successfully hit mole");
-      }
-      else
-      {
-        LOGGER.info("Failed to hit mole");
+        LOGGER.info("Hit {} of {} moles", hits.stream().filter(Boolean.TRUE::equals).count(), moles.size());
       }
     });
   }
 
+  /**
+   * Whacks each mole as the game service pushes it, or, for a service that can only be polled, polls for moles twice a
+   * second and whacks whatever is up.
+   */
   public CompletionStage<Void> autoplay(GameService gameService)
   {
     return CompletableFuture.runAsync(() -> {
-      if (gameStepTimer == null && isRegistered.get())
+      if (gameStepTimer == null && spawnListener == null && isRegistered.get())
       {
+        Consumer<Mole> listener = mole -> executor.execute(() -> whackMoles(gameService, playerName, List.of(mole)));
+        if (gameService.addSpawnListener(listener))
+        {
+          pushingService = gameService;
+          spawnListener = listener;
+          // only spawns from now on are pushed, so once round the moles already up
+          gameService.activeMoles().exceptionally(t -> {
+            LOGGER.info("Failed to get moles: {}", t.getMessage());
+            return null;
+          }).thenAccept(moles -> whackMoles(gameService, playerName, moles));
+          return;
+        }
+
         gameStepTimer = new Timer();
         gameStepTimer.schedule(new TimerTask()
         {
@@ -113,11 +150,11 @@ public class Player
             gameService.activeMoles().exceptionally(t -> {
               LOGGER.info("Failed to get moles: {}", t.getMessage());
               return null;
-            }).thenAccept(moles -> moles.forEach(mole -> whackMole(gameService, playerName, mole)));
+            }).thenAccept(moles -> whackMoles(gameService, playerName, moles));
           }
         }, 0L, 500L);
       }
-    });
+    }, executor);
   }
 
   public CompletionStage<Void> pause()
@@ -128,6 +165,20 @@ public class Player
         gameStepTimer.cancel();
         gameStepTimer = null;
       }
-    });
+      if (spawnListener != null)
+      {
+        pushingService.removeSpawnListener(spawnListener);
+        pushingService = null;
+        spawnListener = null;
+      }
+    }, executor);
+  }
+
+  /**
+   * @return what the game service failed with; a failure passed along a chain of stages arrives wrapped
+   */
+  private static Throwable causeOf(Throwable failure)
+  {
+    return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
   }
 }
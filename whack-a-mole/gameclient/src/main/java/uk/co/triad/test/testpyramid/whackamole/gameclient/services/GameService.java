@@ -4,6 +4,7 @@ import uk.co.triad.test.testpyramid.whackamole.gameclient.domain.Mole;
 
 import java.util.List;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 public interface GameService
 {
@@ -14,4 +15,25 @@ public interface GameService
   CompletionStage<List<Mole>> activeMoles();
 
   CompletionStage<Boolean> whack(String playerName, Mole mole);
+
+  /**
+   * Whacks every mole in one request.
+   *
+   * @return whether each mole was hit, in the same order
+   */
+  CompletionStage<List<Boolean>> whackAll(String playerName, List<Mole> moles);
+
+  /**
+   * Has the listener told of each mole as it spawns, until it is removed. Only moles spawning from now on are told of.
+   *
+   * @return false if moles are not pushed to this service, so they can only be found by polling {@link #activeMoles()}
+   */
+  default boolean addSpawnListener(Consumer<Mole> listener)
+  {
+    return false;
+  }
+
+  default void removeSpawnListener(Consumer<Mole> listener)
+  {
+  }
 }
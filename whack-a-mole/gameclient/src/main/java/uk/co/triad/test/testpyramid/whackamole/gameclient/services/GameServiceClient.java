@@ -2,6 +2,7 @@ package uk.co.triad.test.testpyramid.whackamole.gameclient.services;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -9,10 +10,13 @@ import org.springframework.stereotype.Service;
 import uk.co.triad.test.testpyramid.whackamole.gameclient.domain.Mole;
 import uk.co.triad.test.testpyramid.whackamole.gameclient.domain.PlayerAlreadyRegisteredException;
 import uk.co.triad.test.testpyramid.whackamole.gameclient.domain.PlayerNotRegisteredException;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.ApiMediaTypes;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleIdDto;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerNameDto;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.WhackDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.WhackResultDto;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -23,6 +27,7 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
+import static org.springframework.http.HttpHeaders.ACCEPT;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
@@ -32,14 +37,34 @@ public class GameServiceClient implements GameService
   private static final String UNHANDLED_EXCEPTION = "Unhandled exception";
   private final String uriPlayers;
   private final String uriMoles;
+  private final String uriMolesBatch;
+  private final ObjectMapper jsonMapper = new ObjectMapper();
+  private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+  private final ObjectMapper requestMapper;
+  private final String requestContentType;
+  private final String accept;
   private HttpClient httpClient = HttpClient.newHttpClient();
 
+  public GameServiceClient(final String uriPlayers, final String uriMoles)
+  {
+    this(uriPlayers, uriMoles, false);
+  }
+
+  /**
+   * @param smile send requests as Smile and ask for Smile back, still reading JSON from a server that only speaks JSON
+   */
   @Autowired
   public GameServiceClient(@Value("${services.gameserver.uri.players}") final String uriPlayers,
-                           @Value("${services.gameserver.uri.game.moles}") final String uriMoles)
+                           @Value("${services.gameserver.uri.game.moles}") final String uriMoles,
+                           @Value("${services.gameserver.smile:false}") final boolean smile)
   {
     this.uriPlayers = uriPlayers;
     this.uriMoles = uriMoles;
+    this.uriMolesBatch = uriMoles + "/batch";
+    this.requestMapper = smile ? smileMapper : jsonMapper;
+    this.requestContentType = smile ? ApiMediaTypes.APPLICATION_SMILE_VALUE : APPLICATION_JSON_VALUE;
+    this.accept = smile ? ApiMediaTypes.APPLICATION_SMILE_VALUE + ", " + APPLICATION_JSON_VALUE + ";q=0.9"
+                        : APPLICATION_JSON_VALUE;
   }
 
   @Override
@@ -48,13 +73,13 @@ public class GameServiceClient implements GameService
     try
     {
       var playerNameDto = new PlayerNameDto(playerName);
-      var objectMapper = new ObjectMapper();
-      var requestBody = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(playerNameDto);
+      var requestBody = requestMapper.writeValueAsBytes(playerNameDto);
 
       var request = HttpRequest.newBuilder()
                                .uri(URI.create(uriPlayers))
-                               .header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
-                               .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                               .header(CONTENT_TYPE, requestContentType)
+                               .header(ACCEPT, accept)
+                               .POST(HttpRequest.BodyPublishers.ofByteArray(requestBody))
                                .build();
 
       return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).exceptionally(t -> {
@@ -85,13 +110,13 @@ public class GameServiceClient implements GameService
     try
     {
       var playerNameDto = new PlayerNameDto(playerName);
-      var objectMapper = new ObjectMapper();
-      var requestBody = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(playerNameDto);
+      var requestBody = requestMapper.writeValueAsBytes(playerNameDto);
 
       var request = HttpRequest.newBuilder()
                                .uri(URI.create(uriPlayers))
-                               .header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
-                               .method("DELETE", HttpRequest.BodyPublishers.ofString(requestBody))
+                               .header(CONTENT_TYPE, requestContentType)
+                               .header(ACCEPT, accept)
+                               .method("DELETE", HttpRequest.BodyPublishers.ofByteArray(requestBody))
                                .build();
 
       return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).exceptionally(t -> {
@@ -121,25 +146,17 @@ public class GameServiceClient implements GameService
   {
     var request = HttpRequest.newBuilder()
                              .uri(URI.create(uriMoles))
-                             .header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                             .header(ACCEPT, accept)
                              .GET()
                              .build();
 
-    return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).exceptionally(t -> {
+    return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).exceptionally(t -> {
       throw new CompletionException(t.getCause());
     }).thenApply(resp -> {
       if (HttpStatus.valueOf(resp.statusCode()).is2xxSuccessful())
       {
-        try
-        {
-          var objectMapper = new ObjectMapper();
-          var responseBody = objectMapper.readValue(resp.body(), MoleIdDto[].class);
-          return Arrays.stream(responseBody).map(moleDto -> new Mole(moleDto.getMoleId())).collect(Collectors.toList());
-        }
-        catch (JsonProcessingException e)
-        {
-          throw new CompletionException(e);
-        }
+        var responseBody = readBody(resp, MoleIdDto[].class);
+        return Arrays.stream(responseBody).map(moleDto -> new Mole(moleDto.getMoleId())).collect(Collectors.toList());
       }
       else
       {
@@ -156,13 +173,13 @@ public class GameServiceClient implements GameService
       var playerNameDto = new PlayerNameDto(playerName);
       var moleIdDto = new MoleIdDto(mole.getId());
       var whackDto = new WhackDto(playerNameDto, moleIdDto);
-      var objectMapper = new ObjectMapper();
-      var requestBody = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(whackDto);
+      var requestBody = requestMapper.writeValueAsBytes(whackDto);
 
       var request = HttpRequest.newBuilder()
                                .uri(URI.create(uriMoles))
-                               .header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
-                               .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                               .header(CONTENT_TYPE, requestContentType)
+                               .header(ACCEPT, accept)
+                               .POST(HttpRequest.BodyPublishers.ofByteArray(requestBody))
                                .build();
 
       return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).exceptionally(t -> {
@@ -191,4 +208,63 @@ public class GameServiceClient implements GameService
       throw new CompletionException(e);
     }
   }
+
+  @Override
+  public CompletionStage<List<Boolean>> whackAll(String playerName, List<Mole> moles)
+  {
+    try
+    {
+      var playerNameDto = new PlayerNameDto(playerName);
+      var whackDtos = moles.stream()
+                           .map(mole -> new WhackDto(playerNameDto, new MoleIdDto(mole.getId())))
+                           .collect(Collectors.toList());
+      var requestBody = requestMapper.writeValueAsBytes(whackDtos);
+
+      var request = HttpRequest.newBuilder()
+                               .uri(URI.create(uriMolesBatch))
+                               .header(CONTENT_TYPE, requestContentType)
+                               .header(ACCEPT, accept)
+                               .POST(HttpRequest.BodyPublishers.ofByteArray(requestBody))
+                               .build();
+
+      return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).exceptionally(t -> {
+        throw new CompletionException(t.getCause());
+      }).thenApply(resp -> {
+        if (!HttpStatus.valueOf(resp.statusCode()).is2xxSuccessful())
+        {
+          throw new CompletionException(new Exception(UNHANDLED_EXCEPTION));
+        }
+        var results = readBody(resp, WhackResultDto[].class);
+        // every whack in the batch is this player's, so if one was refused they all were
+        if (Arrays.stream(results).anyMatch(result -> result.getResult() == WhackResultDto.Result.NOT_REGISTERED))
+        {
+          throw new CompletionException(new PlayerNotRegisteredException("Player not registered"));
+        }
+        return Arrays.stream(results)
+                     .map(result -> result.getResult() == WhackResultDto.Result.HIT)
+                     .collect(Collectors.toList());
+      });
+    }
+    catch (JsonProcessingException e)
+    {
+      throw new CompletionException(e);
+    }
+  }
+
+  /**
+   * Reads a body in whichever of Smile or JSON the server chose to answer in.
+   */
+  private <T> T readBody(HttpResponse<byte[]> resp, Class<T> type)
+  {
+    var contentType = resp.headers().firstValue(CONTENT_TYPE).orElse(APPLICATION_JSON_VALUE);
+    var mapper = contentType.startsWith(ApiMediaTypes.APPLICATION_SMILE_VALUE) ? smileMapper : jsonMapper;
+    try
+    {
+      return mapper.readValue(resp.body(), type);
+    }
+    catch (IOException e)
+    {
+      throw new CompletionException(e);
+    }
+  }
 }
@@ -0,0 +1,252 @@
+package uk.co.triad.test.testpyramid.whackamole.gameclient.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import uk.co.triad.test.testpyramid.whackamole.gameclient.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleDeltaDto;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a local copy of the game's moles from the server's WebSocket stream of spawns, whacks and expiries, so reading
+ * the active moles is a local lookup rather than a request per poll.
+ * <p>
+ * Everything else goes to {@link GameServiceClient}, as do mole reads whenever the stream is down. A dropped stream is
+ * reconnected on the next read, or after a short pause while anyone is listening for spawns, and the server starts
+ * every connection with the moles already up.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "services.gameserver.moles.push", havingValue = "true")
+public class StreamingGameService implements GameService
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamingGameService.class);
+  private static final long RECONNECT_DELAY_MILLIS = 1000L;
+  private final GameServiceClient gameServiceClient;
+  private final URI uriMolesStream;
+  private final ConcurrentMap<UUID, Mole> activeMoles = new ConcurrentHashMap<>();
+  private final Set<Consumer<Mole>> spawnListeners = new CopyOnWriteArraySet<>();
+  private final AtomicReference<CompletableFuture<WebSocket>> connection = new AtomicReference<>();
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private HttpClient httpClient = HttpClient.newHttpClient();
+
+  @Autowired
+  public StreamingGameService(GameServiceClient gameServiceClient,
+                              @Value("${services.gameserver.uri.game.moles.stream}") final String uriMolesStream)
+  {
+    this.gameServiceClient = gameServiceClient;
+    this.uriMolesStream = URI.create(uriMolesStream);
+  }
+
+  @Override
+  public CompletionStage<Void> register(String playerName)
+  {
+    return gameServiceClient.register(playerName).thenRun(this::connect);
+  }
+
+  @Override
+  public CompletionStage<Void> deregister(String playerName)
+  {
+    return gameServiceClient.deregister(playerName).thenRun(this::disconnect);
+  }
+
+  @Override
+  public CompletionStage<List<Mole>> activeMoles()
+  {
+    var socket = connect();
+    if (socket.isDone() && !socket.isCompletedExceptionally())
+    {
+      return CompletableFuture.completedFuture(localMoles());
+    }
+    return gameServiceClient.activeMoles();
+  }
+
+  @Override
+  public CompletionStage<Boolean> whack(String playerName, Mole mole)
+  {
+    return gameServiceClient.whack(playerName, mole).thenApply(hit -> {
+      // hit or miss, the mole is gone; no need to wait for the stream to say so before trying the next one
+      activeMoles.remove(mole.getId());
+      return hit;
+    });
+  }
+
+  @Override
+  public CompletionStage<List<Boolean>> whackAll(String playerName, List<Mole> moles)
+  {
+    return gameServiceClient.whackAll(playerName, moles).thenApply(hits -> {
+      moles.forEach(mole -> activeMoles.remove(mole.getId()));
+      return hits;
+    });
+  }
+
+  @Override
+  public boolean addSpawnListener(Consumer<Mole> listener)
+  {
+    spawnListeners.add(listener);
+    connect();
+    return true;
+  }
+
+  @Override
+  public void removeSpawnListener(Consumer<Mole> listener)
+  {
+    spawnListeners.remove(listener);
+  }
+
+  boolean isConnected()
+  {
+    var socket = connection.get();
+    return socket != null && socket.isDone() && !socket.isCompletedExceptionally();
+  }
+
+  List<Mole> localMoles()
+  {
+    return List.copyOf(activeMoles.values());
+  }
+
+  void apply(MoleDeltaDto delta)
+  {
+    switch (delta.getType())
+    {
+      case SPAWNED:
+        var mole = new Mole(delta.getMoleId());
+        activeMoles.put(delta.getMoleId(), mole);
+        spawnListeners.forEach(listener -> listener.accept(mole));
+        break;
+      case WHACKED:
+      case EXPIRED:
+        activeMoles.remove(delta.getMoleId());
+        break;
+      case CLEARED:
+        activeMoles.clear();
+        break;
+      default:
+        LOGGER.warn("Ignoring unknown mole delta {}", delta.getType());
+    }
+  }
+
+  private CompletableFuture<WebSocket> connect()
+  {
+    var current = connection.get();
+    if (current != null && !current.isCompletedExceptionally())
+    {
+      return current;
+    }
+
+    var next = new CompletableFuture<WebSocket>();
+    if (!connection.compareAndSet(current, next))
+    {
+      return connection.get();
+    }
+
+    activeMoles.clear();
+    httpClient.newWebSocketBuilder().buildAsync(uriMolesStream, new DeltaListener(next)).whenComplete((socket, t) -> {
+      if (t != null)
+      {
+        LOGGER.info("Could not stream moles, polling instead: {}", t.getMessage());
+        next.completeExceptionally(t);
+        reconnectLater();
+      }
+      else
+      {
+        next.complete(socket);
+      }
+    });
+    return next;
+  }
+
+  private void disconnect()
+  {
+    var current = connection.getAndSet(null);
+    if (current != null)
+    {
+      current.thenAccept(socket -> socket.sendClose(WebSocket.NORMAL_CLOSURE, ""));
+    }
+    activeMoles.clear();
+  }
+
+  private void lost(CompletableFuture<WebSocket> socket, Throwable t)
+  {
+    // a fresh connection replays the moles that are up, so nothing seen so far can be trusted after a gap
+    if (connection.compareAndSet(socket, CompletableFuture.failedFuture(t)))
+    {
+      LOGGER.info("Lost mole stream: {}", t.getMessage());
+      activeMoles.clear();
+      reconnectLater();
+    }
+  }
+
+  private void reconnectLater()
+  {
+    // no one is polling to bring the stream back, so whoever is listening for spawns needs it brought back for them
+    if (!spawnListeners.isEmpty())
+    {
+      CompletableFuture.delayedExecutor(RECONNECT_DELAY_MILLIS, TimeUnit.MILLISECONDS).execute(this::connect);
+    }
+  }
+
+  private class DeltaListener implements WebSocket.Listener
+  {
+    private final CompletableFuture<WebSocket> socket;
+    private final StringBuilder text = new StringBuilder();
+
+    private DeltaListener(CompletableFuture<WebSocket> socket)
+    {
+      this.socket = socket;
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last)
+    {
+      text.append(data);
+      if (last)
+      {
+        try
+        {
+          apply(objectMapper.readValue(text.toString(), MoleDeltaDto.class));
+        }
+        catch (JsonProcessingException e)
+        {
+          LOGGER.warn("Ignoring unreadable mole delta: {}", e.getMessage());
+        }
+        text.setLength(0);
+      }
+      webSocket.request(1);
+      return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason)
+    {
+      lost(socket, new IllegalStateException("Closed with status " + statusCode));
+      return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error)
+    {
+      lost(socket, error);
+    }
+  }
+}
@@ -2,6 +2,7 @@ package uk.co.triad.test.testpyramid.whackamole.gameclient.domain;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import uk.co.triad.test.testpyramid.whackamole.gameclient.services.GameService;
@@ -10,11 +11,15 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 public class PlayerTest
@@ -73,6 +78,20 @@ public class PlayerTest
     verify(mockedGameService, times(1)).register(any(String.class));
   }
 
+  @Test
+  public void shouldRunOnGivenExecutor() throws ExecutionException, InterruptedException
+  {
+    var tasks = new AtomicInteger();
+    var playerWithExecutor = new Player(MOCK_PLAYER_NAME, task -> {
+      tasks.incrementAndGet();
+      task.run();
+    });
+
+    playerWithExecutor.pause().toCompletableFuture().get();
+
+    assertEquals(1, tasks.get());
+  }
+
   @Test
   public void shouldLeaveGame() throws ExecutionException, InterruptedException
   {
@@ -95,6 +114,33 @@ public class PlayerTest
     verify(mockedGameService, times(1)).deregister(any(String.class));
   }
 
+  @Test
+  public void shouldNotLeaveGameIfNotJoinedWhenTheServiceFailsAlongAChainOfStages()
+      throws ExecutionException, InterruptedException
+  {
+    var failFlow = new CompletableFuture<Void>();
+    failFlow.completeExceptionally(new CompletionException(new PlayerNotRegisteredException("TestNonExistentPlayer")));
+    when(mockedGameService.deregister(any(String.class))).thenReturn(failFlow);
+
+    player.leaveGame(mockedGameService).toCompletableFuture().get();
+
+    verify(mockedGameService, times(1)).deregister(any(String.class));
+  }
+
+  @Test
+  public void shouldCountAsJoinedWhenTheServiceFailsAlongAChainOfStagesAsAlreadyRegistered()
+      throws ExecutionException, InterruptedException
+  {
+    var failFlow = new CompletableFuture<Void>();
+    failFlow.completeExceptionally(new CompletionException(new PlayerAlreadyRegisteredException("TestPlayer")));
+    when(mockedGameService.register(any(String.class))).thenReturn(failFlow);
+
+    player.joinGame(mockedGameService).toCompletableFuture().get();
+    player.joinGame(mockedGameService).toCompletableFuture().get();
+
+    verify(mockedGameService, times(1)).register(any(String.class));
+  }
+
   @Test
   public void shouldCompleteExceptionallyForFailedLeave() throws InterruptedException
   {
@@ -115,7 +161,7 @@ public class PlayerTest
   }
 
   @Test
-  public void shouldGetAllActiveMolesAndWhackThemAll() throws ExecutionException, InterruptedException
+  public void shouldGetAllActiveMolesAndWhackThemAllInOneBatch() throws ExecutionException, InterruptedException
   {
     var mole1 = new Mole(UUID.randomUUID());
     var mole2 = new Mole(UUID.randomUUID());
@@ -125,15 +171,40 @@ public class PlayerTest
     when(mockedGameService.register(any(String.class))).thenReturn(CompletableFuture.completedFuture(null));
     when(mockedGameService.activeMoles()).thenReturn(CompletableFuture.completedFuture(mockedActiveMoles))
                                          .thenReturn(CompletableFuture.completedFuture(new ArrayList<>()));
-    when(mockedGameService.whack(any(String.class), any(Mole.class))).thenReturn(CompletableFuture.completedFuture(
-        Boolean.TRUE));
+    when(mockedGameService.whackAll(any(String.class), anyList())).thenReturn(CompletableFuture.completedFuture(
+        List.of(Boolean.TRUE, Boolean.TRUE, Boolean.TRUE)));
 
     player.joinGame(mockedGameService).toCompletableFuture().get();
     player.autoplay(mockedGameService).toCompletableFuture().get();
 
-    verify(mockedGameService, timeout(2000L).times(1)).whack(any(String.class), eq(mole1));
-    verify(mockedGameService, timeout(2000L).times(1)).whack(any(String.class), eq(mole2));
-    verify(mockedGameService, timeout(2000L).times(1)).whack(any(String.class), eq(mole3));
+    verify(mockedGameService, timeout(2000L).times(1)).whackAll(any(String.class), eq(mockedActiveMoles));
+    verify(mockedGameService, never()).whack(any(String.class), any(Mole.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldWhackEachMoleAsItIsPushedRatherThanPolling() throws ExecutionException, InterruptedException
+  {
+    var mole = new Mole(UUID.randomUUID());
+    var listener = ArgumentCaptor.forClass(Consumer.class);
+    when(mockedGameService.register(any(String.class))).thenReturn(CompletableFuture.completedFuture(null));
+    when(mockedGameService.addSpawnListener(any())).thenReturn(true);
+    when(mockedGameService.activeMoles()).thenReturn(CompletableFuture.completedFuture(List.of()));
+    when(mockedGameService.whackAll(any(String.class), anyList())).thenReturn(CompletableFuture.completedFuture(
+        List.of(Boolean.TRUE)));
+
+    player.joinGame(mockedGameService).toCompletableFuture().get();
+    player.autoplay(mockedGameService).toCompletableFuture().get();
+    verify(mockedGameService).addSpawnListener(listener.capture());
+    listener.getValue().accept(mole);
+
+    verify(mockedGameService, timeout(2000L).times(1)).whackAll(MOCK_PLAYER_NAME, List.of(mole));
+    Thread.sleep(1000L);
+    verify(mockedGameService, times(1)).activeMoles();
+
+    player.pause().toCompletableFuture().get();
+
+    verify(mockedGameService, times(1)).removeSpawnListener(listener.getValue());
   }
 
   @Test
@@ -147,16 +218,14 @@ public class PlayerTest
     when(mockedGameService.register(any(String.class))).thenReturn(CompletableFuture.completedFuture(null));
     when(mockedGameService.activeMoles()).thenReturn(CompletableFuture.completedFuture(mockedActiveMoles))
                                          .thenReturn(CompletableFuture.completedFuture(new ArrayList<>()));
-    var failFlow = new CompletableFuture<Boolean>();
+    var failFlow = new CompletableFuture<List<Boolean>>();
     failFlow.completeExceptionally(new PlayerNotRegisteredException("TestNonExistentPlayer"));
-    when(mockedGameService.whack(any(String.class), any(Mole.class))).thenReturn(failFlow);
+    when(mockedGameService.whackAll(any(String.class), anyList())).thenReturn(failFlow);
 
     player.joinGame(mockedGameService).toCompletableFuture().get();
     player.autoplay(mockedGameService).toCompletableFuture().get();
 
-    verify(mockedGameService, timeout(2000L).times(1)).whack(any(String.class), eq(mole1));
-    verify(mockedGameService, timeout(2000L).times(1)).whack(any(String.class), eq(mole2));
-    verify(mockedGameService, timeout(2000L).times(1)).whack(any(String.class), eq(mole3));
+    verify(mockedGameService, timeout(2000L).times(1)).whackAll(any(String.class), eq(mockedActiveMoles));
   }
 
   @Test
@@ -173,5 +242,6 @@ public class PlayerTest
     player.autoplay(mockedGameService).toCompletableFuture().get();
 
     verify(mockedGameService, times(0)).whack(any(String.class), any(Mole.class));
+    verify(mockedGameService, times(0)).whackAll(any(String.class), anyList());
   }
 }
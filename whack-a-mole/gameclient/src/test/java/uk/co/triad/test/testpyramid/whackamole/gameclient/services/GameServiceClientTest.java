@@ -13,6 +13,7 @@ import uk.co.triad.test.testpyramid.whackamole.gameclient.domain.Mole;
 import uk.co.triad.test.testpyramid.whackamole.gameclient.domain.PlayerAlreadyRegisteredException;
 import uk.co.triad.test.testpyramid.whackamole.gameclient.domain.PlayerNotRegisteredException;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 
@@ -87,6 +88,15 @@ public class GameServiceClientTest
     assertEquals(Mole.class, moles.get(0).getClass());
   }
 
+  @Test
+  public void shouldReadJsonFromServerThatDoesNotAnswerInSmile() throws ExecutionException, InterruptedException
+  {
+    var smileClient = new GameServiceClient(URI_BASE + port + "/players", URI_BASE + port + "/game/moles", true);
+
+    var moles = smileClient.activeMoles().toCompletableFuture().get();
+    assertEquals(2, moles.size());
+  }
+
   @Test
   public void shouldReturnTrueForSuccessfullyWhackedMole() throws ExecutionException, InterruptedException
   {
@@ -105,6 +115,32 @@ public class GameServiceClientTest
     assertEquals(Boolean.FALSE, isGoodWhack);
   }
 
+  @Test
+  public void shouldReturnWhetherEachMoleInABatchWasHit() throws ExecutionException, InterruptedException
+  {
+    var hits = gameServiceClient.whackAll(PLAYER_NAME_EXISTENT,
+                                          List.of(new Mole(MOLE_ID_EXISTENT), new Mole(MOLE_ID_NON_EXISTENT)))
+                                .toCompletableFuture()
+                                .get();
+    assertEquals(List.of(Boolean.TRUE, Boolean.FALSE), hits);
+  }
+
+  @Test
+  public void shouldNotWhackBatchForNonExistentPlayer() throws InterruptedException
+  {
+    try
+    {
+      gameServiceClient.whackAll(PLAYER_NAME_NON_EXISTENT, List.of(new Mole(MOLE_ID_EXISTENT)))
+                       .toCompletableFuture()
+                       .get();
+      fail(EXCEPTION_EXPECTED);
+    }
+    catch (ExecutionException e)
+    {
+      assertEquals(PlayerNotRegisteredException.class, e.getCause().getClass());
+    }
+  }
+
   @Test
   public void shouldNotSuccessfullyWhackMoleForNonExistentPlayer() throws InterruptedException
   {
@@ -0,0 +1,104 @@
+package uk.co.triad.test.testpyramid.whackamole.gameclient.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import uk.co.triad.test.testpyramid.whackamole.gameclient.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleDeltaDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleDeltaDto.Type.*;
+
+public class StreamingGameServiceTest
+{
+  private static final String URI_UNREACHABLE = "ws://localhost:1/game/moles/stream";
+  private static final String PLAYER_NAME = "dan";
+  @Mock private GameServiceClient mockedGameServiceClient;
+  private StreamingGameService streamingGameService;
+
+  @Before
+  public void setUp()
+  {
+    MockitoAnnotations.initMocks(this);
+    streamingGameService = new StreamingGameService(mockedGameServiceClient, URI_UNREACHABLE);
+  }
+
+  @Test
+  public void shouldTrackMolesFromDeltas()
+  {
+    var first = UUID.randomUUID();
+    var second = UUID.randomUUID();
+    var third = UUID.randomUUID();
+
+    streamingGameService.apply(new MoleDeltaDto(SPAWNED, first));
+    streamingGameService.apply(new MoleDeltaDto(SPAWNED, second));
+    streamingGameService.apply(new MoleDeltaDto(SPAWNED, third));
+    streamingGameService.apply(new MoleDeltaDto(WHACKED, first));
+    streamingGameService.apply(new MoleDeltaDto(EXPIRED, second));
+
+    assertEquals(List.of(third), idsOf(streamingGameService.localMoles()));
+
+    streamingGameService.apply(new MoleDeltaDto(CLEARED, null));
+
+    assertTrue(streamingGameService.localMoles().isEmpty());
+  }
+
+  @Test
+  public void shouldTellSpawnListenersOfEachSpawnUntilRemoved()
+  {
+    var spawned = new ArrayList<UUID>();
+    var first = UUID.randomUUID();
+    var second = UUID.randomUUID();
+    Consumer<Mole> listener = mole -> spawned.add(mole.getId());
+
+    assertTrue(streamingGameService.addSpawnListener(listener));
+    streamingGameService.apply(new MoleDeltaDto(SPAWNED, first));
+    streamingGameService.apply(new MoleDeltaDto(WHACKED, first));
+    streamingGameService.removeSpawnListener(listener);
+    streamingGameService.apply(new MoleDeltaDto(SPAWNED, second));
+
+    assertEquals(List.of(first), spawned);
+  }
+
+  @Test
+  public void shouldForgetMoleOnceWhacked() throws ExecutionException, InterruptedException
+  {
+    var mole = new Mole(UUID.randomUUID());
+    when(mockedGameServiceClient.whack(eq(PLAYER_NAME), any())).thenReturn(CompletableFuture.completedFuture(false));
+    streamingGameService.apply(new MoleDeltaDto(SPAWNED, mole.getId()));
+
+    assertFalse(streamingGameService.whack(PLAYER_NAME, mole).toCompletableFuture().get());
+
+    assertTrue(streamingGameService.localMoles().isEmpty());
+  }
+
+  @Test
+  public void shouldPollWhileStreamIsUnavailable() throws ExecutionException, InterruptedException
+  {
+    var polledMole = new Mole(UUID.randomUUID());
+    when(mockedGameServiceClient.activeMoles()).thenReturn(CompletableFuture.completedFuture(List.of(polledMole)));
+
+    var moles = streamingGameService.activeMoles().toCompletableFuture().get();
+
+    assertFalse(streamingGameService.isConnected());
+    assertEquals(List.of(polledMole), moles);
+    verify(mockedGameServiceClient, times(1)).activeMoles();
+  }
+
+  private static List<UUID> idsOf(List<Mole> moles)
+  {
+    return moles.stream().map(Mole::getId).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,17 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers;
+
+/**
+ * Media types the game server answers in besides JSON.
+ */
+public class ApiMediaTypes
+{
+  /**
+   * Jackson's Smile: the same DTOs as the JSON, but binary, with UUIDs as raw bytes and repeated field names sent once.
+   */
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+  private ApiMediaTypes()
+  {
+    // static class
+  }
+}
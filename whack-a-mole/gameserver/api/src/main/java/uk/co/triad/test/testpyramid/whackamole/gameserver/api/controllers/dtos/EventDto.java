@@ -1,7 +1,14 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos;
 
+import java.util.UUID;
+
 public class EventDto
 {
+  private long sequence;
+  private String type;
+  private String playerName;
+  private UUID moleId;
+  private long timestamp;
   private String event;
 
   public EventDto()
@@ -14,6 +21,75 @@ public class EventDto
     this.setEvent(event);
   }
 
+  public EventDto(long sequence, String event)
+  {
+    this.setSequence(sequence);
+    this.setEvent(event);
+  }
+
+  public EventDto(long sequence, String type, String playerName, UUID moleId, long timestamp, String event)
+  {
+    this.setSequence(sequence);
+    this.setType(type);
+    this.setPlayerName(playerName);
+    this.setMoleId(moleId);
+    this.setTimestamp(timestamp);
+    this.setEvent(event);
+  }
+
+  public long getSequence()
+  {
+    return sequence;
+  }
+
+  public void setSequence(long sequence)
+  {
+    this.sequence = sequence;
+  }
+
+  public String getType()
+  {
+    return type;
+  }
+
+  public void setType(String type)
+  {
+    this.type = type;
+  }
+
+  public String getPlayerName()
+  {
+    return playerName;
+  }
+
+  public void setPlayerName(String playerName)
+  {
+    this.playerName = playerName;
+  }
+
+  public UUID getMoleId()
+  {
+    return moleId;
+  }
+
+  public void setMoleId(UUID moleId)
+  {
+    this.moleId = moleId;
+  }
+
+  public long getTimestamp()
+  {
+    return timestamp;
+  }
+
+  public void setTimestamp(long timestamp)
+  {
+    this.timestamp = timestamp;
+  }
+
+  /**
+   * @return the event as a sentence, for display
+   */
   public String getEvent()
   {
     return event;
@@ -0,0 +1,84 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos;
+
+import java.util.List;
+
+public class EventPageDto
+{
+  private List<EventDto> events;
+  private String epoch;
+  private long lastSequence;
+  private long missed;
+  private boolean reset;
+
+  public EventPageDto()
+  {
+    // (de)serialization
+  }
+
+  public EventPageDto(List<EventDto> events, String epoch, long lastSequence, long missed, boolean reset)
+  {
+    this.setEvents(events);
+    this.setEpoch(epoch);
+    this.setLastSequence(lastSequence);
+    this.setMissed(missed);
+    this.setReset(reset);
+  }
+
+  public List<EventDto> getEvents()
+  {
+    return events;
+  }
+
+  public void setEvents(List<EventDto> events)
+  {
+    this.events = events;
+  }
+
+  /**
+   * @return what to pass as afterEpoch next time: which run of the game the sequence belongs to, in hex, as sequences
+   * start again when a game is recreated
+   */
+  public String getEpoch()
+  {
+    return epoch;
+  }
+
+  public void setEpoch(String epoch)
+  {
+    this.epoch = epoch;
+  }
+
+  public long getLastSequence()
+  {
+    return lastSequence;
+  }
+
+  public void setLastSequence(long lastSequence)
+  {
+    this.lastSequence = lastSequence;
+  }
+
+  public long getMissed()
+  {
+    return missed;
+  }
+
+  public void setMissed(long missed)
+  {
+    this.missed = missed;
+  }
+
+  /**
+   * @return true when the sequence asked after was not one of this game's (from another epoch, or further on than it
+   * has got), so the events start again from the oldest still held, and replace whatever the caller had
+   */
+  public boolean isReset()
+  {
+    return reset;
+  }
+
+  public void setReset(boolean reset)
+  {
+    this.reset = reset;
+  }
+}
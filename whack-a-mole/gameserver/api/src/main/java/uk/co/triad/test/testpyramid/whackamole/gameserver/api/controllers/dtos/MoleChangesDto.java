@@ -0,0 +1,87 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos;
+
+import java.util.List;
+
+public class MoleChangesDto
+{
+  private String epoch;
+  private long version;
+  private boolean snapshot;
+  private List<MoleIdDto> added;
+  private List<MoleIdDto> removed;
+
+  public MoleChangesDto()
+  {
+    // (de)serialization
+  }
+
+  public MoleChangesDto(String epoch, long version, boolean snapshot, List<MoleIdDto> added, List<MoleIdDto> removed)
+  {
+    this.setEpoch(epoch);
+    this.setVersion(version);
+    this.setSnapshot(snapshot);
+    this.setAdded(added);
+    this.setRemoved(removed);
+  }
+
+  /**
+   * @return what to pass as sinceEpoch next time: which run of the game the version belongs to, in hex, as versions
+   * start again when a game is recreated
+   */
+  public String getEpoch()
+  {
+    return epoch;
+  }
+
+  public void setEpoch(String epoch)
+  {
+    this.epoch = epoch;
+  }
+
+  /**
+   * @return what to pass as sinceVersion next time
+   */
+  public long getVersion()
+  {
+    return version;
+  }
+
+  public void setVersion(long version)
+  {
+    this.version = version;
+  }
+
+  /**
+   * @return true when {@link #getAdded()} holds every active mole and replaces the caller's set, because the version
+   * asked about was too old to diff against, or from another epoch
+   */
+  public boolean isSnapshot()
+  {
+    return snapshot;
+  }
+
+  public void setSnapshot(boolean snapshot)
+  {
+    this.snapshot = snapshot;
+  }
+
+  public List<MoleIdDto> getAdded()
+  {
+    return added;
+  }
+
+  public void setAdded(List<MoleIdDto> added)
+  {
+    this.added = added;
+  }
+
+  public List<MoleIdDto> getRemoved()
+  {
+    return removed;
+  }
+
+  public void setRemoved(List<MoleIdDto> removed)
+  {
+    this.removed = removed;
+  }
+}
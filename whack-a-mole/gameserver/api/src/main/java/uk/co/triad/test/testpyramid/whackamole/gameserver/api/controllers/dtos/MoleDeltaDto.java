@@ -0,0 +1,51 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos;
+
+import java.util.UUID;
+
+public class MoleDeltaDto
+{
+  private Type type;
+  private UUID moleId;
+
+  public MoleDeltaDto()
+  {
+    // (de)serialization
+  }
+
+  public MoleDeltaDto(Type type, UUID moleId)
+  {
+    this.setType(type);
+    this.setMoleId(moleId);
+  }
+
+  public Type getType()
+  {
+    return type;
+  }
+
+  public void setType(Type type)
+  {
+    this.type = type;
+  }
+
+  /**
+   * @return null for {@link Type#CLEARED}, which applies to every mole
+   */
+  public UUID getMoleId()
+  {
+    return moleId;
+  }
+
+  public void setMoleId(UUID moleId)
+  {
+    this.moleId = moleId;
+  }
+
+  public enum Type
+  {
+    SPAWNED,
+    WHACKED,
+    EXPIRED,
+    CLEARED
+  }
+}
@@ -0,0 +1,30 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos;
+
+/**
+ * What registering answers with: a handle a whack can name its player by instead of the player's name, for as long as
+ * the player stays registered in that game.
+ */
+public class PlayerHandleDto
+{
+  private long playerHandle;
+
+  public PlayerHandleDto()
+  {
+    // (de)serialization
+  }
+
+  public PlayerHandleDto(long playerHandle)
+  {
+    this.setPlayerHandle(playerHandle);
+  }
+
+  public long getPlayerHandle()
+  {
+    return playerHandle;
+  }
+
+  public void setPlayerHandle(long playerHandle)
+  {
+    this.playerHandle = playerHandle;
+  }
+}
@@ -1,8 +1,13 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos;
 
+/**
+ * A whack by a player named either by name or, cheaper for the server, by the handle registering gave them; a handle
+ * takes precedence.
+ */
 public class WhackDto
 {
   private PlayerNameDto playerNameDto;
+  private Long playerHandle;
   private MoleIdDto moleIdDto;
 
   public WhackDto()
@@ -16,6 +21,12 @@ public class WhackDto
     this.moleIdDto = moleIdDto;
   }
 
+  public WhackDto(long playerHandle, MoleIdDto moleIdDto)
+  {
+    this.playerHandle = playerHandle;
+    this.moleIdDto = moleIdDto;
+  }
+
   public PlayerNameDto getPlayerNameDto()
   {
     return playerNameDto;
@@ -26,6 +37,19 @@ public class WhackDto
     this.playerNameDto = playerDto;
   }
 
+  /**
+   * @return null if the player is named by name
+   */
+  public Long getPlayerHandle()
+  {
+    return playerHandle;
+  }
+
+  public void setPlayerHandle(Long playerHandle)
+  {
+    this.playerHandle = playerHandle;
+  }
+
   public MoleIdDto getMoleIdDto()
   {
     return moleIdDto;
@@ -0,0 +1,47 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos;
+
+import java.util.UUID;
+
+public class WhackResultDto
+{
+  private UUID moleId;
+  private Result result;
+
+  public WhackResultDto()
+  {
+    // (de)serialization
+  }
+
+  public WhackResultDto(UUID moleId, Result result)
+  {
+    this.setMoleId(moleId);
+    this.setResult(result);
+  }
+
+  public UUID getMoleId()
+  {
+    return moleId;
+  }
+
+  public void setMoleId(UUID moleId)
+  {
+    this.moleId = moleId;
+  }
+
+  public Result getResult()
+  {
+    return result;
+  }
+
+  public void setResult(Result result)
+  {
+    this.result = result;
+  }
+
+  public enum Result
+  {
+    HIT,
+    MISSED,
+    NOT_REGISTERED
+  }
+}
@@ -0,0 +1,35 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.executors.ExecutorType;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.executors.MeteredExecutor;
+
+@Configuration
+public class ExecutorConfig
+{
+  @Bean
+  public MeteredExecutor gameExecutor(@Value("${game.executors.game.type:fixed}") final ExecutorType type,
+                                      @Value("${game.executors.game.threads:0}") final int threads)
+  {
+    return new MeteredExecutor("game", "game", type, threads);
+  }
+
+  @Bean
+  public MeteredExecutor serviceExecutor(@Value("${game.executors.service.type:fixed}") final ExecutorType type,
+                                         @Value("${game.executors.service.threads:0}") final int threads)
+  {
+    return new MeteredExecutor("game", "game-service", type, threads);
+  }
+
+  /**
+   * Sends to event and mole streams, which block while a client is slow to read, so they never hold up the service.
+   */
+  @Bean
+  public MeteredExecutor streamExecutor(@Value("${game.executors.stream.type:fixed}") final ExecutorType type,
+                                        @Value("${game.executors.stream.threads:0}") final int threads)
+  {
+    return new MeteredExecutor("game", "game-stream", type, threads);
+  }
+}
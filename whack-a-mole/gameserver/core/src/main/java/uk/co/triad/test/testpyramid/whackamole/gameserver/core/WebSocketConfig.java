@@ -0,0 +1,27 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.MoleStreamHandler;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer
+{
+  private MoleStreamHandler moleStreamHandler;
+
+  @Autowired
+  public WebSocketConfig(MoleStreamHandler moleStreamHandler)
+  {
+    this.moleStreamHandler = moleStreamHandler;
+  }
+
+  @Override
+  public void registerWebSocketHandlers(WebSocketHandlerRegistry registry)
+  {
+    registry.addHandler(moleStreamHandler, MoleStreamHandler.PATH_DEFAULT_GAME, MoleStreamHandler.PATH_NAMED_GAME);
+  }
+}
@@ -0,0 +1,49 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
+
+/**
+ * Entity tags made from the versions a game keeps of its state, rather than by hashing a response, so a poll for
+ * something unchanged can be answered 304 before the game is even asked for it.
+ */
+public class ETags
+{
+  private static final String ANY = "*";
+  private static final String WEAK_PREFIX = "W/";
+
+  private ETags()
+  {
+    // static class
+  }
+
+  /**
+   * @param epoch the game's version epoch, so tags from another game or an earlier run never match
+   */
+  public static String of(long epoch, long version)
+  {
+    return "\"" + Epochs.format(epoch) + "-" + Long.toHexString(version) + "\"";
+  }
+
+  /**
+   * @param ifNoneMatch the request's If-None-Match header, or null if it had none
+   * @return whether the header names the tag, compared weakly as If-None-Match is, or is *
+   */
+  public static boolean matches(String ifNoneMatch, String etag)
+  {
+    if (ifNoneMatch == null)
+    {
+      return false;
+    }
+    for (var candidate : ifNoneMatch.split(","))
+    {
+      var tag = candidate.trim();
+      if (tag.startsWith(WEAK_PREFIX))
+      {
+        tag = tag.substring(WEAK_PREFIX.length());
+      }
+      if (tag.equals(ANY) || tag.equals(etag))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+}
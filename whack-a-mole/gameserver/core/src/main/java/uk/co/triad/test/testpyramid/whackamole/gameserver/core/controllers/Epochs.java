@@ -0,0 +1,33 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
+
+/**
+ * A game's version epoch as clients are given it and give it back: in hex, as in {@link ETags}, so a JavaScript client
+ * holds it as a string rather than rounding it as it would so large a number.
+ */
+public class Epochs
+{
+  private Epochs()
+  {
+    // static class
+  }
+
+  public static String format(long epoch)
+  {
+    return Long.toHexString(epoch);
+  }
+
+  /**
+   * @return the epoch written, or null if the text is not one
+   */
+  public static Long parse(String text)
+  {
+    try
+    {
+      return Long.parseUnsignedLong(text, 16);
+    }
+    catch (NumberFormatException e)
+    {
+      return null;
+    }
+  }
+}
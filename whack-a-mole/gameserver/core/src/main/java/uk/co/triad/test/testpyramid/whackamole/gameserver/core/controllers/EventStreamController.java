@@ -0,0 +1,67 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.EventSubscription;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.SlowConsumerPolicy;
+
+import java.util.concurrent.Executor;
+
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
+
+@RestController
+@RequestMapping({ "game", "game/{gameId}" })
+public class EventStreamController
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(EventStreamController.class);
+  private static final String GAME_ID = "gameId";
+  private GameRoomService gameRoomService;
+  private Executor executor;
+  private int bufferSize;
+  private SlowConsumerPolicy slowConsumerPolicy;
+  private long timeoutMillis;
+
+  @Autowired
+  public EventStreamController(GameRoomService gameRoomService,
+                               @Qualifier("streamExecutor") Executor executor,
+                               @Value("${game.events.stream.buffer-size:256}") int bufferSize,
+                               @Value("${game.events.stream.slow-consumer:drop-oldest}")
+                                   SlowConsumerPolicy slowConsumerPolicy,
+                               @Value("${game.events.stream.timeout-millis:0}") long timeoutMillis)
+  {
+    this.gameRoomService = gameRoomService;
+    this.executor = executor;
+    this.bufferSize = bufferSize;
+    this.slowConsumerPolicy = slowConsumerPolicy;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  @GetMapping(path = "events/stream", produces = TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamEvents(@PathVariable(name = GAME_ID, required = false) String gameId)
+  {
+    LOGGER.info("Stream events");
+    var room = gameRoomService.room(gameId);
+    var emitter = new SseEmitter(timeoutMillis);
+    var subscription = new EventSubscription<>(bufferSize, slowConsumerPolicy, executor, new SseEventSink(emitter));
+
+    Runnable unsubscribe = () -> {
+      room.unsubscribe(subscription);
+      subscription.close();
+    };
+    emitter.onCompletion(unsubscribe);
+    emitter.onTimeout(unsubscribe);
+    emitter.onError(t -> unsubscribe.run());
+
+    room.subscribe(subscription);
+    return emitter;
+  }
+}
@@ -1,110 +1,374 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
 
+import io.swagger.annotations.ApiOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import springfox.documentation.annotations.ApiIgnore;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.EventDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.EventPageDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleChangesDto;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleIdDto;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerScoreDto;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.WhackDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.WhackResultDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.JsonListWriter;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.EventDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.MoleChangesDtoMapper;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.MoleIdDtoMapper;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.PlayerScoreDtoMapper;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.WhackDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.WhackResultDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEventType;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerNotRegisteredException;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameCommandQueryService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 @RestController
-@RequestMapping("game")
+@RequestMapping({ "game", "game/{gameId}" })
 public class GameController
 {
   private static final Logger LOGGER = LoggerFactory.getLogger(GameController.class);
-  private GameCommandQueryService gameCommandQueryService;
+  private static final String GAME_ID = "gameId";
+  private static final String WAIT = "wait";
+  private static final String PLAYER = "player";
+  private static final String TYPE = "type";
+  private static final String FROM = "from";
+  private static final String TO = "to";
+  private static final String EVENTS_HELD_FROM = "Events-Held-From";
+  private static final long DEFAULT_MAX_WAIT_MILLIS = 20000L;
+  private GameRoomService gameRoomService;
+  private long maxWaitMillis;
 
+  public GameController(GameRoomService gameRoomService)
+  {
+    this(gameRoomService, DEFAULT_MAX_WAIT_MILLIS);
+  }
+
+  /**
+   * @param maxWaitMillis cap on how long a long poll (the wait parameter) is parked; keep it under the servlet
+   *                      container's async timeout, or a long poll ends in an error rather than an empty answer
+   */
   @Autowired
-  public GameController(GameCommandQueryService gameCommandQueryService)
+  public GameController(GameRoomService gameRoomService,
+                        @Value("${game.poll.max-wait-millis:20000}") long maxWaitMillis)
   {
-    this.gameCommandQueryService = gameCommandQueryService;
+    this.gameRoomService = gameRoomService;
+    this.maxWaitMillis = maxWaitMillis;
   }
 
   @PostMapping(path = "start")
-  public CompletionStage<ResponseEntity<Void>> start()
+  public CompletionStage<ResponseEntity<Void>> start(@PathVariable(name = GAME_ID, required = false) String gameId)
   {
     LOGGER.info("Start game");
-    return gameCommandQueryService.start().thenApply(ResponseEntity::ok);
+    return gameRoomService.openRoom(gameId).start().thenApply(ResponseEntity::ok);
   }
 
   @PostMapping(path = "stop")
-  public CompletionStage<ResponseEntity<Void>> stop()
+  public CompletionStage<ResponseEntity<Void>> stop(@PathVariable(name = GAME_ID, required = false) String gameId)
   {
     LOGGER.info("Stop game");
-    return gameCommandQueryService.stop().thenApply(ResponseEntity::ok);
+    return gameRoomService.room(gameId).stop().thenApply(ResponseEntity::ok);
   }
 
+  /**
+   * The moles up now, written straight from the game's snapshot of them; 304 if they are still those the ETag sent
+   * was given for. Given a wait as well, that 304 only comes once the wait is up without them changing.
+   */
   @GetMapping(path = "moles")
-  public CompletionStage<ResponseEntity<List<MoleIdDto>>> listMoles()
+  // the body is written by hand, so its schema has to be given
+  @ApiOperation(value = "List the active moles", response = MoleIdDto.class, responseContainer = "List")
+  public CompletionStage<ResponseEntity<JsonListWriter<Mole>>> listMoles(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestParam(name = WAIT, defaultValue = "0") long wait,
+      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
   {
     LOGGER.info("View all active moles");
-    return gameCommandQueryService.activeMoles()
-                                  .thenApply(moles -> ResponseEntity.ok(moles.stream()
-                                                                             .map(MoleIdDtoMapper::createDto)
-                                                                             .collect(Collectors.toList())));
+    if (wait < 0)
+    {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    var room = gameRoomService.room(gameId);
+    var version = room.molesVersion();
+    var etag = ETags.of(room.versionEpoch(), version);
+    if (ETags.matches(ifNoneMatch, etag))
+    {
+      if (wait == 0)
+      {
+        return CompletableFuture.completedFuture(notModified(etag));
+      }
+      // the client has these moles already, so rather than a 304 it can only poll again for, wait for them to change
+      return room.molesVersionAfter(version, capWait(wait)).thenCompose(current -> current == version
+          ? CompletableFuture.completedFuture(notModified(etag))
+          : room.activeMoles().thenApply(moles -> molesResponse(ETags.of(room.versionEpoch(), current), moles)));
+    }
+    return room.activeMoles(capWait(wait)).thenApply(moles -> molesResponse(etag, moles));
+  }
+
+  private static ResponseEntity<JsonListWriter<Mole>> molesResponse(String etag, List<Mole> moles)
+  {
+    return ResponseEntity.ok().eTag(etag).body(JsonListWriter.of(moles, MoleIdDtoMapper::writeDto));
+  }
+
+  /**
+   * Just the moles added and removed since the version and epoch from an earlier response; 304 when there are none.
+   * A version from another epoch (the room has been recreated since) is answered with a snapshot of every mole.
+   */
+  @GetMapping(path = "moles", params = "sinceVersion")
+  // Swagger 2 has one operation per path and method, and left to choose, springfox documents whichever comes first
+  @ApiIgnore
+  public CompletionStage<ResponseEntity<MoleChangesDto>> listMolesSince(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestParam(name = "sinceEpoch") String sinceEpoch,
+      @RequestParam(name = "sinceVersion") long sinceVersion,
+      @RequestParam(name = WAIT, defaultValue = "0") long wait)
+  {
+    LOGGER.info("View moles changed since version {}", sinceVersion);
+    var epoch = Epochs.parse(sinceEpoch);
+    if (epoch == null || sinceVersion < 0 || wait < 0)
+    {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    return gameRoomService.room(gameId).molesSince(epoch, sinceVersion, capWait(wait)).thenApply(changes -> {
+      if (changes.isEmpty())
+      {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+      }
+      return ResponseEntity.ok(MoleChangesDtoMapper.createDto(changes));
+    });
   }
 
+  /**
+   * 400 for a whack by someone not registered, including by a player handle that is not (or no longer) registered.
+   */
   @PostMapping(path = "moles")
-  public CompletionStage<ResponseEntity<Void>> whack(@RequestBody WhackDto whackDto)
+  public CompletionStage<ResponseEntity<Void>> whack(@PathVariable(name = GAME_ID, required = false) String gameId,
+                                                     @RequestBody WhackDto whackDto)
   {
     LOGGER.info("Whack a mole");
-    return gameCommandQueryService.whack(Mole.newMole(WhackDtoMapper.createMoleId(whackDto)),
-                                         Player.newPlayer(WhackDtoMapper.createPlayerName(whackDto)))
-                                  .thenApply(result -> {
-                                    if (Boolean.TRUE.equals(result))
-                                    {
-                                      return new ResponseEntity<Void>(HttpStatus.OK);
-                                    }
-                                    else
-                                    {
-                                      return new ResponseEntity<Void>(HttpStatus.NOT_FOUND);
-                                    }
-                                  })
-                                  .exceptionally(t -> {
-                                    if (t.getCause() instanceof PlayerNotRegisteredException)
-                                    {
-                                      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
-                                    }
-                                    else
-                                    {
-                                      return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-                                    }
-                                  });
+    var room = gameRoomService.room(gameId);
+    var player = WhackDtoMapper.createPlayer(whackDto, room::player);
+    if (player == null)
+    {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    return room.whack(Mole.newMole(WhackDtoMapper.createMoleId(whackDto)), player)
+               .thenApply(result -> {
+                 if (Boolean.TRUE.equals(result))
+                 {
+                   return new ResponseEntity<Void>(HttpStatus.OK);
+                 }
+                 else
+                 {
+                   return new ResponseEntity<Void>(HttpStatus.NOT_FOUND);
+                 }
+               })
+               .exceptionally(t -> {
+                 if (t.getCause() instanceof PlayerNotRegisteredException)
+                 {
+                   return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                 }
+                 else
+                 {
+                   return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+                 }
+               });
   }
 
+  /**
+   * Several whacks in one request and one pass over the game; 200 with a result for each, in the order sent, or 400
+   * if any names its player by a handle that is not registered.
+   */
+  @PostMapping(path = "moles/batch")
+  public CompletionStage<ResponseEntity<List<WhackResultDto>>> whackAll(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestBody List<WhackDto> whackDtos)
+  {
+    LOGGER.info("Whack {} moles", whackDtos.size());
+    var room = gameRoomService.room(gameId);
+    var whacks = whackDtos.stream()
+                          .map(whackDto -> WhackDtoMapper.createWhack(whackDto, room::player))
+                          .collect(Collectors.toList());
+    if (whacks.contains(null))
+    {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    return room.whackAll(whacks).thenApply(results -> {
+      var resultDtos = new ArrayList<WhackResultDto>(results.size());
+      for (var i = 0; i < results.size(); i++)
+      {
+        resultDtos.add(WhackResultDtoMapper.createDto(whacks.get(i), results.get(i)));
+      }
+      return ResponseEntity.ok(resultDtos);
+    });
+  }
+
+  /**
+   * Unread events; or, given any of player, type, from and to (epoch millis, inclusive), the events still held that
+   * match them, looked up in the room's event indexes and leaving the unread cursor alone. Only the room's newest
+   * events are held, so the Events-Held-From header says from when on (epoch millis) such an answer is complete.
+   */
   @GetMapping(path = "events")
-  public CompletionStage<ResponseEntity<List<EventDto>>> unreadEvents()
+  public CompletionStage<ResponseEntity<List<EventDto>>> unreadEvents(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestParam(name = WAIT, defaultValue = "0") long wait,
+      @RequestParam(name = PLAYER, required = false) String player,
+      @RequestParam(name = TYPE, required = false) String type,
+      @RequestParam(name = FROM, required = false) Long from,
+      @RequestParam(name = TO, required = false) Long to)
   {
+    if (player != null || type != null || from != null || to != null)
+    {
+      LOGGER.info("Find events for player {} of type {} from {} to {}", player, type, from, to);
+      var eventType = parseEventType(type);
+      var fromMillis = from != null ? from : 0L;
+      var toMillis = to != null ? to : Long.MAX_VALUE;
+      if (eventType == null && type != null || fromMillis < 0 || fromMillis > toMillis)
+      {
+        return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+      }
+      var room = gameRoomService.room(gameId);
+      return room.findEvents(player, eventType, fromMillis, toMillis)
+                 .thenApply(events -> ResponseEntity.ok()
+                                                    .header(EVENTS_HELD_FROM,
+                                                            Long.toString(room.eventsHeldFromMillis()))
+                                                    .body(events.stream()
+                                                                .map(EventDtoMapper::createDto)
+                                                                .collect(Collectors.toList())));
+    }
     LOGGER.info("Get unread events");
-    return gameCommandQueryService.getUnreadEvents()
-                                  .thenApply(events -> ResponseEntity.ok(events.stream()
-                                                                               .map(EventDtoMapper::createDto)
-                                                                               .collect(Collectors.toList())));
+    if (wait < 0)
+    {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    return gameRoomService.room(gameId)
+                          .getUnreadEvents(capWait(wait))
+                          .thenApply(events -> ResponseEntity.ok(events.stream()
+                                                                       .map(EventDtoMapper::createDto)
+                                                                       .collect(Collectors.toList())));
   }
 
+  /**
+   * The events after a sequence, given with the epoch it came with (none for this room's own, e.g. to start from 0). A
+   * sequence from another epoch, or further on than the room has got, resets the reader to the oldest event held.
+   */
+  @GetMapping(path = "events", params = "after")
+  public CompletionStage<ResponseEntity<EventPageDto>> eventsAfter(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestParam(name = "afterEpoch", required = false) String afterEpoch,
+      @RequestParam(name = "after") long after,
+      @RequestParam(name = WAIT, defaultValue = "0") long wait)
+  {
+    LOGGER.info("Get events after {}", after);
+    var epoch = afterEpoch == null ? null : Epochs.parse(afterEpoch);
+    if ((afterEpoch != null && epoch == null) || after < 0 || wait < 0)
+    {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    var room = gameRoomService.room(gameId);
+    return room.getEventsAfter(epoch == null ? room.versionEpoch() : epoch, after, capWait(wait))
+               .thenApply(page -> ResponseEntity.ok(EventDtoMapper.createPageDto(room.versionEpoch(), page)));
+  }
+
+  /**
+   * 304 if no one has joined, left or scored since the ETag sent was given; given a wait, only once the wait is up
+   * without anyone doing so.
+   */
   @GetMapping(path = "scores")
-  public CompletionStage<ResponseEntity<List<PlayerScoreDto>>> listScores()
+  @ApiOperation(value = "List the players' scores", response = PlayerScoreDto.class, responseContainer = "List")
+  public CompletionStage<ResponseEntity<JsonListWriter<Player>>> listScores(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestParam(name = "top", required = false) Integer top,
+      @RequestParam(name = FROM, defaultValue = "0") int from,
+      @RequestParam(name = "size", required = false) Integer size,
+      @RequestParam(name = WAIT, defaultValue = "0") long wait,
+      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+  {
+    var ranked = top != null || size != null;
+    var count = top != null ? top : size;
+    var first = top != null ? 0 : from;
+    if (ranked && (count < 0 || first < 0) || wait < 0)
+    {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    var room = gameRoomService.room(gameId);
+    var version = room.scoresVersion();
+    var etag = ETags.of(room.versionEpoch(), version);
+    if (ETags.matches(ifNoneMatch, etag))
+    {
+      if (wait == 0)
+      {
+        return CompletableFuture.completedFuture(notModified(etag));
+      }
+      return room.scoresVersionAfter(version, capWait(wait)).thenCompose(current -> current == version
+          ? CompletableFuture.completedFuture(notModified(etag))
+          : scores(room, ranked, first, count, ETags.of(room.versionEpoch(), current)));
+    }
+    return scores(room, ranked, first, count, etag);
+  }
+
+  private static CompletionStage<ResponseEntity<JsonListWriter<Player>>> scores(GameCommandQueryService room,
+                                                                                 boolean ranked,
+                                                                                 int first,
+                                                                                 Integer count,
+                                                                                 String etag)
+  {
+    CompletionStage<List<Player>> players;
+    if (ranked)
+    {
+      LOGGER.info("Get scores for players ranked {} to {}", first + 1, first + count);
+      players = room.rankedPlayers(first, count);
+    }
+    else
+    {
+      LOGGER.info("Get scores for all players");
+      players = room.activePlayers();
+    }
+    return players.thenApply(scoredPlayers -> ResponseEntity.ok()
+                                                            .eTag(etag)
+                                                            .body(JsonListWriter.of(scoredPlayers,
+                                                                                    PlayerScoreDtoMapper::writeDto)));
+  }
+
+  private static <T> ResponseEntity<T> notModified(String etag)
+  {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+  }
+
+  private long capWait(long wait)
+  {
+    return Math.min(wait, maxWaitMillis);
+  }
+
+  /**
+   * @return the type named, or null if there is no name or no such type
+   */
+  private static GameEventType parseEventType(String type)
   {
-    LOGGER.info("Get scores for all players");
-    return gameCommandQueryService.activePlayers()
-                                  .thenApply(players -> ResponseEntity.ok(players.stream()
-                                                                                 .map(PlayerScoreDtoMapper::createDto)
-                                                                                 .collect(Collectors.toList())));
+    if (type == null)
+    {
+      return null;
+    }
+    try
+    {
+      return GameEventType.valueOf(type);
+    }
+    catch (IllegalArgumentException e)
+    {
+      return null;
+    }
   }
 }
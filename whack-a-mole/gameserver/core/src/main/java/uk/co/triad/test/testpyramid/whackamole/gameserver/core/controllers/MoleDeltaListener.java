@@ -0,0 +1,89 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
+
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleDeltaDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.MoleDeltaDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameListener;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.EventSubscription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleDeltaDto.Type.*;
+
+/**
+ * Turns one game's mole changes into deltas for one subscriber.
+ * <p>
+ * The listener is attached before the current moles are read, and holds back whatever happens in between until
+ * {@link #goLive(List)} has sent those moles. Replaying the held-back deltas on top of the snapshot can only repeat a
+ * spawn or a removal, both of which a mole set absorbs, so the subscriber never misses a change.
+ */
+class MoleDeltaListener implements GameListener
+{
+  private final EventSubscription<MoleDeltaDto> subscription;
+  private final int maxPending;
+  private List<MoleDeltaDto> pending = new ArrayList<>();
+
+  MoleDeltaListener(EventSubscription<MoleDeltaDto> subscription, int maxPending)
+  {
+    this.subscription = subscription;
+    this.maxPending = maxPending;
+  }
+
+  synchronized void goLive(List<Mole> activeMoles)
+  {
+    if (pending != null)
+    {
+      activeMoles.forEach(mole -> subscription.offer(MoleDeltaDtoMapper.createDto(SPAWNED, mole)));
+      pending.forEach(subscription::offer);
+      pending = null;
+    }
+  }
+
+  void close()
+  {
+    subscription.close();
+  }
+
+  @Override
+  public void moleSpawned(Mole mole)
+  {
+    publish(MoleDeltaDtoMapper.createDto(SPAWNED, mole));
+  }
+
+  @Override
+  public void moleWhacked(Mole mole, Player player, int total)
+  {
+    publish(MoleDeltaDtoMapper.createDto(WHACKED, mole));
+  }
+
+  @Override
+  public void moleExpired(Mole mole)
+  {
+    publish(MoleDeltaDtoMapper.createDto(EXPIRED, mole));
+  }
+
+  @Override
+  public void molesCleared()
+  {
+    publish(MoleDeltaDtoMapper.createClearedDto());
+  }
+
+  private synchronized void publish(MoleDeltaDto delta)
+  {
+    if (pending == null)
+    {
+      subscription.offer(delta);
+    }
+    else if (pending.size() < maxPending)
+    {
+      pending.add(delta);
+    }
+    else
+    {
+      // the snapshot is taking too long to arrive; a reconnect will start again from a fresh one
+      subscription.close();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.EventSubscription;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameCommandQueryService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.SlowConsumerPolicy;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Pushes mole spawns, whacks, expiries and clears to WebSocket subscribers as they happen, starting with a spawn for
+ * every mole already up.
+ * <p>
+ * A subscriber that cannot keep up is disconnected rather than having deltas dropped, since a gap would leave its mole
+ * set wrong until the next reconnect anyway.
+ */
+@Component
+public class MoleStreamHandler extends TextWebSocketHandler
+{
+  public static final String PATH_DEFAULT_GAME = "/game/moles/stream";
+  public static final String PATH_NAMED_GAME = "/game/{gameId}/moles/stream";
+  private static final Logger LOGGER = LoggerFactory.getLogger(MoleStreamHandler.class);
+  private static final String GAME_ID = "gameId";
+  private static final String ROOM = "room";
+  private static final String LISTENER = "listener";
+  private final AntPathMatcher pathMatcher = new AntPathMatcher();
+  private GameRoomService gameRoomService;
+  private Executor executor;
+  private ObjectMapper objectMapper;
+  private int bufferSize;
+
+  @Autowired
+  public MoleStreamHandler(GameRoomService gameRoomService,
+                           @Qualifier("streamExecutor") Executor executor,
+                           ObjectMapper objectMapper,
+                           @Value("${game.moles.stream.buffer-size:256}") int bufferSize)
+  {
+    this.gameRoomService = gameRoomService;
+    this.executor = executor;
+    this.objectMapper = objectMapper;
+    this.bufferSize = bufferSize;
+  }
+
+  @Override
+  public void afterConnectionEstablished(WebSocketSession session)
+  {
+    LOGGER.info("Stream moles");
+    var room = gameRoomService.room(gameIdOf(session));
+    var subscription = new EventSubscription<>(bufferSize,
+                                               SlowConsumerPolicy.DISCONNECT,
+                                               executor,
+                                               new WebSocketDeltaSink(session, objectMapper));
+    var listener = new MoleDeltaListener(subscription, bufferSize);
+    session.getAttributes().put(ROOM, room);
+    session.getAttributes().put(LISTENER, listener);
+
+    room.addListener(listener);
+    room.activeMoles().thenAccept(listener::goLive).exceptionally(t -> {
+      listener.close();
+      return null;
+    });
+  }
+
+  @Override
+  public void afterConnectionClosed(WebSocketSession session, CloseStatus status)
+  {
+    var room = (GameCommandQueryService) session.getAttributes().get(ROOM);
+    var listener = (MoleDeltaListener) session.getAttributes().get(LISTENER);
+    if (room != null && listener != null)
+    {
+      room.removeListener(listener);
+      listener.close();
+    }
+  }
+
+  private String gameIdOf(WebSocketSession session)
+  {
+    var path = session.getUri() != null ? session.getUri().getPath() : PATH_DEFAULT_GAME;
+    return pathMatcher.match(PATH_NAMED_GAME, path)
+           ? pathMatcher.extractUriTemplateVariables(PATH_NAMED_GAME, path).get(GAME_ID)
+           : null;
+  }
+}
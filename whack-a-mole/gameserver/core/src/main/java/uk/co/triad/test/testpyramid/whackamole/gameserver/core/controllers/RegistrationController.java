@@ -1,80 +1,104 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
 
+import io.swagger.annotations.ApiOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerHandleDto;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerNameDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.JsonListWriter;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.PlayerNameDtoMapper;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerAlreadyRegisteredException;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerNotRegisteredException;
-import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameCommandQueryService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-import java.util.stream.Collectors;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @RestController
-@RequestMapping(value = "players", produces = APPLICATION_JSON_VALUE)
+@RequestMapping(value = { "players", "game/{gameId}/players" }, produces = APPLICATION_JSON_VALUE)
 public class RegistrationController
 {
   private static final Logger LOGGER = LoggerFactory.getLogger(RegistrationController.class);
-  private GameCommandQueryService gameCommandQueryService;
+  private static final String GAME_ID = "gameId";
+  private GameRoomService gameRoomService;
 
   @Autowired
-  public RegistrationController(GameCommandQueryService gameCommandQueryService)
+  public RegistrationController(GameRoomService gameRoomService)
   {
-    this.gameCommandQueryService = gameCommandQueryService;
+    this.gameRoomService = gameRoomService;
   }
 
+  /**
+   * 200 with the player's handle, which their whacks can send in place of their name.
+   */
   @PostMapping
-  public CompletionStage<ResponseEntity<Void>> register(@RequestBody PlayerNameDto playerNameDto)
+  public CompletionStage<ResponseEntity<PlayerHandleDto>> register(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestBody PlayerNameDto playerNameDto)
   {
     LOGGER.info("Registering player {}", playerNameDto.getPlayerName());
-    return gameCommandQueryService.register(Player.newPlayer(playerNameDto.getPlayerName()))
-                                  .thenApply(ResponseEntity::ok)
-                                  .exceptionally(t -> {
-                                    if (t.getCause() instanceof PlayerAlreadyRegisteredException)
-                                    {
-                                      return new ResponseEntity<>(HttpStatus.CONFLICT);
-                                    }
-                                    else
-                                    {
-                                      return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-                                    }
-                                  });
+    return gameRoomService.openRoom(gameId)
+                          .register(Player.newPlayer(playerNameDto.getPlayerName()))
+                          .thenApply(handle -> ResponseEntity.ok(new PlayerHandleDto(handle)))
+                          .exceptionally(t -> {
+                            if (t.getCause() instanceof PlayerAlreadyRegisteredException)
+                            {
+                              return new ResponseEntity<>(HttpStatus.CONFLICT);
+                            }
+                            else
+                            {
+                              return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+                            }
+                          });
   }
 
   @DeleteMapping
-  public CompletionStage<ResponseEntity<Void>> remove(@RequestBody PlayerNameDto playerNameDto)
+  public CompletionStage<ResponseEntity<Void>> remove(@PathVariable(name = GAME_ID, required = false) String gameId,
+                                                      @RequestBody PlayerNameDto playerNameDto)
   {
     LOGGER.info("Removing player {}", playerNameDto.getPlayerName());
-    return gameCommandQueryService.remove(Player.newPlayer(playerNameDto.getPlayerName()))
-                                  .thenApply(ResponseEntity::ok)
-                                  .exceptionally(t -> {
-                                    if (t.getCause() instanceof PlayerNotRegisteredException)
-                                    {
-                                      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
-                                    }
-                                    else
-                                    {
-                                      return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-                                    }
-                                  });
+    return gameRoomService.room(gameId)
+                          .remove(Player.newPlayer(playerNameDto.getPlayerName()))
+                          .thenApply(ResponseEntity::ok)
+                          .exceptionally(t -> {
+                            if (t.getCause() instanceof PlayerNotRegisteredException)
+                            {
+                              return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                            }
+                            else
+                            {
+                              return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+                            }
+                          });
   }
 
+  /**
+   * 304 if no one has joined or left since the ETag sent was given.
+   */
   @GetMapping
-  public CompletionStage<ResponseEntity<List<PlayerNameDto>>> listPlayers()
+  @ApiOperation(value = "List the players", response = PlayerNameDto.class, responseContainer = "List")
+  public CompletionStage<ResponseEntity<JsonListWriter<Player>>> listPlayers(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
   {
     LOGGER.info("View all players");
-    return gameCommandQueryService.activePlayers()
-                                  .thenApply(players -> ResponseEntity.ok(players.stream()
-                                                                                 .map(PlayerNameDtoMapper::createDto)
-                                                                                 .collect(Collectors.toList())));
+    var room = gameRoomService.room(gameId);
+    var etag = ETags.of(room.versionEpoch(), room.playersVersion());
+    if (ETags.matches(ifNoneMatch, etag))
+    {
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+    }
+    return room.activePlayers()
+               .thenApply(players -> ResponseEntity.ok()
+                                                   .eTag(etag)
+                                                   .body(JsonListWriter.of(players, PlayerNameDtoMapper::writeDto)));
   }
 }
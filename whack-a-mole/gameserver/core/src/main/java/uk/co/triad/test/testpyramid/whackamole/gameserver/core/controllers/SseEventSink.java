@@ -0,0 +1,36 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.EventDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.EventLog;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEvent;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.EventSubscription;
+
+import java.io.IOException;
+
+class SseEventSink implements EventSubscription.Sink<EventLog.Entry<GameEvent>>
+{
+  static final String EVENT_NAME = "game-event";
+  private final SseEmitter emitter;
+
+  SseEventSink(SseEmitter emitter)
+  {
+    this.emitter = emitter;
+  }
+
+  @Override
+  public void send(EventLog.Entry<GameEvent> event) throws IOException
+  {
+    // the id lets a reconnecting EventSource resume with GET /game/events?after=<Last-Event-ID>
+    emitter.send(SseEmitter.event()
+                           .id(String.valueOf(event.getSequence()))
+                           .name(EVENT_NAME)
+                           .data(EventDtoMapper.createDto(event)));
+  }
+
+  @Override
+  public void close()
+  {
+    emitter.complete();
+  }
+}
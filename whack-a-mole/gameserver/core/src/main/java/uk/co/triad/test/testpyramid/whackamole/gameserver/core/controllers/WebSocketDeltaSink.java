@@ -0,0 +1,42 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleDeltaDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.EventSubscription;
+
+import java.io.IOException;
+
+class WebSocketDeltaSink implements EventSubscription.Sink<MoleDeltaDto>
+{
+  private final WebSocketSession session;
+  private final ObjectMapper objectMapper;
+
+  WebSocketDeltaSink(WebSocketSession session, ObjectMapper objectMapper)
+  {
+    this.session = session;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public void send(MoleDeltaDto delta) throws IOException
+  {
+    session.sendMessage(new TextMessage(objectMapper.writeValueAsString(delta)));
+  }
+
+  @Override
+  public void close()
+  {
+    try
+    {
+      // a subscriber that fell behind has a gap in its mole set, so tell it to reconnect rather than carry on
+      session.close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+    catch (IOException e)
+    {
+      // already gone
+    }
+  }
+}
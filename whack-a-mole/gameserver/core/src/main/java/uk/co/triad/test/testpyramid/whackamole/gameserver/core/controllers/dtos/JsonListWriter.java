@@ -0,0 +1,68 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A response body that writes a list of domain objects as a JSON (or Smile) array of their DTOs straight onto the
+ * response, one element at a time, rather than first mapping the list into a list of DTOs for Jackson to walk.
+ * <p>
+ * The list is only read while the body is written, so it must not change underneath; the game's snapshots don't.
+ */
+public class JsonListWriter<T> implements JsonSerializable
+{
+  private final List<T> elements;
+  private final ElementWriter<T> elementWriter;
+
+  private JsonListWriter(List<T> elements, ElementWriter<T> elementWriter)
+  {
+    this.elements = elements;
+    this.elementWriter = elementWriter;
+  }
+
+  /**
+   * @param elementWriter writes one element as the object its DTO would be written as
+   */
+  public static <T> JsonListWriter<T> of(List<T> elements, ElementWriter<T> elementWriter)
+  {
+    return new JsonListWriter<>(elements, elementWriter);
+  }
+
+  @Override
+  public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException
+  {
+    generator.writeStartArray(elements.size());
+    writeElements(generator, provider);
+    generator.writeEndArray();
+  }
+
+  @Override
+  public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer)
+      throws IOException
+  {
+    var typeId = typeSerializer.writeTypePrefix(generator, typeSerializer.typeId(this, JsonToken.START_ARRAY));
+    writeElements(generator, provider);
+    typeSerializer.writeTypeSuffix(generator, typeId);
+  }
+
+  private void writeElements(JsonGenerator generator, SerializerProvider provider) throws IOException
+  {
+    // indexed rather than iterated, so not even an iterator is allocated
+    for (var i = 0; i < elements.size(); i++)
+    {
+      elementWriter.write(elements.get(i), generator, provider);
+    }
+  }
+
+  @FunctionalInterface
+  public interface ElementWriter<T>
+  {
+    void write(T element, JsonGenerator generator, SerializerProvider provider) throws IOException;
+  }
+}
@@ -1,6 +1,12 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers;
 
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.EventDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.EventPageDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.Epochs;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.EventLog;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEvent;
+
+import java.util.stream.Collectors;
 
 public class EventDtoMapper
 {
@@ -9,8 +15,52 @@ public class EventDtoMapper
     // static class
   }
 
-  public static EventDto createDto(String event)
+  public static EventDto createDto(EventLog.Entry<GameEvent> entry)
+  {
+    var event = entry.getEvent();
+    return new EventDto(entry.getSequence(),
+                        event.getType().name(),
+                        event.getPlayerName(),
+                        event.getMoleId(),
+                        event.getTimestamp(),
+                        describe(event));
+  }
+
+  public static EventPageDto createPageDto(long epoch, EventLog.Page<GameEvent> page)
+  {
+    return new EventPageDto(page.getEntries().stream().map(EventDtoMapper::createDto).collect(Collectors.toList()),
+                            Epochs.format(epoch),
+                            page.getLastSequence(),
+                            page.getMissed(),
+                            page.isReset());
+  }
+
+  private static String describe(GameEvent event)
   {
-    return new EventDto(event);
+    switch (event.getType())
+    {
+      case PLAYER_JOINED:
+        return event.getPlayerName() + " joined the game";
+      case PLAYER_ALREADY_JOINED:
+        return event.getPlayerName() + " tried to join the game again!";
+      case PLAYER_LEFT:
+        return event.getPlayerName() + " left the game";
+      case PLAYER_NOT_JOINED:
+        return event.getPlayerName() + " tried to leave the game, despite having not joined yet!";
+      case GAME_STARTED:
+        return "Game started!";
+      case GAME_STOPPED:
+        return "Game stopped!";
+      case MOLE_HIT:
+        return event.getPlayerName() + " hit mole " + event.getMoleId();
+      case MOLE_MISSED:
+        return event.getPlayerName() + " missed mole " + event.getMoleId();
+      case WHACK_BY_NON_PLAYER:
+        return event.getPlayerName() + " cannot hit moles, as they are not registered";
+      case MOLE_ESCAPED:
+        return "Mole " + event.getMoleId() + " escaped";
+      default:
+        return event.getType().name();
+    }
   }
 }
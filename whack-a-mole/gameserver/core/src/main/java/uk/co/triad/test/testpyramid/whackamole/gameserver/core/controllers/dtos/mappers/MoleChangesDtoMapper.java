@@ -0,0 +1,32 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers;
+
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleChangesDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleIdDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.Epochs;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.MoleChanges;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class MoleChangesDtoMapper
+{
+  private MoleChangesDtoMapper()
+  {
+    // static class
+  }
+
+  public static MoleChangesDto createDto(MoleChanges changes)
+  {
+    return new MoleChangesDto(Epochs.format(changes.getEpoch()),
+                              changes.getVersion(),
+                              changes.isSnapshot(),
+                              createDtos(changes.getAdded()),
+                              createDtos(changes.getRemoved()));
+  }
+
+  private static List<MoleIdDto> createDtos(List<Mole> moles)
+  {
+    return moles.stream().map(MoleIdDtoMapper::createDto).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,22 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers;
+
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleDeltaDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+
+public class MoleDeltaDtoMapper
+{
+  private MoleDeltaDtoMapper()
+  {
+    // static class
+  }
+
+  public static MoleDeltaDto createDto(MoleDeltaDto.Type type, Mole mole)
+  {
+    return new MoleDeltaDto(type, mole.getId());
+  }
+
+  public static MoleDeltaDto createClearedDto()
+  {
+    return new MoleDeltaDto(MoleDeltaDto.Type.CLEARED, null);
+  }
+}
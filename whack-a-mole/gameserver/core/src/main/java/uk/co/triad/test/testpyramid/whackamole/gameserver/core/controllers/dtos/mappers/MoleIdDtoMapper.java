@@ -1,8 +1,12 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleIdDto;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
 
+import java.io.IOException;
+
 public class MoleIdDtoMapper
 {
   private MoleIdDtoMapper()
@@ -14,4 +18,15 @@ public class MoleIdDtoMapper
   {
     return new MoleIdDto(mole.getId());
   }
+
+  /**
+   * Writes the mole as {@link #createDto(Mole)} would be written, without creating it.
+   */
+  public static void writeDto(Mole mole, JsonGenerator generator, SerializerProvider provider) throws IOException
+  {
+    generator.writeStartObject();
+    // through the provider, so the id comes out as the configured UUID serializer would write it in this format
+    provider.defaultSerializeField("moleId", mole.getId(), generator);
+    generator.writeEndObject();
+  }
 }
@@ -1,8 +1,12 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerNameDto;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
 
+import java.io.IOException;
+
 public class PlayerNameDtoMapper
 {
   private PlayerNameDtoMapper()
@@ -14,4 +18,14 @@ public class PlayerNameDtoMapper
   {
     return new PlayerNameDto(player.getName());
   }
+
+  /**
+   * Writes the player as {@link #createDto(Player)} would be written, without creating it.
+   */
+  public static void writeDto(Player player, JsonGenerator generator, SerializerProvider provider) throws IOException
+  {
+    generator.writeStartObject();
+    generator.writeStringField("playerName", player.getName());
+    generator.writeEndObject();
+  }
 }
@@ -1,8 +1,12 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerScoreDto;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
 
+import java.io.IOException;
+
 public class PlayerScoreDtoMapper
 {
   private PlayerScoreDtoMapper()
@@ -14,4 +18,15 @@ public class PlayerScoreDtoMapper
   {
     return new PlayerScoreDto(player.getName(), player.getScore().getTotal());
   }
+
+  /**
+   * Writes the player's score as {@link #createDto(Player)} would be written, without creating it.
+   */
+  public static void writeDto(Player player, JsonGenerator generator, SerializerProvider provider) throws IOException
+  {
+    generator.writeStartObject();
+    generator.writeStringField("playerName", player.getName());
+    generator.writeNumberField("score", player.getScore().getTotal());
+    generator.writeEndObject();
+  }
 }
@@ -1,8 +1,12 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers;
 
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.WhackDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Whack;
 
 import java.util.UUID;
+import java.util.function.LongFunction;
 
 public class WhackDtoMapper
 {
@@ -20,4 +24,23 @@ public class WhackDtoMapper
   {
     return whackDto.getMoleIdDto().getMoleId();
   }
+
+  /**
+   * @param players the registered player for a handle, or null if there is none
+   * @return for a handle, the registered player (or null); otherwise a player by the name given
+   */
+  public static Player createPlayer(WhackDto whackDto, LongFunction<Player> players)
+  {
+    var playerHandle = whackDto.getPlayerHandle();
+    return playerHandle != null ? players.apply(playerHandle) : Player.newPlayer(createPlayerName(whackDto));
+  }
+
+  /**
+   * @return null if the whack names its player by a handle that is not registered
+   */
+  public static Whack createWhack(WhackDto whackDto, LongFunction<Player> players)
+  {
+    var player = createPlayer(whackDto, players);
+    return player != null ? Whack.newWhack(Mole.newMole(createMoleId(whackDto)), player) : null;
+  }
 }
@@ -0,0 +1,18 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers;
+
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.WhackResultDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Whack;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.WhackResult;
+
+public class WhackResultDtoMapper
+{
+  private WhackResultDtoMapper()
+  {
+    // static class
+  }
+
+  public static WhackResultDto createDto(Whack whack, WhackResult result)
+  {
+    return new WhackResultDto(whack.getMole().getId(), WhackResultDto.Result.valueOf(result.name()));
+  }
+}
@@ -0,0 +1,29 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Decides where a {@link Game} applies the commands that change it.
+ */
+public interface CommandProcessor
+{
+  <T> CompletionStage<T> supply(Supplier<T> command);
+
+  CompletionStage<Void> run(Runnable command);
+
+  /**
+   * Reads game state without changing it, off the caller's thread.
+   */
+  <T> CompletionStage<T> query(Supplier<T> query);
+
+  /**
+   * Applies game-internal work (e.g. tick housekeeping) that nobody waits on.
+   */
+  void execute(Runnable task);
+
+  default void shutdown()
+  {
+    // optional
+  }
+}
@@ -0,0 +1,74 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Applies commands on whichever thread picks them up, relying on the game's concurrent structures for safety.
+ * <p>
+ * Game-internal work goes to the same executor, so a tick thread (which may be shared by many games) only ever
+ * schedules it and never does it.
+ */
+public class ConcurrentCommandProcessor implements CommandProcessor
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentCommandProcessor.class);
+  private final Executor executor;
+
+  public ConcurrentCommandProcessor()
+  {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public ConcurrentCommandProcessor(Executor executor)
+  {
+    this.executor = executor;
+  }
+
+  @Override
+  public <T> CompletionStage<T> supply(Supplier<T> command)
+  {
+    return CompletableFuture.supplyAsync(command, executor);
+  }
+
+  @Override
+  public CompletionStage<Void> run(Runnable command)
+  {
+    return CompletableFuture.runAsync(command, executor);
+  }
+
+  @Override
+  public <T> CompletionStage<T> query(Supplier<T> query)
+  {
+    return CompletableFuture.supplyAsync(query, executor);
+  }
+
+  @Override
+  public void execute(Runnable task)
+  {
+    try
+    {
+      executor.execute(() -> {
+        try
+        {
+          task.run();
+        }
+        catch (RuntimeException e)
+        {
+          LOGGER.error("Game housekeeping failed", e);
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      // as for a full single-writer queue: a skipped tick only delays spawns and expiries
+      LOGGER.warn("Executor refused game housekeeping: {}", e.getMessage());
+    }
+  }
+}
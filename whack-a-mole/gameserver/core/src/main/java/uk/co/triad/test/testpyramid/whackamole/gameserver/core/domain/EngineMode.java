@@ -0,0 +1,7 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+public enum EngineMode
+{
+  CONCURRENT,
+  SINGLE_WRITER
+}
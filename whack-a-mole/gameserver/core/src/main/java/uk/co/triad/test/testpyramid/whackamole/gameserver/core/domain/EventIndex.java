@@ -0,0 +1,230 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Per-player and per-type indexes over the events still held in an {@link EventLog}, so that a question like "what did
+ * this player do in the last minute" reads only that player's events instead of scanning them all.
+ * <p>
+ * The indexes are built off the path that appends events: each query first indexes whatever the log has gained since
+ * the last one, so appending never waits on the index, and only queries share its lock.
+ * <p>
+ * Only what the log still holds (its capacity's worth of the newest events) can be found. Entries the log has since
+ * overwritten are trimmed, and events it overwrote before they were indexed are never seen;
+ * {@link #getHeldFromMillis()} says from when on the answers are complete.
+ * <p>
+ * Each index is append-only and in arrival order, paired with a time that never goes backwards (an event's own time,
+ * or the latest time seen before it if the clock stepped back), so a time range is found by binary search.
+ */
+public class EventIndex
+{
+  private final EventLog<GameEvent> log;
+  private final int capacity;
+  private final Postings all = new Postings();
+  private final Map<String, Postings> byPlayer = new HashMap<>();
+  private final Map<GameEventType, Postings> byType = new EnumMap<>(GameEventType.class);
+  private long latestTime = Long.MIN_VALUE;
+  private long horizon = Long.MIN_VALUE;
+  private long droppedTime = Long.MIN_VALUE;
+  private long indexedSequence;
+  private int addsSinceSweep;
+
+  public EventIndex(EventLog<GameEvent> log)
+  {
+    this.log = log;
+    this.capacity = log.getCapacity();
+  }
+
+  /**
+   * @return the time from which on every event is still held, and so found; 0 while the log has dropped none
+   */
+  public synchronized long getHeldFromMillis()
+  {
+    catchUp();
+    var dropped = Math.max(droppedTime, all.trimmedTime);
+    return dropped == Long.MIN_VALUE ? 0L : dropped + 1;
+  }
+
+  private void catchUp()
+  {
+    var page = log.readAfter(indexedSequence);
+    var entries = page.getEntries();
+    if (page.getMissed() > 0 && !entries.isEmpty())
+    {
+      // overwritten before they were indexed: all that is known of their times is that they came before these
+      droppedTime = Math.max(droppedTime, Math.max(latestTime, entries.get(0).getEvent().getTimestamp()));
+    }
+    entries.forEach(this::add);
+    indexedSequence = page.getLastSequence();
+  }
+
+  private void add(EventLog.Entry<GameEvent> entry)
+  {
+    var event = entry.getEvent();
+    latestTime = Math.max(latestTime, event.getTimestamp());
+    horizon = Math.max(horizon, entry.getSequence() - capacity);
+
+    all.add(entry, latestTime, horizon);
+    byType.computeIfAbsent(event.getType(), type -> new Postings()).add(entry, latestTime, horizon);
+    if (event.getPlayerName() != null)
+    {
+      byPlayer.computeIfAbsent(event.getPlayerName(), name -> new Postings()).add(entry, latestTime, horizon);
+    }
+
+    // players who have gone quiet would otherwise keep their stale entries (and their map slot) forever
+    if (++addsSinceSweep >= capacity)
+    {
+      addsSinceSweep = 0;
+      byPlayer.values().removeIf(postings -> postings.trim(horizon));
+      byType.values().removeIf(postings -> postings.trim(horizon));
+    }
+  }
+
+  /**
+   * @param playerName only this player's events, or null for anyone's
+   * @param type       only events of this type, or null for any type
+   * @return matching events timed from fromMillis to toMillis inclusive, in sequence order
+   */
+  public synchronized List<EventLog.Entry<GameEvent>> find(String playerName,
+                                                           GameEventType type,
+                                                           long fromMillis,
+                                                           long toMillis)
+  {
+    catchUp();
+    // a quiet player's index is only trimmed by the periodic sweep, so entries the log has dropped are filtered here
+    var postings = all;
+    if (playerName != null)
+    {
+      postings = byPlayer.get(playerName);
+    }
+    if (type != null)
+    {
+      var ofType = byType.get(type);
+      if (postings == null || ofType == null || ofType.size() < postings.size())
+      {
+        postings = ofType;
+      }
+    }
+    if (postings == null)
+    {
+      return List.of();
+    }
+
+    var found = postings.find(fromMillis, toMillis, entry -> {
+      var event = entry.getEvent();
+      return entry.getSequence() > horizon
+             && (playerName == null || playerName.equals(event.getPlayerName()))
+             && (type == null || type == event.getType());
+    });
+    found.sort(Comparator.comparingLong(EventLog.Entry::getSequence));
+    return found;
+  }
+
+  private static final class Postings
+  {
+    private EventLog.Entry<GameEvent>[] entries = newEntries(16);
+    private long[] times = new long[16];
+    private int start;
+    private int end;
+    private long trimmedTime = Long.MIN_VALUE;
+
+    void add(EventLog.Entry<GameEvent> entry, long time, long horizon)
+    {
+      trim(horizon);
+      if (end == entries.length)
+      {
+        makeRoom();
+      }
+      entries[end] = entry;
+      times[end] = time;
+      end++;
+    }
+
+    /**
+     * @return true once nothing is left
+     */
+    boolean trim(long horizon)
+    {
+      while (start < end && entries[start].getSequence() <= horizon)
+      {
+        trimmedTime = times[start];
+        entries[start++] = null;
+      }
+      return start == end;
+    }
+
+    int size()
+    {
+      return end - start;
+    }
+
+    List<EventLog.Entry<GameEvent>> find(long fromMillis,
+                                         long toMillis,
+                                         Predicate<EventLog.Entry<GameEvent>> matches)
+    {
+      var found = new ArrayList<EventLog.Entry<GameEvent>>();
+      for (var i = firstAtOrAfter(fromMillis); i < end && times[i] <= toMillis; i++)
+      {
+        if (matches.test(entries[i]))
+        {
+          found.add(entries[i]);
+        }
+      }
+      return found;
+    }
+
+    private int firstAtOrAfter(long time)
+    {
+      var low = start;
+      var high = end;
+      while (low < high)
+      {
+        var middle = (low + high) >>> 1;
+        if (times[middle] < time)
+        {
+          low = middle + 1;
+        }
+        else
+        {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private void makeRoom()
+    {
+      var size = size();
+      if (start > 0 && size <= entries.length / 2)
+      {
+        System.arraycopy(entries, start, entries, 0, size);
+        System.arraycopy(times, start, times, 0, size);
+        Arrays.fill(entries, size, end, null);
+      }
+      else
+      {
+        var grownEntries = newEntries(entries.length * 2);
+        var grownTimes = new long[entries.length * 2];
+        System.arraycopy(entries, start, grownEntries, 0, size);
+        System.arraycopy(times, start, grownTimes, 0, size);
+        entries = grownEntries;
+        times = grownTimes;
+      }
+      start = 0;
+      end = size;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static EventLog.Entry<GameEvent>[] newEntries(int length)
+  {
+    return (EventLog.Entry<GameEvent>[]) new EventLog.Entry<?>[length];
+  }
+}
@@ -0,0 +1,165 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-capacity ring of events, each stamped with a sequence number that only ever goes up (the first is 1).
+ * <p>
+ * Reading is not destructive: any number of readers tail the log by passing the last sequence they saw to
+ * {@link #readAfter(long)}. Once the log is full the oldest events are overwritten, and a reader that falls more than a
+ * whole ring behind is told how many it missed rather than silently skipping them. A reader ahead of the log, which
+ * can only hold a sequence from some other log (e.g. before its game was recreated), is reset to the oldest event.
+ */
+public class EventLog<T>
+{
+  private final AtomicReferenceArray<Entry<T>> slots;
+  private final AtomicLong nextSequence = new AtomicLong(1L);
+
+  public EventLog(int capacity)
+  {
+    if (capacity < 1)
+    {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    slots = new AtomicReferenceArray<>(capacity);
+  }
+
+  public Entry<T> append(T event)
+  {
+    var sequence = nextSequence.getAndIncrement();
+    var slot = slotFor(sequence);
+    var entry = new Entry<>(sequence, event);
+    Entry<T> current;
+    do
+    {
+      current = slots.get(slot);
+      if (current != null && current.sequence > sequence)
+      {
+        // a writer a whole ring ahead got here first; this event is already gone, and readers count it as missed
+        return entry;
+      }
+    }
+    while (!slots.compareAndSet(slot, current, entry));
+    return entry;
+  }
+
+  public Page<T> readAfter(long cursor)
+  {
+    var head = nextSequence.get() - 1;
+    var reset = cursor > head;
+    var after = reset ? 0L : cursor;
+    var oldest = Math.max(1L, head - slots.length() + 1);
+    var from = Math.max(after + 1, oldest);
+    var missed = from - (after + 1);
+    var entries = new ArrayList<Entry<T>>((int) Math.max(0L, head - from + 1));
+    var last = from - 1;
+
+    for (var sequence = from; sequence <= head; sequence++)
+    {
+      var entry = slots.get(slotFor(sequence));
+      if (entry == null || entry.sequence < sequence)
+      {
+        // claimed but not written yet; stop here so the reader never sees a gap it cannot come back for
+        break;
+      }
+      if (entry.sequence > sequence)
+      {
+        // lapped by writers while reading
+        missed++;
+      }
+      else
+      {
+        entries.add(entry);
+      }
+      last = sequence;
+    }
+
+    return new Page<>(entries, Math.max(after, last), missed, reset);
+  }
+
+  public long getLastSequence()
+  {
+    return nextSequence.get() - 1;
+  }
+
+  public int getCapacity()
+  {
+    return slots.length();
+  }
+
+  private int slotFor(long sequence)
+  {
+    return (int) (sequence % slots.length());
+  }
+
+  public static final class Entry<T>
+  {
+    private final long sequence;
+    private final T event;
+
+    private Entry(long sequence, T event)
+    {
+      this.sequence = sequence;
+      this.event = event;
+    }
+
+    public long getSequence()
+    {
+      return sequence;
+    }
+
+    public T getEvent()
+    {
+      return event;
+    }
+  }
+
+  public static final class Page<T>
+  {
+    private final List<Entry<T>> entries;
+    private final long lastSequence;
+    private final long missed;
+    private final boolean reset;
+
+    private Page(List<Entry<T>> entries, long lastSequence, long missed, boolean reset)
+    {
+      this.entries = entries;
+      this.lastSequence = lastSequence;
+      this.missed = missed;
+      this.reset = reset;
+    }
+
+    public List<Entry<T>> getEntries()
+    {
+      return entries;
+    }
+
+    /**
+     * The sequence to read after next time.
+     */
+    public long getLastSequence()
+    {
+      return lastSequence;
+    }
+
+    /**
+     * Events that were overwritten before this reader got to them.
+     */
+    public long getMissed()
+    {
+      return missed;
+    }
+
+    /**
+     * Whether the sequence read after was not one of this log's, so the page starts again from its oldest event and
+     * the reader should forget what it had.
+     */
+    public boolean isReset()
+    {
+      return reset;
+    }
+  }
+}
@@ -1,140 +1,559 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Component;
-
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionException;
-import java.util.concurrent.CompletionStage;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
-@Component
 public class Game
 {
-  private static final int WHACK_POINTS = 10;
-  private final Logger logger = LoggerFactory.getLogger(Game.class);
-  private final List<Player> activePlayers = new ArrayList<>();
-  private final List<Player> syncdActivePlayers = Collections.synchronizedList(activePlayers);
-  private final List<Mole> activeMoles = new ArrayList<>();
-  private final List<Mole> syncdActiveMoles = Collections.synchronizedList(activeMoles);
-  private Timer gameStepTimer;
-
-  public CompletionStage<Void> register(Player player)
-  {
-    return CompletableFuture.runAsync(() -> {
-      if (!syncdActivePlayers.contains(player))
+  public static final int WHACK_POINTS = 10;
+  private static final long DEFAULT_TICK_PERIOD_MILLIS = 500L;
+  private static final long DEFAULT_MOLE_LIFETIME_MILLIS = 3000L;
+  private static final int MOLE_EXPIRY_WHEEL_SIZE = 64;
+  private static final int MOLE_CHANGE_LOG_CAPACITY = 1024;
+  private final ConcurrentMap<String, Player> activePlayers = new ConcurrentHashMap<>();
+  private final AtomicLong playersVersion = new AtomicLong();
+  private final AtomicLong scoresVersion = new AtomicLong();
+  private final long versionEpoch = ThreadLocalRandom.current().nextLong();
+  private volatile PlayersSnapshot playersSnapshot = new PlayersSnapshot(0L, List.of());
+  private final Leaderboard leaderboard = new Leaderboard();
+  private final PlayerHandles playerHandles = new PlayerHandles();
+  private final ConcurrentMap<UUID, Mole> activeMoles = new ConcurrentHashMap<>();
+  private volatile MolesSnapshot molesSnapshot = new MolesSnapshot(0L, List.of());
+  private final TimingWheel<Mole> moleExpiries = new TimingWheel<>(MOLE_EXPIRY_WHEEL_SIZE);
+  private final EventLog<MoleChange> moleChanges = new EventLog<>(MOLE_CHANGE_LOG_CAPACITY);
+  private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+  private final List<GameListener> orderedListeners = new CopyOnWriteArrayList<>();
+  private final Object changeOrder = new Object();
+  private final Object tickWork = new Object();
+  private final ThreadLocal<List<Consumer<GameListener>>> deferredNotifications = new ThreadLocal<>();
+  private final TickEngine tickEngine;
+  private final CommandProcessor commands;
+  private final long moleLifetimeTicks;
+
+  public Game()
+  {
+    this(DEFAULT_TICK_PERIOD_MILLIS, DEFAULT_MOLE_LIFETIME_MILLIS);
+  }
+
+  public Game(long tickPeriodMillis, long moleLifetimeMillis)
+  {
+    this(tickPeriodMillis, moleLifetimeMillis, null);
+  }
+
+  public Game(long tickPeriodMillis, long moleLifetimeMillis, ScheduledExecutorService scheduler)
+  {
+    this(tickPeriodMillis, moleLifetimeMillis, scheduler, new ConcurrentCommandProcessor());
+  }
+
+  public Game(long tickPeriodMillis,
+              long moleLifetimeMillis,
+              ScheduledExecutorService scheduler,
+              CommandProcessor commands)
+  {
+    this.commands = commands;
+    this.tickEngine = new TickEngine(Duration.ofMillis(tickPeriodMillis), scheduler);
+    this.moleLifetimeTicks = Math.max(1L, (moleLifetimeMillis + tickPeriodMillis - 1) / tickPeriodMillis);
+  }
+
+  public void addListener(GameListener listener)
+  {
+    listeners.add(listener);
+  }
+
+  /**
+   * Adds a listener that is told about each change in the same critical section as the change is made, so it sees
+   * changes in exactly the order they took effect (a journal, say, that must replay to the same state). While there
+   * are any, changes no longer run in parallel with each other, so add them before the game is in use and only where
+   * that order matters. Other listeners are told once the critical section is over, so they never hold it up.
+   */
+  public void addOrderedListener(GameListener listener)
+  {
+    orderedListeners.add(listener);
+  }
+
+  public void removeListener(GameListener listener)
+  {
+    listeners.remove(listener);
+    orderedListeners.remove(listener);
+  }
+
+  /**
+   * @return the handle the player can be found by with {@link #player(long)} while registered
+   */
+  public CompletionStage<Long> register(Player player)
+  {
+    return commands.supply(() -> supplyInOrder(() -> {
+      if (activePlayers.putIfAbsent(player.getName(), player) == null)
       {
-        syncdActivePlayers.add(player);
+        playersVersion.incrementAndGet();
+        leaderboard.add(player);
+        scoresVersion.incrementAndGet();
+        var handle = playerHandles.assign(player);
+        notifyListeners(listener -> listener.playerJoined(player));
+        return handle;
       }
       else
       {
         throw new CompletionException(new PlayerAlreadyRegisteredException("Player already registered: " + player.getName()));
       }
-    });
+    }));
   }
 
   public CompletionStage<Void> remove(Player player)
   {
-    return CompletableFuture.runAsync(() -> {
-      if (syncdActivePlayers.contains(player))
+    return commands.run(() -> runInOrder(() -> {
+      var removedPlayer = activePlayers.remove(player.getName());
+      if (removedPlayer != null)
       {
-        syncdActivePlayers.remove(player);
+        playersVersion.incrementAndGet();
+        leaderboard.remove(removedPlayer);
+        scoresVersion.incrementAndGet();
+        playerHandles.release(removedPlayer);
+        notifyListeners(listener -> listener.playerLeft(removedPlayer));
       }
       else
       {
         throw new CompletionException(new PlayerNotRegisteredException("Player not registered: " + player.getName()));
       }
-    });
+    }));
   }
 
   public CompletionStage<List<Player>> activePlayers()
   {
-    return CompletableFuture.supplyAsync(() -> new ArrayList<>(syncdActivePlayers));
+    return commands.query(this::snapshotPlayers);
   }
 
-  private void clearAllScores()
+  /**
+   * Looks a player up by the handle {@link #register(Player)} gave them, without a trip through the command processor;
+   * it's a read of one array element.
+   *
+   * @return the registered player, or null if the handle is not (or no longer) one of this game's
+   */
+  public Player player(long handle)
+  {
+    return playerHandles.resolve(handle);
+  }
+
+  public CompletionStage<List<Player>> rankedPlayers(int from, int count)
+  {
+    return commands.query(() -> leaderboard.range(from, count));
+  }
+
+  private List<Player> snapshotPlayers()
   {
-    synchronized (syncdActivePlayers)
+    var snapshot = playersSnapshot;
+    if (snapshot.version == playersVersion.get())
     {
-      syncdActivePlayers.forEach(player -> player.getScore().setTotal(0));
+      return snapshot.players;
     }
+
+    long version;
+    List<Player> players;
+    do
+    {
+      version = playersVersion.get();
+      players = List.copyOf(activePlayers.values());
+    }
+    while (version != playersVersion.get());
+
+    playersSnapshot = new PlayersSnapshot(version, players);
+    return players;
+  }
+
+  private void clearAllScores()
+  {
+    activePlayers.values().forEach(player -> {
+      player.getScore().setTotal(0);
+      leaderboard.update(player);
+      notifyListeners(listener -> listener.scoreReset(player));
+    });
+    scoresVersion.incrementAndGet();
   }
 
   public CompletionStage<Void> start()
   {
-    return CompletableFuture.runAsync(() -> {
-      clearAllScores();
-      if (gameStepTimer == null)
+    return commands.run(() -> {
+      // one change as far as ordered listeners go, so no whack can score in between the reset and the start
+      runInOrder(() -> {
+        clearAllScores();
+        notifyListeners(GameListener::gameStarted);
+      });
+      tickEngine.start(this::tick);
+    });
+  }
+
+  public CompletionStage<Void> stop()
+  {
+    return commands.run(() -> {
+      tickEngine.stop();
+      // tick work already handed off may still be running; once it has, any still to come finds the game stopped
+      synchronized (tickWork)
       {
-        gameStepTimer = new Timer();
-        gameStepTimer.schedule(new TimerTask()
+        runInOrder(() -> {
+          activeMoles.clear();
+          moleExpiries.clear();
+          moleChanges.append(MoleChange.CLEARED);
+          notifyListeners(GameListener::molesCleared);
+          notifyListeners(GameListener::gameStopped);
+        });
+      }
+    });
+  }
+
+  /**
+   * Puts back players, scores and moles recovered from elsewhere (e.g. a journal), without telling listeners, and
+   * carries on ticking if the game was running. Restored moles get a full lifetime from now.
+   */
+  public CompletionStage<Void> restore(Collection<Player> players, Collection<Mole> moles, boolean running)
+  {
+    return commands.run(() -> {
+      players.forEach(player -> {
+        var replacedPlayer = activePlayers.put(player.getName(), player);
+        if (replacedPlayer != null)
         {
-          @Override
-          public void run()
-          {
-            try
-            {
-              Thread.sleep(ThreadLocalRandom.current().nextLong(500));
-              syncdActiveMoles.add(Mole.newMole());
-            }
-            catch (InterruptedException e)
-            {
-              logger.error("Thread interrupted: {}", e.getCause().getMessage());
-              gameStepTimer.cancel();
-              gameStepTimer = null;
-              Thread.currentThread().interrupt();
-            }
-          }
-        }, 0L, 500L);
+          playerHandles.release(replacedPlayer);
+        }
+        leaderboard.add(player);
+        playerHandles.assign(player);
+      });
+      playersVersion.incrementAndGet();
+      scoresVersion.incrementAndGet();
+      moles.forEach(mole -> {
+        activeMoles.put(mole.getId(), mole);
+        moleChanges.append(new MoleChange(mole, true));
+        moleExpiries.schedule(mole, moleLifetimeTicks);
+      });
+      if (running)
+      {
+        tickEngine.start(this::tick);
       }
     });
   }
 
-  public CompletionStage<Void> stop()
+  public void shutdown()
+  {
+    tickEngine.stop();
+    commands.shutdown();
+  }
+
+  /**
+   * Version of who {@link #activePlayers()} answers with. Like the other versions, it moves on just after what it
+   * counts changes, so one read before a query is never newer than the answer.
+   */
+  public long getPlayersVersion()
+  {
+    return playersVersion.get();
+  }
+
+  /**
+   * Version of the players and their scores, as {@link #activePlayers()} and {@link #rankedPlayers(int, int)} answer.
+   */
+  public long getScoresVersion()
+  {
+    return scoresVersion.get();
+  }
+
+  /**
+   * Version of what {@link #activeMoles()} answers with.
+   */
+  public long getMolesVersion()
+  {
+    return moleChanges.getLastSequence();
+  }
+
+  /**
+   * A random number for this game instance. The versions start again with every game, so only tell two states apart
+   * together with this.
+   */
+  public long getVersionEpoch()
+  {
+    return versionEpoch;
+  }
+
+  public TickEngine getTickEngine()
+  {
+    return tickEngine;
+  }
+
+  public CommandProcessor getCommandProcessor()
+  {
+    return commands;
+  }
+
+  private void tick()
+  {
+    whileRunning(() -> moleExpiries.advance(this::expireMole));
+    tickEngine.jittered(() -> whileRunning(this::spawnMole));
+  }
+
+  private void whileRunning(Runnable task)
+  {
+    // queued tick work can still be waiting behind a stop command, and must not bring moles back once it has run;
+    // it runs a piece at a time, as it would on the tick thread, though the processor may run it anywhere
+    commands.execute(() -> {
+      synchronized (tickWork)
+      {
+        if (tickEngine.isRunning())
+        {
+          task.run();
+        }
+      }
+    });
+  }
+
+  Mole spawnMole()
+  {
+    return supplyInOrder(() -> {
+      var mole = Mole.newMole();
+      activeMoles.put(mole.getId(), mole);
+      moleChanges.append(new MoleChange(mole, true));
+      moleExpiries.schedule(mole, moleLifetimeTicks);
+      notifyListeners(listener -> listener.moleSpawned(mole));
+      return mole;
+    });
+  }
+
+  void expireMole(Mole mole)
   {
-    return CompletableFuture.runAsync(() -> {
-      if (gameStepTimer != null)
+    runInOrder(() -> {
+      // a mole that was whacked before its time is up is no longer in the table, and is silently dropped
+      if (activeMoles.remove(mole.getId(), mole))
       {
-        gameStepTimer.cancel();
-        gameStepTimer = null;
+        moleChanges.append(new MoleChange(mole, false));
+        notifyListeners(listener -> listener.moleExpired(mole));
       }
-      syncdActiveMoles.clear();
     });
   }
 
   public CompletionStage<Boolean> whack(Mole mole, Player player)
   {
-    return CompletableFuture.supplyAsync(() -> {
-      if (syncdActivePlayers.contains(player))
+    return commands.supply(() -> tryWhack(mole, player));
+  }
+
+  /**
+   * Every whack in one command, so a batch costs one trip through the game rather than one per mole. An unregistered
+   * player fails only their own whacks.
+   *
+   * @return a result for each whack, in the same order
+   */
+  public CompletionStage<List<WhackResult>> whackAll(List<Whack> whacks)
+  {
+    return commands.supply(() -> {
+      var results = new ArrayList<WhackResult>(whacks.size());
+      for (var whack : whacks)
+      {
+        results.add(applyWhack(whack.getMole(), whack.getPlayer()));
+      }
+      return results;
+    });
+  }
+
+  boolean tryWhack(Mole mole, Player player)
+  {
+    var result = applyWhack(mole, player);
+    if (result == WhackResult.NOT_REGISTERED)
+    {
+      throw new CompletionException(new PlayerNotRegisteredException("Player not registered: " + player.getName()));
+    }
+    return result == WhackResult.HIT;
+  }
+
+  private WhackResult applyWhack(Mole mole, Player player)
+  {
+    return supplyInOrder(() -> applyWhackNow(mole, player));
+  }
+
+  private WhackResult applyWhackNow(Mole mole, Player player)
+  {
+    var registeredPlayer = activePlayers.get(player.getName());
+    if (registeredPlayer == null)
+    {
+      return WhackResult.NOT_REGISTERED;
+    }
+
+    // removal is the claim: of any number of concurrent whackers, exactly one gets the mole back
+    var whackedMole = activeMoles.remove(mole.getId());
+    if (whackedMole != null)
+    {
+      moleChanges.append(new MoleChange(whackedMole, false));
+      var total = registeredPlayer.getScore().increment(WHACK_POINTS);
+      leaderboard.update(registeredPlayer);
+      scoresVersion.incrementAndGet();
+      notifyListeners(listener -> listener.moleWhacked(whackedMole, registeredPlayer, total));
+      return WhackResult.HIT;
+    }
+    else
+    {
+      return WhackResult.MISSED;
+    }
+  }
+
+  private void runInOrder(Runnable change)
+  {
+    supplyInOrder(() -> {
+      change.run();
+      return null;
+    });
+  }
+
+  private <T> T supplyInOrder(Supplier<T> change)
+  {
+    if (orderedListeners.isEmpty())
+    {
+      return change.get();
+    }
+    var deferred = new ArrayList<Consumer<GameListener>>();
+    T result;
+    synchronized (changeOrder)
+    {
+      deferredNotifications.set(deferred);
+      try
+      {
+        result = change.get();
+      }
+      finally
+      {
+        deferredNotifications.remove();
+      }
+    }
+    deferred.forEach(listeners::forEach);
+    return result;
+  }
+
+  private void notifyListeners(Consumer<GameListener> notification)
+  {
+    orderedListeners.forEach(notification);
+    var deferred = deferredNotifications.get();
+    if (deferred != null)
+    {
+      deferred.add(notification);
+    }
+    else
+    {
+      listeners.forEach(notification);
+    }
+  }
+
+  /**
+   * @return the moles up now; an unmodifiable list, shared by every caller until the moles next change
+   */
+  public CompletionStage<List<Mole>> activeMoles()
+  {
+    return commands.query(this::snapshotActiveMoles);
+  }
+
+  private List<Mole> snapshotActiveMoles()
+  {
+    var snapshot = molesSnapshot;
+    if (snapshot.version == moleChanges.getLastSequence())
+    {
+      return snapshot.moles;
+    }
+
+    // as for players: a change is made to the table before it is logged, so a copy only counts as the snapshot of a
+    // version if the log has not moved on while it was taken
+    long version;
+    List<Mole> moles;
+    do
+    {
+      version = moleChanges.getLastSequence();
+      moles = List.copyOf(activeMoles.values());
+    }
+    while (version != moleChanges.getLastSequence());
+
+    molesSnapshot = new MolesSnapshot(version, moles);
+    return moles;
+  }
+
+  /**
+   * @param epoch the {@link #getVersionEpoch() version epoch} the version was given with; a version from another epoch
+   * (a room since recreated, or a restart) counts for nothing here, so is answered with a snapshot
+   */
+  public CompletionStage<MoleChanges> molesSince(long epoch, long version)
+  {
+    return commands.query(() -> {
+      // every change is made to the table before it is logged, so a snapshot is never older than the version read
+      // first; replaying a change it already holds is harmless
+      var currentVersion = moleChanges.getLastSequence();
+      if (epoch != versionEpoch || version > currentVersion)
       {
-        synchronized (syncdActiveMoles)
+        return snapshotMoles(currentVersion);
+      }
+
+      var page = moleChanges.readAfter(version);
+      var added = new LinkedHashMap<UUID, Mole>();
+      var removed = new LinkedHashMap<UUID, Mole>();
+      for (var entry : page.getEntries())
+      {
+        var change = entry.getEvent();
+        if (change == MoleChange.CLEARED)
         {
-          if (syncdActiveMoles.contains(mole))
-          {
-            synchronized (syncdActivePlayers)
-            {
-              syncdActivePlayers.get(syncdActivePlayers.indexOf(player)).getScore().increment(WHACK_POINTS);
-            }
-            syncdActiveMoles.remove(mole);
-            return true;
-          }
-          else
-          {
-            return false;
-          }
+          return snapshotMoles(currentVersion);
+        }
+        if (change.added)
+        {
+          added.put(change.mole.getId(), change.mole);
+        }
+        else if (added.remove(change.mole.getId()) == null)
+        {
+          removed.put(change.mole.getId(), change.mole);
         }
       }
-      else
+      if (page.getMissed() > 0)
       {
-        throw new CompletionException(new PlayerNotRegisteredException("Player not registered: " + player.getName()));
+        return snapshotMoles(currentVersion);
       }
+      return new MoleChanges(versionEpoch,
+                             page.getLastSequence(),
+                             false,
+                             new ArrayList<>(added.values()),
+                             new ArrayList<>(removed.values()));
     });
   }
 
-  public CompletionStage<List<Mole>> activeMoles()
+  private MoleChanges snapshotMoles(long version)
+  {
+    return new MoleChanges(versionEpoch, version, true, snapshotActiveMoles(), List.of());
+  }
+
+  private static final class MoleChange
+  {
+    private static final MoleChange CLEARED = new MoleChange(null, false);
+    private final Mole mole;
+    private final boolean added;
+
+    private MoleChange(Mole mole, boolean added)
+    {
+      this.mole = mole;
+      this.added = added;
+    }
+  }
+
+  private static final class MolesSnapshot
   {
-    return CompletableFuture.supplyAsync(() -> new ArrayList<>(syncdActiveMoles));
+    private final long version;
+    private final List<Mole> moles;
+
+    private MolesSnapshot(long version, List<Mole> moles)
+    {
+      this.version = version;
+      this.moles = moles;
+    }
+  }
+
+  private static final class PlayersSnapshot
+  {
+    private final long version;
+    private final List<Player> players;
+
+    private PlayersSnapshot(long version, List<Player> players)
+    {
+      this.version = version;
+      this.players = players;
+    }
   }
 }
@@ -0,0 +1,72 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import java.util.UUID;
+
+/**
+ * Something that happened in a game, kept as plain fields so that recording it costs no string building; text is only
+ * rendered for whoever actually reads it.
+ */
+public final class GameEvent
+{
+  private final GameEventType type;
+  private final String playerName;
+  private final UUID moleId;
+  private final long timestamp;
+
+  GameEvent(GameEventType type, String playerName, UUID moleId, long timestamp)
+  {
+    this.type = type;
+    this.playerName = playerName;
+    this.moleId = moleId;
+    this.timestamp = timestamp;
+  }
+
+  public static GameEvent newEvent(GameEventType type)
+  {
+    return new GameEvent(type, null, null, System.currentTimeMillis());
+  }
+
+  public static GameEvent newEvent(GameEventType type, Player player)
+  {
+    return new GameEvent(type, player.getName(), null, System.currentTimeMillis());
+  }
+
+  public static GameEvent newEvent(GameEventType type, Mole mole)
+  {
+    return new GameEvent(type, null, mole.getId(), System.currentTimeMillis());
+  }
+
+  public static GameEvent newEvent(GameEventType type, Player player, Mole mole)
+  {
+    return new GameEvent(type, player.getName(), mole.getId(), System.currentTimeMillis());
+  }
+
+  public GameEventType getType()
+  {
+    return type;
+  }
+
+  /**
+   * @return null for events that do not involve a player
+   */
+  public String getPlayerName()
+  {
+    return playerName;
+  }
+
+  /**
+   * @return null for events that do not involve a mole
+   */
+  public UUID getMoleId()
+  {
+    return moleId;
+  }
+
+  /**
+   * @return when it happened, in milliseconds since the epoch
+   */
+  public long getTimestamp()
+  {
+    return timestamp;
+  }
+}
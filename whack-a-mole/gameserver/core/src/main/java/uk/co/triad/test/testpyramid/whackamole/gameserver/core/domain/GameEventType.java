@@ -0,0 +1,15 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+public enum GameEventType
+{
+  PLAYER_JOINED,
+  PLAYER_ALREADY_JOINED,
+  PLAYER_LEFT,
+  PLAYER_NOT_JOINED,
+  GAME_STARTED,
+  GAME_STOPPED,
+  MOLE_HIT,
+  MOLE_MISSED,
+  WHACK_BY_NON_PLAYER,
+  MOLE_ESCAPED
+}
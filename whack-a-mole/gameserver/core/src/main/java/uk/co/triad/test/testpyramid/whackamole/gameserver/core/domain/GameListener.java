@@ -0,0 +1,59 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+/**
+ * Told about mole changes as they happen, on whichever thread made them, so implementations must not block.
+ */
+public interface GameListener
+{
+  default void playerJoined(Player player)
+  {
+    // optional
+  }
+
+  default void playerLeft(Player player)
+  {
+    // optional
+  }
+
+  /**
+   * A player's score is set back to nothing as a game starts; told once per player, before {@link #gameStarted()}.
+   */
+  default void scoreReset(Player player)
+  {
+    // optional
+  }
+
+  default void gameStarted()
+  {
+    // optional
+  }
+
+  default void gameStopped()
+  {
+    // optional
+  }
+
+  default void moleSpawned(Mole mole)
+  {
+    // optional
+  }
+
+  /**
+   * @param total the player's score with this whack counted; by the time a listener hears of it, other whacks may have
+   *              moved {@code player}'s score on again
+   */
+  default void moleWhacked(Mole mole, Player player, int total)
+  {
+    // optional
+  }
+
+  default void molesCleared()
+  {
+    // optional
+  }
+
+  default void moleExpired(Mole mole)
+  {
+    // optional
+  }
+}
@@ -0,0 +1,99 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Players ranked by score (highest first), then by name, kept sorted as scores change so a page of the ranking costs
+ * only the ranks walked to reach it rather than a sort of every player.
+ * <p>
+ * Only players added and not since removed are ranked: a score update that was still in flight as its player left
+ * (or left and joined again) changes nothing.
+ */
+public class Leaderboard
+{
+  private static final Comparator<Rank> RANK_ORDER = Comparator.comparingInt((Rank rank) -> rank.score)
+                                                               .reversed()
+                                                               .thenComparing(rank -> rank.name);
+  private final NavigableSet<Rank> ranking = new ConcurrentSkipListSet<>(RANK_ORDER);
+  private final ConcurrentMap<String, Rank> ranks = new ConcurrentHashMap<>();
+
+  /**
+   * Ranks the player, in place of any player of the same name.
+   */
+  public void add(Player player)
+  {
+    ranks.compute(player.getName(), (name, previous) -> rerank(previous, player));
+  }
+
+  /**
+   * Moves the player to where their score now ranks them, if they are still the player added under their name.
+   */
+  public void update(Player player)
+  {
+    // the per-name lock orders updates for one player, and against their removal; reading the score inside it means
+    // the last update always wins
+    ranks.computeIfPresent(player.getName(), (name, previous) -> previous.player == player
+                                                                  ? rerank(previous, player)
+                                                                  : previous);
+  }
+
+  public void remove(Player player)
+  {
+    ranks.computeIfPresent(player.getName(), (name, previous) -> {
+      ranking.remove(previous);
+      return null;
+    });
+  }
+
+  public List<Player> top(int count)
+  {
+    return range(0, count);
+  }
+
+  public List<Player> range(int from, int count)
+  {
+    var players = new ArrayList<Player>(Math.min(count, ranks.size()));
+    var ranked = ranking.iterator();
+    for (var skipped = 0; skipped < from && ranked.hasNext(); skipped++)
+    {
+      ranked.next();
+    }
+    while (players.size() < count && ranked.hasNext())
+    {
+      var rank = ranked.next();
+      players.add(new Player(rank.name, new Score(rank.score)));
+    }
+    return players;
+  }
+
+  private Rank rerank(Rank previous, Player player)
+  {
+    var rank = new Rank(player, player.getScore().getTotal());
+    if (previous != null)
+    {
+      ranking.remove(previous);
+    }
+    ranking.add(rank);
+    return rank;
+  }
+
+  private static final class Rank
+  {
+    private final Player player;
+    private final String name;
+    private final int score;
+
+    private Rank(Player player, int score)
+    {
+      this.player = player;
+      this.name = player.getName();
+      this.score = score;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import java.util.List;
+
+/**
+ * How a game's moles differ from some earlier version of them: either the moles added and removed since then, or, when
+ * that version is too old to tell, or is from another game's versions, every active mole as a snapshot to replace
+ * whatever the caller had.
+ */
+public class MoleChanges
+{
+  private final long epoch;
+  private final long version;
+  private final boolean snapshot;
+  private final List<Mole> added;
+  private final List<Mole> removed;
+
+  public MoleChanges(long epoch, long version, boolean snapshot, List<Mole> added, List<Mole> removed)
+  {
+    this.epoch = epoch;
+    this.version = version;
+    this.snapshot = snapshot;
+    this.added = added;
+    this.removed = removed;
+  }
+
+  /**
+   * @return the version epoch of the game the version is one of
+   */
+  public long getEpoch()
+  {
+    return epoch;
+  }
+
+  public long getVersion()
+  {
+    return version;
+  }
+
+  public boolean isSnapshot()
+  {
+    return snapshot;
+  }
+
+  public List<Mole> getAdded()
+  {
+    return added;
+  }
+
+  public List<Mole> getRemoved()
+  {
+    return removed;
+  }
+
+  public boolean isEmpty()
+  {
+    return !snapshot && added.isEmpty() && removed.isEmpty();
+  }
+}
@@ -0,0 +1,110 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Numbers standing for registered players, so a request can name its player without the game hashing and comparing
+ * a name it has only just read off the wire.
+ * <p>
+ * A handle is a slot in an array plus a tag, and the tag is checked on every lookup: a handle stops resolving once
+ * its player leaves, even after the slot is reused, and handles from another game (or from before a restart) are
+ * unlikely to resolve at all. Lookups take no lock; handing handles out and taking them back are rare, and do.
+ */
+public class PlayerHandles
+{
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int SLOT_BITS = 32;
+  // handles stay below 2^53, so a JavaScript client can hold one as a number
+  private static final int TAG_MASK = (1 << 20) - 1;
+  private volatile AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+  private final Map<Player, Integer> slots = new IdentityHashMap<>();
+  private int[] freeSlots = new int[INITIAL_CAPACITY];
+  private int freeCount;
+  private int nextSlot;
+  private int nextTag = ThreadLocalRandom.current().nextInt();
+
+  /**
+   * @return a handle the player can be looked up by until it is released
+   */
+  public synchronized long assign(Player player)
+  {
+    int slot;
+    if (freeCount > 0)
+    {
+      slot = freeSlots[--freeCount];
+    }
+    else
+    {
+      slot = nextSlot++;
+      if (slot == entries.length())
+      {
+        grow();
+      }
+    }
+    var tag = nextTag++ & TAG_MASK;
+    entries.set(slot, new Entry(player, tag));
+    slots.put(player, slot);
+    return (long) tag << SLOT_BITS | slot;
+  }
+
+  /**
+   * Stops the player's handle resolving; does nothing for a player who has none.
+   */
+  public synchronized void release(Player player)
+  {
+    var slot = slots.remove(player);
+    if (slot == null)
+    {
+      return;
+    }
+    entries.set(slot, null);
+    if (freeCount == freeSlots.length)
+    {
+      var grown = new int[freeSlots.length * 2];
+      System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+      freeSlots = grown;
+    }
+    freeSlots[freeCount++] = slot;
+  }
+
+  /**
+   * @return the player the handle was assigned to, or null if it was never assigned or has been released
+   */
+  public Player resolve(long handle)
+  {
+    var slot = (int) handle;
+    var current = entries;
+    if (slot < 0 || slot >= current.length())
+    {
+      return null;
+    }
+    var entry = current.get(slot);
+    return entry != null && entry.tag == handle >>> SLOT_BITS ? entry.player : null;
+  }
+
+  private void grow()
+  {
+    var current = entries;
+    var grown = new AtomicReferenceArray<Entry>(current.length() * 2);
+    for (var i = 0; i < current.length(); i++)
+    {
+      grown.set(i, current.get(i));
+    }
+    entries = grown;
+  }
+
+  private static final class Entry
+  {
+    private final Player player;
+    private final long tag;
+
+    private Entry(Player player, long tag)
+    {
+      this.player = player;
+      this.tag = tag;
+    }
+  }
+}
@@ -1,8 +1,10 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Score
 {
-  private int total;
+  private final AtomicInteger total = new AtomicInteger();
 
   public Score()
   {
@@ -21,17 +23,17 @@ public class Score
 
   public int getTotal()
   {
-    return total;
+    return total.get();
   }
 
   public void setTotal(int total)
   {
-    this.total = total;
+    this.total.set(total);
   }
 
-  public void increment(int increment)
+  public int increment(int increment)
   {
-    this.total += increment;
+    return total.addAndGet(increment);
   }
 
   @Override
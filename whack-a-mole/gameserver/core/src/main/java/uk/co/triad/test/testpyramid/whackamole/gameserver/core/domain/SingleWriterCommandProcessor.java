@@ -0,0 +1,111 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Applies every command on one writer thread, in the order they were submitted, so game state is only ever changed by
+ * that thread and whackers never contend with each other.
+ * <p>
+ * Commands wait in a bounded array-backed ring. When it is full the command fails straight away with a
+ * {@link RejectedExecutionException} instead of blocking the caller.
+ */
+public class SingleWriterCommandProcessor implements CommandProcessor
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(SingleWriterCommandProcessor.class);
+  private static final AtomicInteger WRITER_COUNT = new AtomicInteger();
+  private final ThreadPoolExecutor writer;
+  private final Executor queryExecutor;
+  private final AtomicLong dropped = new AtomicLong();
+
+  public SingleWriterCommandProcessor(int capacity)
+  {
+    this(capacity, ForkJoinPool.commonPool());
+  }
+
+  public SingleWriterCommandProcessor(int capacity, Executor queryExecutor)
+  {
+    this.queryExecutor = queryExecutor;
+    var name = "game-writer-" + WRITER_COUNT.incrementAndGet();
+    this.writer = new ThreadPoolExecutor(1,
+                                         1,
+                                         0L,
+                                         TimeUnit.MILLISECONDS,
+                                         new ArrayBlockingQueue<>(capacity),
+                                         runnable -> {
+                                           var thread = new Thread(runnable, name);
+                                           thread.setDaemon(true);
+                                           return thread;
+                                         },
+                                         new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @Override
+  public <T> CompletionStage<T> supply(Supplier<T> command)
+  {
+    try
+    {
+      return CompletableFuture.supplyAsync(command, writer);
+    }
+    catch (RejectedExecutionException e)
+    {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  @Override
+  public CompletionStage<Void> run(Runnable command)
+  {
+    try
+    {
+      return CompletableFuture.runAsync(command, writer);
+    }
+    catch (RejectedExecutionException e)
+    {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  @Override
+  public <T> CompletionStage<T> query(Supplier<T> query)
+  {
+    // reads never queue behind the writer; the game's structures are safe to read while it writes
+    return CompletableFuture.supplyAsync(query, queryExecutor);
+  }
+
+  @Override
+  public void execute(Runnable task)
+  {
+    try
+    {
+      writer.execute(task);
+    }
+    catch (RejectedExecutionException e)
+    {
+      // never block the tick thread; a skipped tick only delays spawns and expiries
+      dropped.incrementAndGet();
+      LOGGER.warn("Command queue full, dropped game housekeeping");
+    }
+  }
+
+  @Override
+  public void shutdown()
+  {
+    writer.shutdown();
+  }
+
+  public int getQueueDepth()
+  {
+    return writer.getQueue().size();
+  }
+
+  public long getDropped()
+  {
+    return dropped.get();
+  }
+}
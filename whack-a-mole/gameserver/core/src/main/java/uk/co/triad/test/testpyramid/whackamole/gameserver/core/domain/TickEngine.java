@@ -0,0 +1,214 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a game at a fixed tick rate on a single scheduler thread.
+ * <p>
+ * Work that should not land exactly on the tick boundary is handed to {@link #jittered(Runnable)}, which schedules it
+ * at a random offset inside the current tick rather than sleeping on the tick thread. A tick that starts a whole period
+ * late (e.g. after a GC pause) is counted as an overrun and skipped, so a stall never releases a burst of catch-up
+ * ticks.
+ * <p>
+ * The scheduler is either shared (many games multiplexed onto one shard thread, which the caller owns) or, when none
+ * is given, created on start and shut down on stop.
+ */
+public class TickEngine
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(TickEngine.class);
+  private static final AtomicInteger ENGINE_COUNT = new AtomicInteger();
+  private final String name;
+  private final long periodNanos;
+  private final ScheduledExecutorService sharedScheduler;
+  private final AtomicLong ticks = new AtomicLong();
+  private final AtomicLong overruns = new AtomicLong();
+  private final AtomicLong generation = new AtomicLong();
+  private volatile ScheduledExecutorService scheduler;
+  private ScheduledFuture<?> tickSchedule;
+  private long nextTickNanos;
+
+  public TickEngine(Duration tickPeriod)
+  {
+    this(tickPeriod, null);
+  }
+
+  public TickEngine(Duration tickPeriod, ScheduledExecutorService sharedScheduler)
+  {
+    if (tickPeriod.isZero() || tickPeriod.isNegative())
+    {
+      throw new IllegalArgumentException("Tick period must be positive: " + tickPeriod);
+    }
+    this.name = "game-tick-" + ENGINE_COUNT.incrementAndGet();
+    this.periodNanos = tickPeriod.toNanos();
+    this.sharedScheduler = sharedScheduler;
+  }
+
+  public synchronized void start(Runnable onTick)
+  {
+    if (scheduler == null)
+    {
+      var executor = sharedScheduler != null ? sharedScheduler : newOwnedScheduler();
+      var runGeneration = generation.incrementAndGet();
+      nextTickNanos = System.nanoTime();
+      scheduler = executor;
+      tickSchedule = executor.scheduleAtFixedRate(() -> tick(runGeneration, onTick),
+                                                  0L,
+                                                  periodNanos,
+                                                  TimeUnit.NANOSECONDS);
+    }
+  }
+
+  public synchronized void stop()
+  {
+    var executor = scheduler;
+    if (executor != null)
+    {
+      scheduler = null;
+      generation.incrementAndGet();
+      tickSchedule.cancel(false);
+      if (executor == sharedScheduler)
+      {
+        awaitInFlightTick(executor);
+      }
+      else
+      {
+        shutdown(executor);
+      }
+    }
+  }
+
+  public boolean isRunning()
+  {
+    return scheduler != null;
+  }
+
+  public void jittered(Runnable task)
+  {
+    var executor = scheduler;
+    if (executor != null)
+    {
+      var runGeneration = generation.get();
+      try
+      {
+        executor.schedule(() -> {
+          if (runGeneration == generation.get())
+          {
+            guarded(task);
+          }
+        }, ThreadLocalRandom.current().nextLong(periodNanos), TimeUnit.NANOSECONDS);
+      }
+      catch (RejectedExecutionException e)
+      {
+        // stopped between ticks; nothing left to run it for
+      }
+    }
+  }
+
+  public Duration getTickPeriod()
+  {
+    return Duration.ofNanos(periodNanos);
+  }
+
+  public long getTicks()
+  {
+    return ticks.get();
+  }
+
+  public long getOverruns()
+  {
+    return overruns.get();
+  }
+
+  private ScheduledExecutorService newOwnedScheduler()
+  {
+    return Executors.newSingleThreadScheduledExecutor(runnable -> {
+      var thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  private void awaitInFlightTick(ScheduledExecutorService executor)
+  {
+    // the shard runs one task at a time, so once this no-op has run no tick of ours is still executing
+    try
+    {
+      executor.submit(() -> {
+      }).get(periodNanos, TimeUnit.NANOSECONDS);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException | TimeoutException | RejectedExecutionException e)
+    {
+      LOGGER.warn("{} could not confirm its last tick finished: {}", name, e.toString());
+    }
+  }
+
+  private void shutdown(ScheduledExecutorService executor)
+  {
+    executor.shutdownNow();
+    try
+    {
+      if (!executor.awaitTermination(periodNanos, TimeUnit.NANOSECONDS))
+      {
+        LOGGER.warn("{} did not stop within one tick", name);
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void tick(long runGeneration, Runnable onTick)
+  {
+    if (runGeneration != generation.get())
+    {
+      return;
+    }
+
+    var scheduledAt = nextTickNanos;
+    nextTickNanos += periodNanos;
+
+    if (System.nanoTime() - scheduledAt >= periodNanos)
+    {
+      overruns.incrementAndGet();
+      LOGGER.warn("{} skipped a tick that started over {} ms late", name, getTickPeriod().toMillis());
+      return;
+    }
+
+    ticks.incrementAndGet();
+    guarded(onTick);
+
+    var elapsed = System.nanoTime() - scheduledAt;
+    if (elapsed > periodNanos)
+    {
+      overruns.incrementAndGet();
+      LOGGER.warn("{} tick overran its {} ms period by {} ms",
+                  name,
+                  getTickPeriod().toMillis(),
+                  TimeUnit.NANOSECONDS.toMillis(elapsed - periodNanos));
+    }
+  }
+
+  private void guarded(Runnable task)
+  {
+    try
+    {
+      task.run();
+    }
+    catch (RuntimeException e)
+    {
+      // an escaping exception would silently cancel every future tick
+      LOGGER.error("{} task failed", name, e);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel measured in ticks. Scheduling is O(1) and each {@link #advance(Consumer)} only visits the one
+ * slot whose turn it is, so expiring items never requires scanning everything that is pending.
+ * <p>
+ * There is no cancel: callers that no longer care about an item (e.g. a mole that was whacked) simply ignore it when
+ * it expires.
+ */
+public class TimingWheel<T>
+{
+  private final Queue<Timeout<T>>[] slots;
+  private final AtomicLong currentTick = new AtomicLong();
+
+  @SuppressWarnings("unchecked")
+  public TimingWheel(int wheelSize)
+  {
+    if (wheelSize < 1)
+    {
+      throw new IllegalArgumentException("Wheel size must be positive: " + wheelSize);
+    }
+    slots = new Queue[wheelSize];
+    for (var i = 0; i < wheelSize; i++)
+    {
+      slots[i] = new ConcurrentLinkedQueue<>();
+    }
+  }
+
+  public void schedule(T item, long delayTicks)
+  {
+    var deadline = currentTick.get() + Math.max(1L, delayTicks);
+    slots[slotFor(deadline)].add(new Timeout<>(item, deadline));
+  }
+
+  public void advance(Consumer<T> onExpired)
+  {
+    var tick = currentTick.incrementAndGet();
+    var timeouts = slots[slotFor(tick)].iterator();
+    while (timeouts.hasNext())
+    {
+      var timeout = timeouts.next();
+      if (timeout.deadline <= tick)
+      {
+        timeouts.remove();
+        onExpired.accept(timeout.item);
+      }
+    }
+  }
+
+  public void clear()
+  {
+    for (var slot : slots)
+    {
+      slot.clear();
+    }
+  }
+
+  public long getCurrentTick()
+  {
+    return currentTick.get();
+  }
+
+  private int slotFor(long tick)
+  {
+    return (int) (tick % slots.length);
+  }
+
+  private static final class Timeout<T>
+  {
+    private final T item;
+    private final long deadline;
+
+    private Timeout(T item, long deadline)
+    {
+      this.item = item;
+      this.deadline = deadline;
+    }
+  }
+}
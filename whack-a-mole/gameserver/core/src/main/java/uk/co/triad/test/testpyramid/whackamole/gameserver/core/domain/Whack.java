@@ -0,0 +1,31 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+/**
+ * One player's attempt at one mole, as sent in a batch.
+ */
+public class Whack
+{
+  private final Mole mole;
+  private final Player player;
+
+  private Whack(Mole mole, Player player)
+  {
+    this.mole = mole;
+    this.player = player;
+  }
+
+  public static Whack newWhack(Mole mole, Player player)
+  {
+    return new Whack(mole, player);
+  }
+
+  public Mole getMole()
+  {
+    return mole;
+  }
+
+  public Player getPlayer()
+  {
+    return player;
+  }
+}
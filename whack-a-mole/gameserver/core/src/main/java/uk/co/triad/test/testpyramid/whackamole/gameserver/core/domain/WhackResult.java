@@ -0,0 +1,8 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+public enum WhackResult
+{
+  HIT,
+  MISSED,
+  NOT_REGISTERED
+}
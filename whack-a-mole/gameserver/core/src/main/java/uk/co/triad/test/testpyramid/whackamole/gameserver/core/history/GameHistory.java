@@ -0,0 +1,246 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.history;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.EventLog;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEvent;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind store of score changes and game events in the database.
+ * <p>
+ * Recording only queues a row (or drops it, counted, if the queue is full), so nothing on a request path ever waits
+ * on the database. One background thread flushes the queue as batched JDBC inserts every flush interval, or sooner
+ * once a full batch has built up, and once a minute deletes the rows older than the retention period.
+ * <p>
+ * It is off unless configured on, and then needs a database of its own ({@code spring.datasource.url}) rather than the
+ * in-memory one Spring Boot would otherwise start.
+ */
+@Component
+public class GameHistory
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(GameHistory.class);
+  private static final long PRUNE_INTERVAL_MILLIS = 60_000L;
+  private static final String INSERT_SCORE =
+      "INSERT INTO game_score (game_id, player_name, total, reason, recorded_at) VALUES (?, ?, ?, ?, ?)";
+  private static final String INSERT_EVENT =
+      "INSERT INTO game_event (game_id, sequence, type, player_name, mole_id, occurred_at) VALUES (?, ?, ?, ?, ?, ?)";
+  private static final String DELETE_SCORES = "DELETE FROM game_score WHERE recorded_at < ?";
+  private static final String DELETE_EVENTS = "DELETE FROM game_event WHERE occurred_at < ?";
+  private final JdbcTemplate jdbcTemplate;
+  private final int batchSize;
+  private final long retentionMillis;
+  private final BlockingQueue<Object[]> scores;
+  private final BlockingQueue<Object[]> events;
+  private final ScheduledExecutorService flusher;
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private final AtomicLong dropped = new AtomicLong();
+  private long droppedReported;
+
+  @Autowired
+  public GameHistory(@Value("${game.history.enabled:false}") final boolean enabled,
+                     @Value("${game.history.flush-interval-millis:1000}") final long flushIntervalMillis,
+                     @Value("${game.history.batch-size:500}") final int batchSize,
+                     @Value("${game.history.queue-capacity:65536}") final int queueCapacity,
+                     @Value("${game.history.retention-millis:86400000}") final long retentionMillis,
+                     @Value("${spring.datasource.url:}") final String datasourceUrl,
+                     final JdbcTemplate jdbcTemplate)
+  {
+    this(enabled, flushIntervalMillis, batchSize, queueCapacity, retentionMillis, jdbcTemplate);
+    if (enabled && datasourceUrl.isBlank())
+    {
+      shutdown();
+      throw new IllegalStateException("game.history.enabled needs a database: set spring.datasource.url");
+    }
+  }
+
+  GameHistory(boolean enabled,
+              long flushIntervalMillis,
+              int batchSize,
+              int queueCapacity,
+              long retentionMillis,
+              JdbcTemplate jdbcTemplate)
+  {
+    if (enabled && retentionMillis <= 0)
+    {
+      throw new IllegalArgumentException("game.history.retention-millis must be positive");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.batchSize = batchSize;
+    this.retentionMillis = retentionMillis;
+    this.scores = new ArrayBlockingQueue<>(queueCapacity);
+    this.events = new ArrayBlockingQueue<>(queueCapacity);
+    if (enabled)
+    {
+      this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "game-history");
+        thread.setDaemon(true);
+        return thread;
+      });
+      flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+      flusher.scheduleWithFixedDelay(this::prune, 0L, PRUNE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    else
+    {
+      this.flusher = null;
+    }
+  }
+
+  public static GameHistory disabled()
+  {
+    return new GameHistory(false, 0L, 1, 1, 0L, null);
+  }
+
+  public boolean isEnabled()
+  {
+    return flusher != null;
+  }
+
+  /**
+   * @return what to listen to a room's game and events with, so that its history gets recorded
+   */
+  public RoomHistory forRoom(String gameId)
+  {
+    return new RoomHistory(gameId, this);
+  }
+
+  public long getDropped()
+  {
+    return dropped.get();
+  }
+
+  @PreDestroy
+  public void shutdown()
+  {
+    if (flusher != null)
+    {
+      flusher.shutdown();
+      try
+      {
+        if (flusher.awaitTermination(5, TimeUnit.SECONDS))
+        {
+          flush();
+        }
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * @param total the player's score as the change left it, rather than as it is by the time the row is queued
+   */
+  void recordScore(String gameId, String playerName, int total, ScoreChange change)
+  {
+    queue(scores, new Object[] {gameId,
+                                playerName,
+                                total,
+                                change.name(),
+                                new Timestamp(System.currentTimeMillis())});
+  }
+
+  void recordEvent(String gameId, EventLog.Entry<GameEvent> entry)
+  {
+    var event = entry.getEvent();
+    queue(events, new Object[] {gameId,
+                                entry.getSequence(),
+                                event.getType().name(),
+                                event.getPlayerName(),
+                                event.getMoleId(),
+                                new Timestamp(event.getTimestamp())});
+  }
+
+  private void queue(BlockingQueue<Object[]> rows, Object[] row)
+  {
+    if (flusher == null)
+    {
+      return;
+    }
+    if (!rows.offer(row))
+    {
+      dropped.incrementAndGet();
+    }
+    else if (rows.size() >= batchSize && flushScheduled.compareAndSet(false, true))
+    {
+      try
+      {
+        flusher.execute(this::flush);
+      }
+      catch (RejectedExecutionException e)
+      {
+        // shutting down, which flushes anyway
+      }
+    }
+  }
+
+  void flush()
+  {
+    flushScheduled.set(false);
+    try
+    {
+      insertAll(scores, INSERT_SCORE);
+      insertAll(events, INSERT_EVENT);
+    }
+    catch (RuntimeException e)
+    {
+      LOGGER.error("Failed to write game history", e);
+    }
+
+    var droppedNow = dropped.get();
+    if (droppedNow > droppedReported)
+    {
+      LOGGER.warn("Dropped {} game history rows as the database could not keep up", droppedNow - droppedReported);
+      droppedReported = droppedNow;
+    }
+  }
+
+  void prune()
+  {
+    var cutoff = new Timestamp(System.currentTimeMillis() - retentionMillis);
+    try
+    {
+      var deleted = jdbcTemplate.update(DELETE_SCORES, cutoff) + jdbcTemplate.update(DELETE_EVENTS, cutoff);
+      LOGGER.debug("Pruned {} game history rows from before {}", deleted, cutoff);
+    }
+    catch (RuntimeException e)
+    {
+      LOGGER.error("Failed to prune game history", e);
+    }
+  }
+
+  private void insertAll(BlockingQueue<Object[]> rows, String sql)
+  {
+    var batch = new ArrayList<Object[]>(batchSize);
+    while (rows.drainTo(batch, batchSize) > 0)
+    {
+      try
+      {
+        jdbcTemplate.batchUpdate(sql, batch);
+      }
+      catch (RuntimeException e)
+      {
+        // drained, so lost with the batch: count them with the rows the queue had no room for
+        dropped.addAndGet(batch.size());
+        throw e;
+      }
+      batch.clear();
+    }
+  }
+}
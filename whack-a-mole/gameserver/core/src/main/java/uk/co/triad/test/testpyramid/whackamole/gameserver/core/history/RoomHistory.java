@@ -0,0 +1,60 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.history;
+
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.EventLog;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEvent;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameListener;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.EventSubscription;
+
+/**
+ * Hands one room's score changes (a player joining, scoring, having their score reset as a game starts, and leaving)
+ * and events to {@link GameHistory}.
+ */
+public class RoomHistory implements GameListener, EventSubscription.Sink<EventLog.Entry<GameEvent>>
+{
+  private final String gameId;
+  private final GameHistory history;
+
+  RoomHistory(String gameId, GameHistory history)
+  {
+    this.gameId = gameId;
+    this.history = history;
+  }
+
+  @Override
+  public void playerJoined(Player player)
+  {
+    history.recordScore(gameId, player.getName(), player.getScore().getTotal(), ScoreChange.JOINED);
+  }
+
+  @Override
+  public void scoreReset(Player player)
+  {
+    history.recordScore(gameId, player.getName(), 0, ScoreChange.RESET);
+  }
+
+  @Override
+  public void moleWhacked(Mole mole, Player player, int total)
+  {
+    history.recordScore(gameId, player.getName(), total, ScoreChange.HIT);
+  }
+
+  @Override
+  public void playerLeft(Player player)
+  {
+    history.recordScore(gameId, player.getName(), player.getScore().getTotal(), ScoreChange.LEFT);
+  }
+
+  @Override
+  public void send(EventLog.Entry<GameEvent> entry)
+  {
+    history.recordEvent(gameId, entry);
+  }
+
+  @Override
+  public void close()
+  {
+    // nothing held open
+  }
+}
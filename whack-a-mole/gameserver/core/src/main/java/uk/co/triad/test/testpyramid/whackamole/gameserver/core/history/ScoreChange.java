@@ -0,0 +1,12 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.history;
+
+/**
+ * Why a score row was recorded.
+ */
+public enum ScoreChange
+{
+  JOINED,
+  HIT,
+  RESET,
+  LEFT
+}
@@ -0,0 +1,61 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal;
+
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameListener;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+
+/**
+ * Writes every change a game makes to its journal, in the order the game made them; for that it has to be added with
+ * {@link uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Game#addOrderedListener(GameListener)}.
+ */
+public class GameJournaler implements GameListener
+{
+  private final Journal journal;
+
+  public GameJournaler(Journal journal)
+  {
+    this.journal = journal;
+  }
+
+  @Override
+  public void playerJoined(Player player)
+  {
+    journal.append(JournalRecord.playerJoined(player.getName()));
+  }
+
+  @Override
+  public void playerLeft(Player player)
+  {
+    journal.append(JournalRecord.playerLeft(player.getName()));
+  }
+
+  @Override
+  public void gameStarted()
+  {
+    journal.append(JournalRecord.gameStarted());
+  }
+
+  @Override
+  public void gameStopped()
+  {
+    journal.append(JournalRecord.gameStopped());
+  }
+
+  @Override
+  public void moleSpawned(Mole mole)
+  {
+    journal.append(JournalRecord.moleSpawned(mole.getId()));
+  }
+
+  @Override
+  public void moleWhacked(Mole mole, Player player, int total)
+  {
+    journal.append(JournalRecord.moleWhacked(mole.getId(), player.getName()));
+  }
+
+  @Override
+  public void moleExpired(Mole mole)
+  {
+    journal.append(JournalRecord.moleExpired(mole.getId()));
+  }
+}
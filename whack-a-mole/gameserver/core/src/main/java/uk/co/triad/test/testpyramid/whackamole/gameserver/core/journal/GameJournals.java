@@ -0,0 +1,94 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Where each game room keeps its {@link Journal}: one directory per game id under a common root, when journaling is
+ * switched on.
+ */
+@Component
+public class GameJournals
+{
+  private final boolean enabled;
+  private final Path root;
+  private final int segmentBytes;
+  private final boolean fsync;
+  private final long snapshotIntervalMillis;
+
+  @Autowired
+  public GameJournals(@Value("${game.journal.enabled:false}") final boolean enabled,
+                      @Value("${game.journal.dir:journal}") final String root,
+                      @Value("${game.journal.segment-bytes:16777216}") final int segmentBytes,
+                      @Value("${game.journal.fsync:true}") final boolean fsync,
+                      @Value("${game.journal.snapshot-interval-millis:60000}") final long snapshotIntervalMillis)
+  {
+    this.enabled = enabled;
+    this.root = Paths.get(root);
+    this.segmentBytes = segmentBytes;
+    this.fsync = fsync;
+    this.snapshotIntervalMillis = snapshotIntervalMillis;
+  }
+
+  public static GameJournals disabled()
+  {
+    return new GameJournals(false, "journal", 0, false, 0L);
+  }
+
+  public boolean isEnabled()
+  {
+    return enabled;
+  }
+
+  /**
+   * @return the ids of every game that has a journal to recover from
+   */
+  public List<String> journaledGameIds()
+  {
+    if (!enabled || !Files.isDirectory(root))
+    {
+      return List.of();
+    }
+    try (var directories = Files.list(root))
+    {
+      return directories.filter(Files::isDirectory)
+                        .map(directory -> URLDecoder.decode(directory.getFileName().toString(),
+                                                            StandardCharsets.UTF_8))
+                        .collect(Collectors.toList());
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public Journal open(String gameId)
+  {
+    try
+    {
+      return Journal.open(root.resolve(directoryName(gameId)), segmentBytes, fsync, snapshotIntervalMillis);
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static String directoryName(String gameId)
+  {
+    // game ids come from URLs, so keep them from naming "." or ".." or reaching outside the root
+    return URLEncoder.encode(gameId, StandardCharsets.UTF_8).replace(".", "%2E").replace("*", "%2A");
+  }
+}
@@ -0,0 +1,435 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of {@link JournalRecord}s in fixed-size, memory-mapped segment files, each named after the first
+ * sequence number it holds.
+ * <p>
+ * Appending only queues the record. A single writer thread copies whatever has queued up into the current segment and
+ * then, if asked to be durable, forces it to disk once for the whole batch (group commit); {@link #sync()} completes
+ * once everything appended before it is in the segment and, with fsync on, on disk. With fsync off the records are
+ * only as safe as the OS page cache, which survives the server dying but not the machine.
+ * <p>
+ * Each record is framed as length, CRC-32 and sequence number, so a record torn by a crash mid-write is recognised on
+ * open and writing resumes just before it.
+ * <p>
+ * With snapshots on, the writer thread also keeps the game state the records add up to, and every so often saves it
+ * as a snapshot and deletes the segments and snapshots it makes redundant. Opening then starts from the newest
+ * snapshot and only replays the records after it. All of this happens on the writer thread, so the game never waits
+ * for it.
+ */
+public class Journal implements Closeable
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(Journal.class);
+  private static final String SEGMENT_SUFFIX = ".journal";
+  private static final int FRAME_HEADER_BYTES = 4 + 4 + 8;
+  private static final int MAX_BATCH = 1024;
+  private static final long CLOSE_TIMEOUT_MILLIS = 5000L;
+  private static final Object CLOSE = new Object();
+  private final Path directory;
+  private final int segmentBytes;
+  private final boolean fsync;
+  private final long snapshotIntervalNanos;
+  private final RecoveredGame state;
+  private final RecoveredGame recovered;
+  private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+  private final Thread writer;
+  private final CRC32 writeChecksum = new CRC32();
+  private volatile boolean closed;
+  private volatile long lastSequence;
+  private MappedByteBuffer segment;
+  private boolean unforced;
+  private long snapshotSequence;
+  private long lastSnapshotNanos = System.nanoTime();
+
+  private Journal(Path directory, int segmentBytes, boolean fsync, long snapshotIntervalMillis) throws IOException
+  {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.fsync = fsync;
+    this.snapshotIntervalNanos = TimeUnit.MILLISECONDS.toNanos(snapshotIntervalMillis);
+    Files.createDirectories(directory);
+    this.state = SnapshotFile.readNewest(directory);
+    this.snapshotSequence = state.getLastSequence();
+    openForAppend();
+    this.recovered = state.copy();
+    this.writer = new Thread(this::writeLoop, "game-journal-" + directory.getFileName());
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  public static Journal open(Path directory, int segmentBytes, boolean fsync) throws IOException
+  {
+    return open(directory, segmentBytes, fsync, 0L);
+  }
+
+  /**
+   * @param snapshotIntervalMillis how often to snapshot the game state while records are being written, or 0 for
+   *                               never
+   */
+  public static Journal open(Path directory, int segmentBytes, boolean fsync, long snapshotIntervalMillis)
+      throws IOException
+  {
+    if (segmentBytes < FRAME_HEADER_BYTES * 16)
+    {
+      throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+    }
+    return new Journal(directory, segmentBytes, fsync, snapshotIntervalMillis);
+  }
+
+  /**
+   * @return the game state as it stood when the journal was opened: the newest snapshot plus every record after it
+   */
+  public RecoveredGame recovered()
+  {
+    return recovered.copy();
+  }
+
+  public void append(JournalRecord record)
+  {
+    if (!closed)
+    {
+      queue.add(record);
+    }
+  }
+
+  public CompletionStage<Void> sync()
+  {
+    var synced = new CompletableFuture<Void>();
+    if (closed)
+    {
+      synced.completeExceptionally(new IllegalStateException("Journal closed: " + directory));
+    }
+    else
+    {
+      queue.add(synced);
+    }
+    return synced;
+  }
+
+  /**
+   * Reads back every record after the given sequence number, oldest first. Only safe before appending starts, or for
+   * sequence numbers already synced.
+   */
+  public void replay(long afterSequence, Consumer<JournalRecord> consumer) throws IOException
+  {
+    for (var path : segmentPaths())
+    {
+      try (var channel = FileChannel.open(path, StandardOpenOption.READ))
+      {
+        var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        JournalRecord record;
+        while ((record = readFrame(buffer)) != null)
+        {
+          if (record.getSequence() > afterSequence)
+          {
+            consumer.accept(record);
+          }
+        }
+      }
+    }
+  }
+
+  public long getLastSequence()
+  {
+    return lastSequence;
+  }
+
+  public Path getDirectory()
+  {
+    return directory;
+  }
+
+  @Override
+  public void close()
+  {
+    if (!closed)
+    {
+      closed = true;
+      queue.add(CLOSE);
+      try
+      {
+        writer.join(CLOSE_TIMEOUT_MILLIS);
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  List<Path> segmentPaths() throws IOException
+  {
+    try (var files = Files.list(directory))
+    {
+      return files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                  .sorted((left, right) -> Long.compare(firstSequenceOf(left), firstSequenceOf(right)))
+                  .collect(Collectors.toList());
+    }
+  }
+
+  static long firstSequenceOf(Path segmentPath)
+  {
+    var name = segmentPath.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  private void openForAppend() throws IOException
+  {
+    var paths = segmentPaths();
+    if (paths.isEmpty())
+    {
+      lastSequence = state.getLastSequence();
+      segment = newSegment(lastSequence + 1);
+      return;
+    }
+
+    var lastPath = paths.get(paths.size() - 1);
+    // sequence numbers carry on from the last good record, wherever a torn tail or a snapshot left off
+    lastSequence = Math.max(state.getLastSequence(), firstSequenceOf(lastPath) - 1);
+    for (var i = 0; i < paths.size() - 1; i++)
+    {
+      if (firstSequenceOf(paths.get(i + 1)) - 1 > state.getLastSequence())
+      {
+        try (var channel = FileChannel.open(paths.get(i), StandardOpenOption.READ))
+        {
+          recoverFrom(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+      }
+    }
+
+    segment = mapSegment(lastPath);
+    recoverFrom(segment);
+    var end = segment.position();
+    if (end + 4 <= segment.limit() && segment.getInt(end) != 0)
+    {
+      LOGGER.warn("Discarding torn journal tail in {} at byte {}", lastPath, end);
+      for (var i = end; i < segment.limit(); i++)
+      {
+        segment.put(i, (byte) 0);
+      }
+      segment.force();
+    }
+  }
+
+  private void recoverFrom(ByteBuffer buffer)
+  {
+    JournalRecord record;
+    while ((record = readFrame(buffer)) != null)
+    {
+      lastSequence = Math.max(lastSequence, record.getSequence());
+      if (record.getSequence() > state.getLastSequence())
+      {
+        state.apply(record);
+      }
+    }
+  }
+
+  private MappedByteBuffer newSegment(long firstSequence) throws IOException
+  {
+    var path = directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+    try (var channel = FileChannel.open(path,
+                                        StandardOpenOption.CREATE_NEW,
+                                        StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE))
+    {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+  }
+
+  private MappedByteBuffer mapSegment(Path path) throws IOException
+  {
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE))
+    {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+  }
+
+  private void writeLoop()
+  {
+    var batch = new ArrayList<Object>(MAX_BATCH);
+    var stopping = false;
+    while (!stopping)
+    {
+      try
+      {
+        batch.add(queue.take());
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      queue.drainTo(batch, MAX_BATCH - 1);
+
+      var synced = new ArrayList<CompletableFuture<Void>>();
+      try
+      {
+        for (var item : batch)
+        {
+          if (item instanceof JournalRecord)
+          {
+            write((JournalRecord) item);
+          }
+          else if (item == CLOSE)
+          {
+            stopping = true;
+          }
+          else
+          {
+            @SuppressWarnings("unchecked") var sync = (CompletableFuture<Void>) item;
+            synced.add(sync);
+          }
+        }
+        force();
+        synced.forEach(sync -> sync.complete(null));
+        if (stopping || System.nanoTime() - lastSnapshotNanos >= snapshotIntervalNanos)
+        {
+          snapshot();
+        }
+      }
+      catch (IOException | RuntimeException e)
+      {
+        LOGGER.error("Journal {} failed to write", directory, e);
+        synced.forEach(sync -> sync.completeExceptionally(e));
+      }
+      batch.clear();
+    }
+  }
+
+  private void write(JournalRecord record) throws IOException
+  {
+    int size;
+    try
+    {
+      size = record.size();
+    }
+    catch (IllegalArgumentException e)
+    {
+      LOGGER.warn("Not journaling record: {}", e.getMessage());
+      return;
+    }
+
+    var frameBytes = FRAME_HEADER_BYTES + size;
+    if (frameBytes > segmentBytes)
+    {
+      throw new IllegalArgumentException("Record too large for a journal segment: " + frameBytes + " bytes");
+    }
+    if (segment.remaining() < frameBytes)
+    {
+      force();
+      segment = newSegment(lastSequence + 1);
+    }
+
+    var start = segment.position();
+    var sequence = lastSequence + 1;
+    segment.position(start + 8);
+    segment.putLong(sequence);
+    record.writeTo(segment);
+
+    var body = segment.duplicate();
+    body.position(start + 8).limit(start + frameBytes);
+    writeChecksum.reset();
+    writeChecksum.update(body);
+    // length last, so a reader never sees a frame whose checksum has not been written yet
+    segment.putInt(start + 4, (int) writeChecksum.getValue());
+    segment.putInt(start, 8 + size);
+
+    lastSequence = sequence;
+    unforced = true;
+    if (snapshotIntervalNanos > 0L)
+    {
+      state.apply(record, sequence);
+    }
+  }
+
+  private void snapshot()
+  {
+    if (snapshotIntervalNanos == 0L || state.getLastSequence() == snapshotSequence)
+    {
+      return;
+    }
+    try
+    {
+      SnapshotFile.write(directory, state, fsync);
+      snapshotSequence = state.getLastSequence();
+      lastSnapshotNanos = System.nanoTime();
+      SnapshotFile.deleteOlderThan(directory, snapshotSequence);
+      deleteSegmentsUpTo(snapshotSequence);
+    }
+    catch (IOException e)
+    {
+      // the journal still holds everything, so a missed snapshot only costs restart time
+      LOGGER.warn("Journal {} failed to snapshot", directory, e);
+    }
+  }
+
+  private void deleteSegmentsUpTo(long sequence) throws IOException
+  {
+    var paths = segmentPaths();
+    for (var i = 0; i < paths.size() - 1; i++)
+    {
+      if (firstSequenceOf(paths.get(i + 1)) - 1 <= sequence)
+      {
+        Files.deleteIfExists(paths.get(i));
+      }
+    }
+  }
+
+  private void force()
+  {
+    if (fsync && unforced)
+    {
+      segment.force();
+    }
+    unforced = false;
+  }
+
+  private static JournalRecord readFrame(ByteBuffer buffer)
+  {
+    var start = buffer.position();
+    if (buffer.remaining() < FRAME_HEADER_BYTES)
+    {
+      return null;
+    }
+    var length = buffer.getInt(start);
+    if (length < 9 || length > buffer.remaining() - 8)
+    {
+      return null;
+    }
+
+    var body = buffer.duplicate();
+    body.position(start + 8).limit(start + 8 + length);
+    var checksum = new CRC32();
+    checksum.update(body.duplicate());
+    if ((int) checksum.getValue() != buffer.getInt(start + 4))
+    {
+      return null;
+    }
+
+    var record = JournalRecord.readFrom(body, body.getLong());
+    buffer.position(start + 8 + length);
+    return record;
+  }
+}
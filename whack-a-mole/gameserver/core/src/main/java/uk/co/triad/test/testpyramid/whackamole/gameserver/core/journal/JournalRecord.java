@@ -0,0 +1,162 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * One game command or event as it is kept in the {@link Journal}: a type plus whichever of player and mole it involves.
+ * <p>
+ * Binary layout: type (1 byte), then the player name (2-byte length and UTF-8) if the type has one, then the mole id
+ * (two longs) if the type has one.
+ */
+public class JournalRecord
+{
+  private static final int MAX_NAME_BYTES = 0xFFFF;
+  private final long sequence;
+  private final Type type;
+  private final String playerName;
+  private final UUID moleId;
+
+  private JournalRecord(long sequence, Type type, String playerName, UUID moleId)
+  {
+    this.sequence = sequence;
+    this.type = type;
+    this.playerName = playerName;
+    this.moleId = moleId;
+  }
+
+  public static JournalRecord playerJoined(String playerName)
+  {
+    return new JournalRecord(0L, Type.PLAYER_JOINED, playerName, null);
+  }
+
+  public static JournalRecord playerLeft(String playerName)
+  {
+    return new JournalRecord(0L, Type.PLAYER_LEFT, playerName, null);
+  }
+
+  public static JournalRecord gameStarted()
+  {
+    return new JournalRecord(0L, Type.GAME_STARTED, null, null);
+  }
+
+  public static JournalRecord gameStopped()
+  {
+    return new JournalRecord(0L, Type.GAME_STOPPED, null, null);
+  }
+
+  public static JournalRecord moleSpawned(UUID moleId)
+  {
+    return new JournalRecord(0L, Type.MOLE_SPAWNED, null, moleId);
+  }
+
+  public static JournalRecord moleWhacked(UUID moleId, String playerName)
+  {
+    return new JournalRecord(0L, Type.MOLE_WHACKED, playerName, moleId);
+  }
+
+  public static JournalRecord moleExpired(UUID moleId)
+  {
+    return new JournalRecord(0L, Type.MOLE_EXPIRED, null, moleId);
+  }
+
+  /**
+   * @return where the record sits in the journal, or 0 if it has not been read back from one
+   */
+  public long getSequence()
+  {
+    return sequence;
+  }
+
+  public Type getType()
+  {
+    return type;
+  }
+
+  public String getPlayerName()
+  {
+    return playerName;
+  }
+
+  public UUID getMoleId()
+  {
+    return moleId;
+  }
+
+  int size()
+  {
+    var size = 1;
+    if (type.hasPlayer)
+    {
+      var nameBytes = playerName.getBytes(StandardCharsets.UTF_8).length;
+      if (nameBytes > MAX_NAME_BYTES)
+      {
+        throw new IllegalArgumentException("Player name too long to journal: " + nameBytes + " bytes");
+      }
+      size += 2 + nameBytes;
+    }
+    if (type.hasMole)
+    {
+      size += 16;
+    }
+    return size;
+  }
+
+  void writeTo(ByteBuffer buffer)
+  {
+    buffer.put((byte) type.ordinal());
+    if (type.hasPlayer)
+    {
+      var name = playerName.getBytes(StandardCharsets.UTF_8);
+      buffer.putShort((short) name.length);
+      buffer.put(name);
+    }
+    if (type.hasMole)
+    {
+      buffer.putLong(moleId.getMostSignificantBits());
+      buffer.putLong(moleId.getLeastSignificantBits());
+    }
+  }
+
+  static JournalRecord readFrom(ByteBuffer buffer, long sequence)
+  {
+    var type = Type.values()[buffer.get()];
+    String playerName = null;
+    UUID moleId = null;
+    if (type.hasPlayer)
+    {
+      var name = new byte[Short.toUnsignedInt(buffer.getShort())];
+      buffer.get(name);
+      playerName = new String(name, StandardCharsets.UTF_8);
+    }
+    if (type.hasMole)
+    {
+      moleId = new UUID(buffer.getLong(), buffer.getLong());
+    }
+    return new JournalRecord(sequence, type, playerName, moleId);
+  }
+
+  /**
+   * Stored by ordinal, so new types may only ever be added at the end.
+   */
+  public enum Type
+  {
+    PLAYER_JOINED(true, false),
+    PLAYER_LEFT(true, false),
+    GAME_STARTED(false, false),
+    GAME_STOPPED(false, false),
+    MOLE_SPAWNED(false, true),
+    MOLE_WHACKED(true, true),
+    MOLE_EXPIRED(false, true);
+
+    private final boolean hasPlayer;
+    private final boolean hasMole;
+
+    Type(boolean hasPlayer, boolean hasMole)
+    {
+      this.hasPlayer = hasPlayer;
+      this.hasMole = hasMole;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal;
+
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Game;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Score;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * The state of a game rebuilt by applying its journal records in order, ready to hand to
+ * {@link Game#restore(java.util.Collection, java.util.Collection, boolean)}. It can start from a snapshot instead of
+ * from nothing, in which case only records after the snapshot's sequence number are applied on top.
+ */
+public class RecoveredGame
+{
+  private final Map<String, Integer> scores = new LinkedHashMap<>();
+  private final Set<UUID> activeMoles = new LinkedHashSet<>();
+  private boolean running;
+  private long lastSequence;
+
+  public void apply(JournalRecord record)
+  {
+    apply(record, record.getSequence());
+  }
+
+  void apply(JournalRecord record, long sequence)
+  {
+    switch (record.getType())
+    {
+      case PLAYER_JOINED:
+        scores.putIfAbsent(record.getPlayerName(), 0);
+        break;
+      case PLAYER_LEFT:
+        scores.remove(record.getPlayerName());
+        break;
+      case GAME_STARTED:
+        scores.replaceAll((name, score) -> 0);
+        running = true;
+        break;
+      case GAME_STOPPED:
+        activeMoles.clear();
+        running = false;
+        break;
+      case MOLE_SPAWNED:
+        activeMoles.add(record.getMoleId());
+        break;
+      case MOLE_WHACKED:
+        if (activeMoles.remove(record.getMoleId()))
+        {
+          scores.computeIfPresent(record.getPlayerName(), (name, score) -> score + Game.WHACK_POINTS);
+        }
+        break;
+      case MOLE_EXPIRED:
+        activeMoles.remove(record.getMoleId());
+        break;
+      default:
+        throw new IllegalStateException("Unknown journal record type: " + record.getType());
+    }
+    lastSequence = Math.max(lastSequence, sequence);
+  }
+
+  public List<Player> getPlayers()
+  {
+    return scores.entrySet()
+                 .stream()
+                 .map(entry -> new Player(entry.getKey(), new Score(entry.getValue())))
+                 .collect(Collectors.toList());
+  }
+
+  public List<Mole> getActiveMoles()
+  {
+    return activeMoles.stream().map(Mole::newMole).collect(Collectors.toList());
+  }
+
+  public boolean isRunning()
+  {
+    return running;
+  }
+
+  public long getLastSequence()
+  {
+    return lastSequence;
+  }
+
+  RecoveredGame copy()
+  {
+    var copy = new RecoveredGame();
+    copy.scores.putAll(scores);
+    copy.activeMoles.addAll(activeMoles);
+    copy.running = running;
+    copy.lastSequence = lastSequence;
+    return copy;
+  }
+
+  void writeTo(DataOutputStream out) throws IOException
+  {
+    out.writeLong(lastSequence);
+    out.writeBoolean(running);
+    out.writeInt(scores.size());
+    for (var score : scores.entrySet())
+    {
+      out.writeUTF(score.getKey());
+      out.writeInt(score.getValue());
+    }
+    out.writeInt(activeMoles.size());
+    for (var moleId : activeMoles)
+    {
+      out.writeLong(moleId.getMostSignificantBits());
+      out.writeLong(moleId.getLeastSignificantBits());
+    }
+  }
+
+  static RecoveredGame readFrom(DataInputStream in) throws IOException
+  {
+    var recovered = new RecoveredGame();
+    recovered.lastSequence = in.readLong();
+    recovered.running = in.readBoolean();
+    for (var players = in.readInt(); players > 0; players--)
+    {
+      recovered.scores.put(in.readUTF(), in.readInt());
+    }
+    for (var moles = in.readInt(); moles > 0; moles--)
+    {
+      recovered.activeMoles.add(new UUID(in.readLong(), in.readLong()));
+    }
+    return recovered;
+  }
+}
@@ -0,0 +1,136 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link RecoveredGame} saved next to the journal segments, named after the last sequence number it includes.
+ * <p>
+ * Layout: magic number, the game state, then a CRC-32 of the state. A snapshot is written to a temporary file and
+ * moved into place, so a crash mid-write leaves the previous one in charge.
+ */
+final class SnapshotFile
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotFile.class);
+  private static final String SUFFIX = ".snapshot";
+  private static final int MAGIC = 0x574d534e;
+
+  private SnapshotFile()
+  {
+  }
+
+  static void write(Path directory, RecoveredGame state, boolean fsync) throws IOException
+  {
+    var body = new ByteArrayOutputStream();
+    try (var out = new DataOutputStream(body))
+    {
+      state.writeTo(out);
+    }
+    var checksum = new CRC32();
+    checksum.update(body.toByteArray());
+
+    var buffer = ByteBuffer.allocate(4 + body.size() + 4);
+    buffer.putInt(MAGIC).put(body.toByteArray()).putInt((int) checksum.getValue()).flip();
+
+    var path = directory.resolve(String.format("%020d%s", state.getLastSequence(), SUFFIX));
+    var temporary = directory.resolve(path.getFileName() + ".tmp");
+    try (var channel = FileChannel.open(temporary,
+                                        StandardOpenOption.CREATE,
+                                        StandardOpenOption.TRUNCATE_EXISTING,
+                                        StandardOpenOption.WRITE))
+    {
+      while (buffer.hasRemaining())
+      {
+        channel.write(buffer);
+      }
+      if (fsync)
+      {
+        channel.force(true);
+      }
+    }
+    Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * @return the newest snapshot that reads back intact, or an empty game if there is none
+   */
+  static RecoveredGame readNewest(Path directory) throws IOException
+  {
+    var paths = list(directory);
+    for (var i = paths.size() - 1; i >= 0; i--)
+    {
+      var recovered = read(paths.get(i));
+      if (recovered != null)
+      {
+        return recovered;
+      }
+      LOGGER.warn("Ignoring damaged snapshot {}", paths.get(i));
+    }
+    return new RecoveredGame();
+  }
+
+  static void deleteOlderThan(Path directory, long sequence) throws IOException
+  {
+    for (var path : list(directory))
+    {
+      if (sequenceOf(path) < sequence)
+      {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  private static RecoveredGame read(Path path) throws IOException
+  {
+    var bytes = Files.readAllBytes(path);
+    var buffer = ByteBuffer.wrap(bytes);
+    if (bytes.length < 8 || buffer.getInt(0) != MAGIC)
+    {
+      return null;
+    }
+
+    var checksum = new CRC32();
+    checksum.update(bytes, 4, bytes.length - 8);
+    if ((int) checksum.getValue() != buffer.getInt(bytes.length - 4))
+    {
+      return null;
+    }
+
+    try (var in = new DataInputStream(new ByteArrayInputStream(bytes, 4, bytes.length - 8)))
+    {
+      return RecoveredGame.readFrom(in);
+    }
+  }
+
+  private static List<Path> list(Path directory) throws IOException
+  {
+    try (var files = Files.list(directory))
+    {
+      return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                  .sorted(Comparator.comparingLong(SnapshotFile::sequenceOf))
+                  .collect(Collectors.toList());
+    }
+  }
+
+  private static long sequenceOf(Path path)
+  {
+    var name = path.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+  }
+}
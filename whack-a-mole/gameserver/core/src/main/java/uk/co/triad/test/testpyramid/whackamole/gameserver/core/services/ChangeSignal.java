@@ -0,0 +1,93 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.services;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Lets readers park until something changes instead of polling for it.
+ * <p>
+ * A parked reader holds no thread, only a place among those waiting for the next signal (or its timeout), which then
+ * re-reads on the given executor so the signalling thread never does the reader's work. A reader whose wait is up
+ * gives its place back, so however many waits time out between signals, nothing piles up.
+ */
+public class ChangeSignal
+{
+  private final AtomicReference<Waiters> next = new AtomicReference<>(new Waiters());
+  private final Executor executor;
+
+  public ChangeSignal(Executor executor)
+  {
+    this.executor = executor;
+  }
+
+  public void signal()
+  {
+    next.getAndSet(new Waiters()).wakeAll();
+  }
+
+  /**
+   * @return how many readers are waiting for the next signal
+   */
+  int getWaitingCount()
+  {
+    return next.get().waiting.size();
+  }
+
+  /**
+   * Reads until the result is ready or the wait is up, and hands back the last read either way.
+   */
+  public <T> CompletionStage<T> awaitReady(Supplier<CompletionStage<T>> read, Predicate<T> ready, long waitMillis)
+  {
+    return awaitReadyUntil(read, ready, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, waitMillis)));
+  }
+
+  private <T> CompletionStage<T> awaitReadyUntil(Supplier<CompletionStage<T>> read,
+                                                 Predicate<T> ready,
+                                                 long deadlineNanos)
+  {
+    // taken before reading, so a change that lands between the read and parking still wakes the reader
+    var changed = next.get();
+    return read.get().thenCompose(result -> {
+      var remainingNanos = deadlineNanos - System.nanoTime();
+      if (ready.test(result) || remainingNanos <= 0)
+      {
+        return CompletableFuture.completedFuture(result);
+      }
+
+      var wake = new CompletableFuture<Void>();
+      changed.park(wake);
+      return wake.completeOnTimeout(null, remainingNanos, TimeUnit.NANOSECONDS)
+                 .whenComplete((woken, failure) -> changed.waiting.remove(wake))
+                 .thenComposeAsync(woken -> awaitReadyUntil(read, ready, deadlineNanos), executor);
+    });
+  }
+
+  private static final class Waiters
+  {
+    private final Set<CompletableFuture<Void>> waiting = ConcurrentHashMap.newKeySet();
+    private volatile boolean signalled;
+
+    private void park(CompletableFuture<Void> wake)
+    {
+      waiting.add(wake);
+      // a signal that came in while this was being added may have missed it
+      if (signalled)
+      {
+        wake.complete(null);
+      }
+    }
+
+    private void wakeAll()
+    {
+      signalled = true;
+      waiting.forEach(wake -> wake.complete(null));
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.services;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One subscriber's live feed of game events.
+ * <p>
+ * Events are buffered (up to a fixed size) and sent from the given executor, so publishing an event never waits on a
+ * subscriber's connection. At most one send is in flight per subscriber, which keeps its events in order without
+ * holding a thread per subscriber.
+ */
+public class EventSubscription<T>
+{
+  private final BlockingQueue<T> buffer;
+  private final SlowConsumerPolicy slowConsumerPolicy;
+  private final Executor executor;
+  private final Sink<T> sink;
+  private final AtomicBoolean sending = new AtomicBoolean();
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private final AtomicLong dropped = new AtomicLong();
+
+  public EventSubscription(int bufferSize, SlowConsumerPolicy slowConsumerPolicy, Executor executor, Sink<T> sink)
+  {
+    this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    this.slowConsumerPolicy = slowConsumerPolicy;
+    this.executor = executor;
+    this.sink = sink;
+  }
+
+  /**
+   * @return false once the subscription is closed, so publishers can forget it
+   */
+  public boolean offer(T event)
+  {
+    if (closed.get())
+    {
+      return false;
+    }
+
+    if (!buffer.offer(event))
+    {
+      if (slowConsumerPolicy == SlowConsumerPolicy.DISCONNECT)
+      {
+        close();
+        return false;
+      }
+      while (!buffer.offer(event))
+      {
+        if (buffer.poll() != null)
+        {
+          dropped.incrementAndGet();
+        }
+      }
+    }
+
+    scheduleSend();
+    return true;
+  }
+
+  public void close()
+  {
+    if (closed.compareAndSet(false, true))
+    {
+      buffer.clear();
+      sink.close();
+    }
+  }
+
+  public boolean isClosed()
+  {
+    return closed.get();
+  }
+
+  public long getDropped()
+  {
+    return dropped.get();
+  }
+
+  private void scheduleSend()
+  {
+    if (sending.compareAndSet(false, true))
+    {
+      try
+      {
+        executor.execute(this::send);
+      }
+      catch (RejectedExecutionException e)
+      {
+        sending.set(false);
+        close();
+      }
+    }
+  }
+
+  private void send()
+  {
+    try
+    {
+      var event = buffer.poll();
+      while (event != null && !closed.get())
+      {
+        sink.send(event);
+        event = buffer.poll();
+      }
+    }
+    catch (IOException | RuntimeException e)
+    {
+      close();
+    }
+    finally
+    {
+      sending.set(false);
+    }
+
+    // an event offered after the last poll but before the flag was cleared would otherwise wait for the next one
+    if (!buffer.isEmpty() && !closed.get())
+    {
+      scheduleSend();
+    }
+  }
+
+  public interface Sink<T>
+  {
+    void send(T event) throws IOException;
+
+    void close();
+  }
+}
@@ -1,48 +1,280 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.core.services;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.*;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal.Journal;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-@Service
-public class GameCommandQueryService
+import static uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEventType.*;
+
+public class GameCommandQueryService implements GameListener
 {
+  public static final int DEFAULT_EVENT_CAPACITY = 1024;
   private Game game;
-  private ConcurrentLinkedQueue<String> events = new ConcurrentLinkedQueue<>();
+  private EventLog<GameEvent> events;
+  private EventIndex eventIndex;
+  private AtomicLong unreadCursor = new AtomicLong();
+  private Set<EventSubscription<EventLog.Entry<GameEvent>>> subscriptions = ConcurrentHashMap.newKeySet();
+  private AtomicBoolean publishing = new AtomicBoolean();
+  private volatile long published;
+  private volatile boolean republish;
+  private Executor executor;
+  private ChangeSignal eventsChanged;
+  private ChangeSignal molesChanged;
+  private ChangeSignal scoresChanged;
+  private Journal journal;
+  private AtomicInteger listenerCount = new AtomicInteger();
+  private volatile long lastUsedNanos = System.nanoTime();
 
-  @Autowired
   public GameCommandQueryService(Game game)
+  {
+    this(game, ForkJoinPool.commonPool(), DEFAULT_EVENT_CAPACITY);
+  }
+
+  public GameCommandQueryService(Game game, Executor executor, int eventCapacity)
+  {
+    this(game, executor, eventCapacity, null);
+  }
+
+  /**
+   * @param journal where the game's changes are being written, or null if they are not; commands then only complete
+   *                once what they changed is in the journal
+   */
+  public GameCommandQueryService(Game game, Executor executor, int eventCapacity, Journal journal)
   {
     this.game = game;
+    this.journal = journal;
+    this.executor = executor;
+    this.events = new EventLog<>(eventCapacity);
+    this.eventIndex = new EventIndex(events);
+    this.eventsChanged = new ChangeSignal(executor);
+    this.molesChanged = new ChangeSignal(executor);
+    this.scoresChanged = new ChangeSignal(executor);
+    this.game.addListener(this);
   }
 
-  public CompletionStage<List<String>> getUnreadEvents()
+  private void addEvent(GameEvent event)
   {
-    var currentEvents = new ArrayList<String>();
+    events.append(event);
+    publish();
+    eventsChanged.signal();
+  }
+
+  /**
+   * Offers subscribers every event not yet offered, in sequence order, so a subscriber resuming after the last event
+   * it was sent never skips one that was appended before it but offered after.
+   * <p>
+   * Events are appended concurrently, so whoever gets the publishing flag offers everything readable for everyone; the
+   * others leave their events to it, asking it to look at the log again once it gives the flag up. An event still
+   * being written is never waited for: its writer only publishes once it is written, and so either gets the flag
+   * itself or asks whoever holds it to look again.
+   */
+  private void publish()
+  {
+    while (events.getLastSequence() > published)
+    {
+      if (!publishing.compareAndSet(false, true))
+      {
+        republish = true;
+        // given up since, perhaps without seeing the request; then it is ours to take
+        if (publishing.get())
+        {
+          return;
+        }
+        continue;
+      }
+      try
+      {
+        republish = false;
+        var page = events.readAfter(published);
+        for (var entry : page.getEntries())
+        {
+          subscriptions.removeIf(subscription -> !subscription.offer(entry));
+        }
+        published = page.getLastSequence();
+      }
+      finally
+      {
+        publishing.set(false);
+      }
+      if (!republish)
+      {
+        return;
+      }
+    }
+  }
 
-    var event = events.poll();
-    while (event != null)
+  private <T> CompletionStage<T> journaled(CompletionStage<T> command)
+  {
+    if (journal == null)
     {
-      currentEvents.add(event);
-      event = events.poll();
+      return command;
     }
+    // back onto our executor so callers never continue on the journal's writer thread
+    return command.thenCompose(result -> journal.sync().thenApplyAsync(synced -> result, executor));
+  }
 
-    return CompletableFuture.supplyAsync(() -> currentEvents);
+  public void subscribe(EventSubscription<EventLog.Entry<GameEvent>> subscription)
+  {
+    subscriptions.add(subscription);
   }
 
-  public CompletionStage<Void> register(Player player)
+  public void unsubscribe(EventSubscription<EventLog.Entry<GameEvent>> subscription)
   {
-    return game.register(player).thenRun(() -> events.add(player.getName() + " joined the game")).exceptionally(t -> {
+    subscriptions.remove(subscription);
+  }
+
+  public void addListener(GameListener listener)
+  {
+    listenerCount.incrementAndGet();
+    game.addListener(listener);
+  }
+
+  public void removeListener(GameListener listener)
+  {
+    listenerCount.decrementAndGet();
+    game.removeListener(listener);
+  }
+
+  @Override
+  public void moleSpawned(Mole mole)
+  {
+    molesChanged.signal();
+  }
+
+  @Override
+  public void moleWhacked(Mole mole, Player player, int total)
+  {
+    molesChanged.signal();
+    scoresChanged.signal();
+  }
+
+  @Override
+  public void playerJoined(Player player)
+  {
+    scoresChanged.signal();
+  }
+
+  @Override
+  public void playerLeft(Player player)
+  {
+    scoresChanged.signal();
+  }
+
+  @Override
+  public void scoreReset(Player player)
+  {
+    scoresChanged.signal();
+  }
+
+  @Override
+  public void molesCleared()
+  {
+    molesChanged.signal();
+  }
+
+  @Override
+  public void moleExpired(Mole mole)
+  {
+    molesChanged.signal();
+    addEvent(GameEvent.newEvent(MOLE_ESCAPED, mole));
+  }
+
+  /**
+   * Events nobody has read through this method yet. Unlike {@link #getEventsAfter(long, long)}, every call moves one
+   * shared cursor on, so each event is handed out once.
+   */
+  public CompletionStage<List<EventLog.Entry<GameEvent>>> getUnreadEvents()
+  {
+    return CompletableFuture.supplyAsync(() -> {
+      while (true)
+      {
+        var cursor = unreadCursor.get();
+        var page = events.readAfter(cursor);
+        if (unreadCursor.compareAndSet(cursor, page.getLastSequence()))
+        {
+          return page.getEntries();
+        }
+      }
+    }, executor);
+  }
+
+  /**
+   * As {@link #getUnreadEvents()}, but while there are none, waits up to the given time for some before answering.
+   */
+  public CompletionStage<List<EventLog.Entry<GameEvent>>> getUnreadEvents(long waitMillis)
+  {
+    return eventsChanged.awaitReady(this::getUnreadEvents, entries -> !entries.isEmpty(), waitMillis);
+  }
+
+  /**
+   * @param epoch the {@link #versionEpoch() version epoch} the sequence was given with; a sequence from another epoch
+   * names no event in this room's log, so the page is {@link EventLog.Page#isReset() reset} to its oldest event
+   */
+  public CompletionStage<EventLog.Page<GameEvent>> getEventsAfter(long epoch, long sequence)
+  {
+    // past the end of the log is as foreign to it as another epoch's sequence, and is reset the same way
+    var after = epoch == versionEpoch() ? sequence : Long.MAX_VALUE;
+    return CompletableFuture.supplyAsync(() -> events.readAfter(after), executor);
+  }
+
+  /**
+   * As {@link #getEventsAfter(long, long)}, but while there are none, waits up to the given time for some before
+   * answering.
+   */
+  public CompletionStage<EventLog.Page<GameEvent>> getEventsAfter(long epoch, long sequence, long waitMillis)
+  {
+    return eventsChanged.awaitReady(() -> getEventsAfter(epoch, sequence),
+                                    page -> !page.getEntries().isEmpty() || page.getMissed() > 0 || page.isReset(),
+                                    waitMillis);
+  }
+
+  /**
+   * Events still in the log that match every given filter, oldest first, without moving the unread cursor.
+   *
+   * @param playerName only this player's events, or null for anyone's
+   * @param type       only events of this type, or null for any type
+   */
+  public CompletionStage<List<EventLog.Entry<GameEvent>>> findEvents(String playerName,
+                                                                     GameEventType type,
+                                                                     long fromMillis,
+                                                                     long toMillis)
+  {
+    return CompletableFuture.supplyAsync(() -> eventIndex.find(playerName, type, fromMillis, toMillis), executor);
+  }
+
+  /**
+   * @return the time from which on {@link #findEvents(String, GameEventType, long, long)} finds every event; it only
+   * looks through the newest event capacity's worth of them
+   */
+  public long eventsHeldFromMillis()
+  {
+    return eventIndex.getHeldFromMillis();
+  }
+
+  /**
+   * @return the player's handle, see {@link #player(long)}
+   */
+  public CompletionStage<Long> register(Player player)
+  {
+    var registered = journaled(game.register(player));
+    return registered.thenApply(handle -> {
+      addEvent(GameEvent.newEvent(PLAYER_JOINED, player));
+      return handle;
+    }).exceptionally(t -> {
       if (t.getCause() instanceof PlayerAlreadyRegisteredException)
       {
-        events.add(player.getName() + " tried to join the game again!");
+        addEvent(GameEvent.newEvent(PLAYER_ALREADY_JOINED, player));
       }
       throw new CompletionException(t.getCause());
     });
@@ -50,10 +282,11 @@ public class GameCommandQueryService
 
   public CompletionStage<Void> remove(Player player)
   {
-    return game.remove(player).thenRun(() -> events.add(player.getName() + " left the game")).exceptionally(t -> {
+    var removed = journaled(game.remove(player));
+    return removed.thenRun(() -> addEvent(GameEvent.newEvent(PLAYER_LEFT, player))).exceptionally(t -> {
       if (t.getCause() instanceof PlayerNotRegisteredException)
       {
-        events.add(player.getName() + " tried to leave the game, despite having not joined yet!");
+        addEvent(GameEvent.newEvent(PLAYER_NOT_JOINED, player));
       }
       throw new CompletionException(t.getCause());
     });
@@ -64,14 +297,99 @@ public class GameCommandQueryService
     return game.activePlayers();
   }
 
+  /**
+   * @return the registered player with this handle, or null if there is none; answered at once, not asynchronously
+   */
+  public Player player(long handle)
+  {
+    return game.player(handle);
+  }
+
+  public CompletionStage<List<Player>> rankedPlayers(int from, int count)
+  {
+    return game.rankedPlayers(from, count);
+  }
+
+  public long playersVersion()
+  {
+    return game.getPlayersVersion();
+  }
+
+  public long scoresVersion()
+  {
+    return game.getScoresVersion();
+  }
+
+  public long molesVersion()
+  {
+    return game.getMolesVersion();
+  }
+
+  /**
+   * Waits up to the given time for the scores to move on from the version given.
+   *
+   * @return the scores' version once it has, or when the wait is up
+   */
+  public CompletionStage<Long> scoresVersionAfter(long version, long waitMillis)
+  {
+    return scoresChanged.awaitReady(() -> CompletableFuture.completedFuture(scoresVersion()),
+                                    current -> current != version,
+                                    waitMillis);
+  }
+
+  /**
+   * As {@link #scoresVersionAfter(long, long)}, for the moles.
+   */
+  public CompletionStage<Long> molesVersionAfter(long version, long waitMillis)
+  {
+    return molesChanged.awaitReady(() -> CompletableFuture.completedFuture(molesVersion()),
+                                   current -> current != version,
+                                   waitMillis);
+  }
+
+  public long versionEpoch()
+  {
+    return game.getVersionEpoch();
+  }
+
+  /**
+   * Marks the room as just asked for, so it is not taken for idle.
+   */
+  public void touch()
+  {
+    lastUsedNanos = System.nanoTime();
+  }
+
+  public long getLastUsedNanos()
+  {
+    return lastUsedNanos;
+  }
+
+  /**
+   * @return how many subscriptions and listeners are following the room's events, e.g. for open streams
+   */
+  public int getWatcherCount()
+  {
+    return subscriptions.size() + listenerCount.get();
+  }
+
   public CompletionStage<Void> start()
   {
-    return game.start().thenRun(() -> events.add("Game started!"));
+    return journaled(game.start()).thenRun(() -> addEvent(GameEvent.newEvent(GAME_STARTED)));
   }
 
   public CompletionStage<Void> stop()
   {
-    return game.stop().thenRun(() -> events.add("Game stopped!"));
+    return journaled(game.stop()).thenRun(() -> addEvent(GameEvent.newEvent(GAME_STOPPED)));
+  }
+
+  public void shutdown()
+  {
+    game.shutdown();
+    if (journal != null)
+    {
+      journal.close();
+    }
   }
 
   public CompletionStage<List<Mole>> activeMoles()
@@ -79,24 +397,75 @@ public class GameCommandQueryService
     return game.activeMoles();
   }
 
+  /**
+   * As {@link #activeMoles()}, but while there are none, waits up to the given time for one before answering.
+   */
+  public CompletionStage<List<Mole>> activeMoles(long waitMillis)
+  {
+    return molesChanged.awaitReady(game::activeMoles, moles -> !moles.isEmpty(), waitMillis);
+  }
+
+  public CompletionStage<MoleChanges> molesSince(long epoch, long version)
+  {
+    return game.molesSince(epoch, version);
+  }
+
+  /**
+   * As {@link #molesSince(long, long)}, but while nothing has changed, waits up to the given time for a change before
+   * answering.
+   */
+  public CompletionStage<MoleChanges> molesSince(long epoch, long version, long waitMillis)
+  {
+    return molesChanged.awaitReady(() -> game.molesSince(epoch, version), changes -> !changes.isEmpty(), waitMillis);
+  }
+
+  /**
+   * As {@link #whack(Mole, Player)} for each whack, all applied in one command; a whack by someone not registered is
+   * answered as such rather than failing the batch.
+   */
+  public CompletionStage<List<WhackResult>> whackAll(List<Whack> whacks)
+  {
+    return journaled(game.whackAll(whacks)).thenApply(results -> {
+      for (var i = 0; i < results.size(); i++)
+      {
+        var whack = whacks.get(i);
+        addEvent(GameEvent.newEvent(eventFor(results.get(i)), whack.getPlayer(), whack.getMole()));
+      }
+      return results;
+    });
+  }
+
   public CompletionStage<Boolean> whack(Mole mole, Player player)
   {
-    return game.whack(mole, player).thenApply(result -> {
+    return journaled(game.whack(mole, player)).thenApply(result -> {
       if (Boolean.TRUE.equals(result))
       {
-        events.add(player.getName() + " hit mole " + mole.getId());
+        addEvent(GameEvent.newEvent(MOLE_HIT, player, mole));
       }
       else
       {
-        events.add(player.getName() + " missed mole " + mole.getId());
+        addEvent(GameEvent.newEvent(MOLE_MISSED, player, mole));
       }
       return result;
     }).exceptionally(t -> {
       if (t.getCause() instanceof PlayerNotRegisteredException)
       {
-        events.add(player.getName() + " cannot hit moles, as they are not registered");
+        addEvent(GameEvent.newEvent(WHACK_BY_NON_PLAYER, player, mole));
       }
       throw new CompletionException(t.getCause());
     });
   }
+
+  private static GameEventType eventFor(WhackResult result)
+  {
+    switch (result)
+    {
+      case HIT:
+        return MOLE_HIT;
+      case MISSED:
+        return MOLE_MISSED;
+      default:
+        return WHACK_BY_NON_PLAYER;
+    }
+  }
 }
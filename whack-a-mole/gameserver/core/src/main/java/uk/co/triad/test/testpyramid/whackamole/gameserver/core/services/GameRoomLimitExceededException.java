@@ -0,0 +1,13 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class GameRoomLimitExceededException extends RuntimeException
+{
+  public GameRoomLimitExceededException(String message)
+  {
+    super(message);
+  }
+}
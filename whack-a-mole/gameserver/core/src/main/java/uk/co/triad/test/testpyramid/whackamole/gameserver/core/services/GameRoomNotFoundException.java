@@ -0,0 +1,13 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class GameRoomNotFoundException extends RuntimeException
+{
+  public GameRoomNotFoundException(String message)
+  {
+    super(message);
+  }
+}
@@ -0,0 +1,334 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.*;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.history.GameHistory;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal.GameJournaler;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal.GameJournals;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal.Journal;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal.RecoveredGame;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Hosts independent game rooms, each with its own {@link Game} and events, addressed by game id.
+ * <p>
+ * Rooms are only created when a game is started or a player joins; anything else asked of a room that does not exist
+ * is refused. The default room always exists. No more than the configured number of rooms are ever hosted, counting
+ * rooms rebuilt from their journals, and rooms nothing has asked for (or streamed from) for a while are shut down and
+ * forgotten; a journaled room comes back as it was when it is next opened. A room is built (and rebuilt from its
+ * journal) outside the map of rooms, so a slow rebuild only holds up those waiting for that room.
+ * <p>
+ * Their ticks are spread over one single-threaded scheduler shard per core (chosen by
+ * game id), so busy rooms never share a monitor and the number of tick threads stays fixed however many rooms exist.
+ * A shard only schedules each tick; spawning and expiring moles is done on the game executor (or a room's writer).
+ * <p>
+ * In {@link EngineMode#SINGLE_WRITER} mode each room also gets a writer thread of its own that applies its commands in
+ * order.
+ * <p>
+ * With journaling on, every room writes its changes to a journal of its own, and rooms with a journal are rebuilt from
+ * it (its newest snapshot plus the records since) when the service starts. With history on, score changes and events
+ * are also written behind to the database.
+ */
+@Service
+public class GameRoomService
+{
+  public static final String DEFAULT_GAME_ID = "default";
+  private static final Logger LOGGER = LoggerFactory.getLogger(GameRoomService.class);
+  private final ConcurrentMap<String, CompletableFuture<GameCommandQueryService>> rooms;
+  private final ScheduledExecutorService[] shards;
+  private final long tickPeriodMillis;
+  private final long moleLifetimeMillis;
+  private final int maxRooms;
+  private final AtomicInteger roomCount = new AtomicInteger();
+  private final long roomIdleMillis;
+  private final EngineMode engineMode;
+  private final int commandQueueCapacity;
+  private final Executor gameExecutor;
+  private final Executor serviceExecutor;
+  private final int eventCapacity;
+  private final GameJournals journals;
+  private final GameHistory history;
+
+  @Autowired
+  public GameRoomService(@Value("${game.tick.period-millis:500}") final long tickPeriodMillis,
+                         @Value("${game.mole.lifetime-millis:3000}") final long moleLifetimeMillis,
+                         @Value("${game.rooms.max:1024}") final int maxRooms,
+                         @Value("${game.rooms.idle-millis:1800000}") final long roomIdleMillis,
+                         @Value("${game.rooms.shards:0}") final int shardCount,
+                         @Value("${game.engine.mode:concurrent}") final EngineMode engineMode,
+                         @Value("${game.engine.queue-capacity:1024}") final int commandQueueCapacity,
+                         @Value("${game.events.capacity:1024}") final int eventCapacity,
+                         @Qualifier("gameExecutor") final Executor gameExecutor,
+                         @Qualifier("serviceExecutor") final Executor serviceExecutor,
+                         final GameJournals journals,
+                         final GameHistory history)
+  {
+    this.gameExecutor = gameExecutor;
+    this.serviceExecutor = serviceExecutor;
+    this.eventCapacity = eventCapacity;
+    this.tickPeriodMillis = tickPeriodMillis;
+    this.moleLifetimeMillis = moleLifetimeMillis;
+    this.maxRooms = maxRooms;
+    this.roomIdleMillis = roomIdleMillis;
+    this.engineMode = engineMode;
+    this.commandQueueCapacity = commandQueueCapacity;
+    this.journals = journals;
+    this.history = history;
+
+    var shardsToCreate = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+    this.shards = new ScheduledExecutorService[shardsToCreate];
+    for (var i = 0; i < shardsToCreate; i++)
+    {
+      var shardName = "game-shard-" + i;
+      shards[i] = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, shardName);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+
+    // sized up front for the room limit so the table never resizes under load
+    this.rooms = new ConcurrentHashMap<>(maxRooms, 0.75f, shardsToCreate);
+    openRoom(DEFAULT_GAME_ID);
+    for (var gameId : journals.journaledGameIds())
+    {
+      try
+      {
+        openRoom(gameId);
+      }
+      catch (GameRoomLimitExceededException e)
+      {
+        LOGGER.warn("Not rebuilding journaled room {}: {}", gameId, e.getMessage());
+      }
+    }
+
+    if (roomIdleMillis > 0)
+    {
+      // swept on a shard but shut down off it, so closing a room never holds up anyone's ticks
+      var sweepMillis = Math.max(1L, roomIdleMillis / 2);
+      shards[0].scheduleWithFixedDelay(() -> serviceExecutor.execute(this::evictIdleRooms),
+                                       sweepMillis,
+                                       sweepMillis,
+                                       TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * @return the room with the given id (the default room for none)
+   * @throws GameRoomNotFoundException if no such room is being hosted
+   */
+  public GameCommandQueryService room(String gameId)
+  {
+    var id = gameId == null ? DEFAULT_GAME_ID : gameId;
+    var opening = rooms.get(id);
+    if (opening == null)
+    {
+      throw new GameRoomNotFoundException("No game room " + id + " is being hosted");
+    }
+    var room = await(opening);
+    room.touch();
+    return room;
+  }
+
+  /**
+   * As {@link #room(String)}, but creates the room (rebuilding it from its journal, if it has one) when there is none.
+   *
+   * @throws GameRoomLimitExceededException if as many rooms as allowed are already being hosted
+   */
+  public GameCommandQueryService openRoom(String gameId)
+  {
+    var id = gameId == null ? DEFAULT_GAME_ID : gameId;
+    var opening = new CompletableFuture<GameCommandQueryService>();
+    var alreadyOpening = rooms.putIfAbsent(id, opening);
+    if (alreadyOpening != null)
+    {
+      var room = await(alreadyOpening);
+      room.touch();
+      return room;
+    }
+
+    // built with the room only held as a place in the map, so no lock is held while its journal is replayed
+    try
+    {
+      reserveRoom();
+    }
+    catch (RuntimeException e)
+    {
+      rooms.remove(id, opening);
+      opening.completeExceptionally(e);
+      throw e;
+    }
+    GameCommandQueryService room;
+    try
+    {
+      room = newRoom(id);
+    }
+    catch (RuntimeException e)
+    {
+      rooms.remove(id, opening);
+      roomCount.decrementAndGet();
+      opening.completeExceptionally(e);
+      throw e;
+    }
+    opening.complete(room);
+    room.touch();
+    return room;
+  }
+
+  /**
+   * @return the ids of the rooms being hosted, leaving out any still being built
+   */
+  public Set<String> gameIds()
+  {
+    return rooms.entrySet()
+                .stream()
+                .filter(entry -> opened(entry.getValue()) != null)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableSet());
+  }
+
+  public int getShardCount()
+  {
+    return shards.length;
+  }
+
+  /**
+   * Shuts down and forgets every room, bar the default one, that has not been asked for since the idle period began
+   * and has no streams open.
+   */
+  void evictIdleRooms()
+  {
+    var idleSince = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(roomIdleMillis);
+    // the history recorder's own subscription does not count as someone watching
+    var ownSubscriptions = history.isEnabled() ? 1 : 0;
+    rooms.forEach((gameId, opening) -> {
+      var room = opened(opening);
+      if (room != null
+          && !DEFAULT_GAME_ID.equals(gameId)
+          && room.getLastUsedNanos() - idleSince < 0
+          && room.getWatcherCount() <= ownSubscriptions
+          && rooms.remove(gameId, opening))
+      {
+        roomCount.decrementAndGet();
+        room.shutdown();
+        LOGGER.info("Shut down game room {}, idle for over {} ms", gameId, roomIdleMillis);
+      }
+    });
+  }
+
+  @PreDestroy
+  public void shutdown()
+  {
+    // rooms still being built are shut down as soon as they are
+    rooms.values().forEach(opening -> opening.thenAccept(GameCommandQueryService::shutdown));
+    for (var shard : shards)
+    {
+      shard.shutdownNow();
+    }
+  }
+
+  private GameCommandQueryService newRoom(String gameId)
+  {
+    var shard = shards[Math.floorMod(gameId.hashCode(), shards.length)];
+    var game = new Game(tickPeriodMillis, moleLifetimeMillis, shard, newCommandProcessor());
+    Journal journal = null;
+    RecoveredGame recovered = null;
+    if (journals.isEnabled())
+    {
+      journal = journals.open(gameId);
+      recovered = journal.recovered();
+      game.addOrderedListener(new GameJournaler(journal));
+    }
+
+    var room = new GameCommandQueryService(game, serviceExecutor, eventCapacity, journal);
+    if (history.isEnabled())
+    {
+      var roomHistory = history.forRoom(gameId);
+      game.addListener(roomHistory);
+      room.subscribe(new EventSubscription<>(eventCapacity,
+                                             SlowConsumerPolicy.DROP_OLDEST,
+                                             serviceExecutor,
+                                             roomHistory));
+    }
+
+    // only once everything is listening, so nothing the restored game does once it is ticking again goes unrecorded
+    if (recovered != null)
+    {
+      game.restore(recovered.getPlayers(), recovered.getActiveMoles(), recovered.isRunning())
+          .toCompletableFuture()
+          .join();
+    }
+    return room;
+  }
+
+  /**
+   * @return the room, once whoever is building it has, or the reason it could not be
+   */
+  private static GameCommandQueryService await(CompletableFuture<GameCommandQueryService> opening)
+  {
+    try
+    {
+      return opening.join();
+    }
+    catch (CompletionException e)
+    {
+      if (e.getCause() instanceof RuntimeException)
+      {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * @return the room if it has been built, otherwise null
+   */
+  private static GameCommandQueryService opened(CompletableFuture<GameCommandQueryService> opening)
+  {
+    return opening.isDone() && !opening.isCompletedExceptionally() ? opening.join() : null;
+  }
+
+  private void reserveRoom()
+  {
+    int count;
+    do
+    {
+      count = roomCount.get();
+      if (count >= maxRooms)
+      {
+        throw new GameRoomLimitExceededException("No more than " + maxRooms + " game rooms can be hosted");
+      }
+    }
+    while (!roomCount.compareAndSet(count, count + 1));
+  }
+
+  private CommandProcessor newCommandProcessor()
+  {
+    if (engineMode == EngineMode.SINGLE_WRITER)
+    {
+      return new SingleWriterCommandProcessor(commandQueueCapacity, gameExecutor);
+    }
+    else
+    {
+      return new ConcurrentCommandProcessor(gameExecutor);
+    }
+  }
+}
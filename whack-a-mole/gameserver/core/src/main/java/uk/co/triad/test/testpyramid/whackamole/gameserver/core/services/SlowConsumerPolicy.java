@@ -0,0 +1,16 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.services;
+
+/**
+ * What an {@link EventSubscription} does when its buffer is full because the subscriber is not keeping up.
+ */
+public enum SlowConsumerPolicy
+{
+  /**
+   * Discard the oldest buffered events; the subscriber sees a gap in the sequence numbers.
+   */
+  DROP_OLDEST,
+  /**
+   * Close the subscription; the subscriber reconnects and catches up from the event log.
+   */
+  DISCONNECT
+}
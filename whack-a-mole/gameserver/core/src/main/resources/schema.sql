@@ -0,0 +1,28 @@
+CREATE TABLE IF NOT EXISTS game_score
+(
+  id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+  game_id     VARCHAR(255) NOT NULL,
+  player_name VARCHAR(255) NOT NULL,
+  total       INT          NOT NULL,
+  reason      VARCHAR(16)  NOT NULL,
+  recorded_at TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS game_score_game_player ON game_score (game_id, player_name);
+
+CREATE INDEX IF NOT EXISTS game_score_recorded_at ON game_score (recorded_at);
+
+CREATE TABLE IF NOT EXISTS game_event
+(
+  id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+  game_id     VARCHAR(255) NOT NULL,
+  sequence    BIGINT       NOT NULL,
+  type        VARCHAR(32)  NOT NULL,
+  player_name VARCHAR(255),
+  mole_id     UUID,
+  occurred_at TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS game_event_game_sequence ON game_event (game_id, sequence);
+
+CREATE INDEX IF NOT EXISTS game_event_occurred_at ON game_event (occurred_at);
@@ -0,0 +1,34 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ETagsTest
+{
+  private static final String ETAG = ETags.of(0xabcL, 12L);
+
+  @Test
+  public void shouldQuoteEpochAndVersion()
+  {
+    assertEquals("\"abc-c\"", ETAG);
+    assertNotEquals(ETAG, ETags.of(0xabdL, 12L));
+  }
+
+  @Test
+  public void shouldMatchTagAmongOthersAndWeakly()
+  {
+    assertTrue(ETags.matches(ETAG, ETAG));
+    assertTrue(ETags.matches("\"abc-b\", " + ETAG, ETAG));
+    assertTrue(ETags.matches("W/" + ETAG, ETAG));
+    assertTrue(ETags.matches("*", ETAG));
+  }
+
+  @Test
+  public void shouldNotMatchMissingOrOtherTags()
+  {
+    assertFalse(ETags.matches(null, ETAG));
+    assertFalse(ETags.matches("\"abc-b\"", ETAG));
+    assertFalse(ETags.matches("abc-c", ETAG));
+  }
+}
@@ -0,0 +1,79 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.EventLog;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEvent;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEventType;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.EventSubscription;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameCommandQueryService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.SlowConsumerPolicy;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class EventStreamControllerTest
+{
+  private static final String URI_EVENT_STREAM = "/game/events/stream";
+  @Mock private GameCommandQueryService mockedGameCommandQueryService;
+  @Mock private GameRoomService mockedGameRoomService;
+  @Captor private ArgumentCaptor<EventSubscription<EventLog.Entry<GameEvent>>> subscription;
+  private MockMvc mockMvc;
+
+  @Before
+  public void setUp()
+  {
+    MockitoAnnotations.initMocks(this);
+    when(mockedGameRoomService.room(any())).thenReturn(mockedGameCommandQueryService);
+    var eventStreamController = new EventStreamController(mockedGameRoomService,
+                                                          Runnable::run,
+                                                          16,
+                                                          SlowConsumerPolicy.DROP_OLDEST,
+                                                          0L);
+    this.mockMvc = MockMvcBuilders.standaloneSetup(eventStreamController).build();
+  }
+
+  @Test
+  public void shouldPushEventsToSubscriber() throws Exception
+  {
+    var result = mockMvc.perform(get(URI_EVENT_STREAM).accept(TEXT_EVENT_STREAM))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+    verify(mockedGameCommandQueryService, times(1)).subscribe(subscription.capture());
+
+    var eventLog = new EventLog<GameEvent>(4);
+    subscription.getValue().offer(eventLog.append(GameEvent.newEvent(GameEventType.GAME_STARTED)));
+
+    var body = result.getResponse().getContentAsString();
+    assertTrue(body, body.contains("id:1"));
+    assertTrue(body, body.contains("event:" + SseEventSink.EVENT_NAME));
+    assertTrue(body, body.contains("\"event\":\"Game started!\""));
+  }
+
+  @Test
+  public void shouldStreamEventsOfNamedGame() throws Exception
+  {
+    mockMvc.perform(get("/game/room1/events/stream").accept(TEXT_EVENT_STREAM)).andExpect(request().asyncStarted());
+
+    verify(mockedGameRoomService, times(1)).room("room1");
+    verify(mockedGameCommandQueryService, times(1)).subscribe(any());
+  }
+}
@@ -1,31 +1,46 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.ApiMediaTypes;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.*;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.EventLog;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEvent;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEventType;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.MoleChanges;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerNotRegisteredException;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Score;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.WhackResult;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameCommandQueryService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomNotFoundException;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -39,6 +54,9 @@ public class GameControllerTest
   private static final String URI_MOLES = URI_BASE + "/moles";
   private static final String URI_EVENTS = URI_BASE + "/events";
   private static final String URI_SCORES = URI_BASE + "/scores";
+  private static final String URI_GAME_START = URI_BASE + "/room1/start";
+  // negative, so its hex is as long as an epoch's can be
+  private static final long EPOCH = -42L;
   private static final PlayerNameDto MOCK_PLAYER_1_NAME_DTO = new PlayerNameDto("dan");
   private static final PlayerNameDto MOCK_PLAYER_2_NAME_DTO = new PlayerNameDto("dave");
 
@@ -47,13 +65,17 @@ public class GameControllerTest
   private static final WhackDto MOCK_WHACK_DTO = new WhackDto(MOCK_PLAYER_NAME_DTO, MOCK_MOLE_DTO);
 
   @Mock private GameCommandQueryService mockedGameCommandQueryService;
+  @Mock private GameRoomService mockedGameRoomService;
   private MockMvc mockMvc;
+  @Autowired private WebApplicationContext webApplicationContext;
 
   @Before
   public void setUp()
   {
     MockitoAnnotations.initMocks(this);
-    var gameController = new GameController(mockedGameCommandQueryService);
+    when(mockedGameRoomService.room(any())).thenReturn(mockedGameCommandQueryService);
+    when(mockedGameRoomService.openRoom(any())).thenReturn(mockedGameCommandQueryService);
+    var gameController = new GameController(mockedGameRoomService);
     this.mockMvc = MockMvcBuilders.standaloneSetup(gameController).build();
   }
 
@@ -69,6 +91,54 @@ public class GameControllerTest
     verify(mockedGameCommandQueryService, times(1)).start();
   }
 
+  @Test
+  public void shouldStartNamedGame() throws Exception
+  {
+    when(mockedGameCommandQueryService.start()).thenReturn(CompletableFuture.completedFuture(null));
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(post(URI_GAME_START)).andReturn()))
+           .andDo(MockMvcResultHandlers.print())
+           .andExpect(status().isOk());
+
+    verify(mockedGameRoomService, times(1)).openRoom("room1");
+    verify(mockedGameCommandQueryService, times(1)).start();
+  }
+
+  @Test
+  public void shouldUseDefaultGameWhenNoneNamed() throws Exception
+  {
+    when(mockedGameCommandQueryService.start()).thenReturn(CompletableFuture.completedFuture(null));
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(post(URI_START)).andReturn()))
+           .andExpect(status().isOk());
+
+    verify(mockedGameRoomService, times(1)).openRoom(null);
+  }
+
+  @Test
+  public void shouldDocumentListsWrittenByHandAsListsOfTheirDtos() throws Exception
+  {
+    var schema = ".get.responses['200'].schema.items['$ref']";
+
+    MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                   .build()
+                   .perform(get("/v2/api-docs"))
+                   .andExpect(status().isOk())
+                   .andExpect(jsonPath("$.paths['/game/moles']" + schema).value("#/definitions/MoleIdDto"))
+                   .andExpect(jsonPath("$.paths['/game/scores']" + schema).value("#/definitions/PlayerScoreDto"))
+                   .andExpect(jsonPath("$.paths['/players']" + schema).value("#/definitions/PlayerNameDto"));
+  }
+
+  @Test
+  public void shouldReturnNotFoundForARoomNoOneHasOpened() throws Exception
+  {
+    when(mockedGameRoomService.room("nowhere")).thenThrow(new GameRoomNotFoundException("No game room nowhere"));
+
+    mockMvc.perform(get(URI_BASE + "/nowhere/moles")).andExpect(status().isNotFound());
+
+    verify(mockedGameRoomService, never()).openRoom(any());
+  }
+
   @Test
   public void shouldReturnOkWhenGameStopped() throws Exception
   {
@@ -88,7 +158,7 @@ public class GameControllerTest
     var mole2 = Mole.newMole();
     var moles = List.of(mole1, mole2);
 
-    when(mockedGameCommandQueryService.activeMoles()).thenReturn(CompletableFuture.completedFuture(moles));
+    when(mockedGameCommandQueryService.activeMoles(0L)).thenReturn(CompletableFuture.completedFuture(moles));
 
     var expectedResult = new ObjectMapper().writeValueAsString(List.of(new MoleIdDto(mole1.getId()),
                                                                        new MoleIdDto(mole2.getId())));
@@ -97,7 +167,85 @@ public class GameControllerTest
            .andExpect(status().isOk())
            .andExpect(content().json(expectedResult));
 
-    verify(mockedGameCommandQueryService, times(1)).activeMoles();
+    verify(mockedGameCommandQueryService, times(1)).activeMoles(0L);
+  }
+
+  @Test
+  public void shouldTagMolesWithTheirVersionAndAnswerNotModifiedWhileItHolds() throws Exception
+  {
+    when(mockedGameCommandQueryService.versionEpoch()).thenReturn(0xabcL);
+    when(mockedGameCommandQueryService.molesVersion()).thenReturn(5L);
+    when(mockedGameCommandQueryService.activeMoles(0L)).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_MOLES)).andReturn()))
+           .andExpect(status().isOk())
+           .andExpect(header().string(HttpHeaders.ETAG, "\"abc-5\""));
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_MOLES).header(HttpHeaders.IF_NONE_MATCH, "\"abc-5\""))
+                                         .andReturn()))
+           .andExpect(status().isNotModified())
+           .andExpect(header().string(HttpHeaders.ETAG, "\"abc-5\""))
+           .andExpect(content().string(""));
+
+    verify(mockedGameCommandQueryService, times(1)).activeMoles(0L);
+  }
+
+  @Test
+  public void shouldHoldAMatchingMolesRequestUntilTheMolesChangeWhenAskedToWait() throws Exception
+  {
+    var mole = Mole.newMole();
+    when(mockedGameCommandQueryService.versionEpoch()).thenReturn(0xabcL);
+    when(mockedGameCommandQueryService.molesVersion()).thenReturn(5L);
+    when(mockedGameCommandQueryService.molesVersionAfter(5L, 1000L)).thenReturn(CompletableFuture.completedFuture(5L))
+                                                                     .thenReturn(CompletableFuture.completedFuture(6L));
+    when(mockedGameCommandQueryService.activeMoles()).thenReturn(CompletableFuture.completedFuture(List.of(mole)));
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_MOLES).param("wait", "1000")
+                                                                .header(HttpHeaders.IF_NONE_MATCH, "\"abc-5\""))
+                                         .andReturn()))
+           .andExpect(status().isNotModified())
+           .andExpect(header().string(HttpHeaders.ETAG, "\"abc-5\""));
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_MOLES).param("wait", "1000")
+                                                                .header(HttpHeaders.IF_NONE_MATCH, "\"abc-5\""))
+                                         .andReturn()))
+           .andExpect(status().isOk())
+           .andExpect(header().string(HttpHeaders.ETAG, "\"abc-6\""))
+           .andExpect(jsonPath("$[0].moleId").value(mole.getId().toString()));
+
+    verify(mockedGameCommandQueryService, times(2)).molesVersionAfter(5L, 1000L);
+    verify(mockedGameCommandQueryService, never()).activeMoles(anyLong());
+  }
+
+  @Test
+  public void shouldAnswerInSmileWhenAskedFor() throws Exception
+  {
+    var mole = Mole.newMole();
+    when(mockedGameCommandQueryService.activeMoles(0L)).thenReturn(CompletableFuture.completedFuture(List.of(mole)));
+
+    var request = get(URI_MOLES).accept(ApiMediaTypes.APPLICATION_SMILE_VALUE);
+    var result = mockMvc.perform(asyncDispatch(mockMvc.perform(request).andReturn()))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentType(ApiMediaTypes.APPLICATION_SMILE_VALUE))
+                        .andReturn();
+
+    var moles = new ObjectMapper(new SmileFactory()).readValue(result.getResponse().getContentAsByteArray(),
+                                                              MoleIdDto[].class);
+    assertEquals(mole.getId(), moles[0].getMoleId());
+  }
+
+  @Test
+  public void shouldAcceptWhackSentInSmile() throws Exception
+  {
+    when(mockedGameCommandQueryService.whack(any(Mole.class),
+                                             any(Player.class))).thenReturn(CompletableFuture.completedFuture(Boolean.TRUE));
+
+    var postBody = new ObjectMapper(new SmileFactory()).writeValueAsBytes(MOCK_WHACK_DTO);
+    mockMvc.perform(asyncDispatch(mockMvc.perform(post(URI_MOLES).content(postBody)
+                                                                 .contentType(ApiMediaTypes.APPLICATION_SMILE_VALUE))
+                                         .andReturn()))
+           .andExpect(status().isOk());
+
+    verify(mockedGameCommandQueryService, times(1)).whack(eq(Mole.newMole(MOCK_MOLE_DTO.getMoleId())),
+                                                          eq(Player.newPlayer(MOCK_PLAYER_NAME_DTO.getPlayerName())));
   }
 
   @Test
@@ -115,6 +263,40 @@ public class GameControllerTest
     verify(mockedGameCommandQueryService, times(1)).whack(any(Mole.class), any(Player.class));
   }
 
+  @Test
+  public void shouldWhackAsThePlayerRegisteredUnderAHandle() throws Exception
+  {
+    var player = Player.newPlayer(MOCK_PLAYER_NAME_DTO.getPlayerName());
+    when(mockedGameCommandQueryService.player(7L)).thenReturn(player);
+    when(mockedGameCommandQueryService.whack(any(Mole.class),
+                                             any(Player.class))).thenReturn(CompletableFuture.completedFuture(Boolean.TRUE));
+
+    var postBody = new ObjectMapper().writeValueAsString(new WhackDto(7L, MOCK_MOLE_DTO));
+    mockMvc.perform(asyncDispatch(mockMvc.perform(post(URI_MOLES).content(postBody)
+                                                                 .contentType(MediaType.APPLICATION_JSON)).andReturn()))
+           .andExpect(status().isOk());
+
+    verify(mockedGameCommandQueryService, times(1)).whack(eq(Mole.newMole(MOCK_MOLE_DTO.getMoleId())), same(player));
+  }
+
+  @Test
+  public void shouldReturnBadRequestForWhackByUnknownHandle() throws Exception
+  {
+    var postBody = new ObjectMapper().writeValueAsString(new WhackDto(7L, MOCK_MOLE_DTO));
+    mockMvc.perform(asyncDispatch(mockMvc.perform(post(URI_MOLES).content(postBody)
+                                                                 .contentType(MediaType.APPLICATION_JSON)).andReturn()))
+           .andExpect(status().isBadRequest());
+
+    var batchBody = new ObjectMapper().writeValueAsString(List.of(MOCK_WHACK_DTO, new WhackDto(7L, MOCK_MOLE_DTO)));
+    mockMvc.perform(asyncDispatch(mockMvc.perform(post(URI_MOLES + "/batch").content(batchBody)
+                                                                            .contentType(MediaType.APPLICATION_JSON))
+                                         .andReturn()))
+           .andExpect(status().isBadRequest());
+
+    verify(mockedGameCommandQueryService, never()).whack(any(Mole.class), any(Player.class));
+    verify(mockedGameCommandQueryService, never()).whackAll(anyList());
+  }
+
   @Test
   public void shouldReturnNotFoundForAttemptedWhackOnNonExistentMole() throws Exception
   {
@@ -162,24 +344,212 @@ public class GameControllerTest
     verify(mockedGameCommandQueryService, times(1)).whack(any(Mole.class), any(Player.class));
   }
 
+  @Test
+  public void shouldReturnAResultForEachWhackInABatch() throws Exception
+  {
+    when(mockedGameCommandQueryService.whackAll(anyList())).thenReturn(CompletableFuture.completedFuture(List.of(
+        WhackResult.HIT,
+        WhackResult.NOT_REGISTERED)));
+
+    var postBody = new ObjectMapper().writeValueAsString(List.of(MOCK_WHACK_DTO, MOCK_WHACK_DTO));
+    mockMvc.perform(asyncDispatch(mockMvc.perform(post(URI_MOLES + "/batch").content(postBody)
+                                                                            .contentType(MediaType.APPLICATION_JSON))
+                                         .andReturn()))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$[0].moleId").value(MOCK_MOLE_DTO.getMoleId().toString()))
+           .andExpect(jsonPath("$[0].result").value("HIT"))
+           .andExpect(jsonPath("$[1].result").value("NOT_REGISTERED"));
+
+    verify(mockedGameCommandQueryService, times(1)).whackAll(anyList());
+    verify(mockedGameCommandQueryService, never()).whack(any(Mole.class), any(Player.class));
+  }
+
+  @Test
+  public void shouldReturnMoleChangesSinceVersion() throws Exception
+  {
+    var added = Mole.newMole();
+    var removed = Mole.newMole();
+    var changes = new MoleChanges(EPOCH, 5L, false, List.of(added), List.of(removed));
+    when(mockedGameCommandQueryService.molesSince(EPOCH, 3L, 0L)).thenReturn(CompletableFuture.completedFuture(
+        changes));
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_MOLES).param("sinceEpoch", Epochs.format(EPOCH))
+                                                                .param("sinceVersion", "3")).andReturn()))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.epoch").value(Epochs.format(EPOCH)))
+           .andExpect(jsonPath("$.version").value(5))
+           .andExpect(jsonPath("$.snapshot").value(false))
+           .andExpect(jsonPath("$.added[0].moleId").value(added.getId().toString()))
+           .andExpect(jsonPath("$.removed[0].moleId").value(removed.getId().toString()));
+
+    verify(mockedGameCommandQueryService, never()).activeMoles(anyLong());
+  }
+
+  @Test
+  public void shouldReturnNotModifiedWhenMolesUnchangedSinceVersion() throws Exception
+  {
+    var changes = new MoleChanges(EPOCH, 5L, false, List.of(), List.of());
+    when(mockedGameCommandQueryService.molesSince(EPOCH, 5L, 0L)).thenReturn(CompletableFuture.completedFuture(
+        changes));
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_MOLES).param("sinceEpoch", Epochs.format(EPOCH))
+                                                                .param("sinceVersion", "5")).andReturn()))
+           .andExpect(status().isNotModified());
+  }
+
+  @Test
+  public void shouldReturnBadRequestForNegativeMolesVersion() throws Exception
+  {
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_MOLES).param("sinceEpoch", Epochs.format(EPOCH))
+                                                                .param("sinceVersion", "-1")).andReturn()))
+           .andExpect(status().isBadRequest());
+
+    verify(mockedGameCommandQueryService, never()).molesSince(anyLong(), anyLong(), anyLong());
+  }
+
+  @Test
+  public void shouldReturnBadRequestForAMolesVersionWithoutItsEpoch() throws Exception
+  {
+    mockMvc.perform(get(URI_MOLES).param("sinceVersion", "3")).andExpect(status().isBadRequest());
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_MOLES).param("sinceEpoch", "not-hex")
+                                                                .param("sinceVersion", "3")).andReturn()))
+           .andExpect(status().isBadRequest());
+
+    verify(mockedGameCommandQueryService, never()).molesSince(anyLong(), anyLong(), anyLong());
+  }
+
+  @Test
+  public void shouldCapHowLongAMolesRequestWaits() throws Exception
+  {
+    var changes = new MoleChanges(EPOCH, 5L, false, List.of(), List.of());
+    when(mockedGameCommandQueryService.molesSince(anyLong(), anyLong(), anyLong()))
+        .thenReturn(CompletableFuture.completedFuture(changes));
+    var gameController = new GameController(mockedGameRoomService, 100L);
+
+    gameController.listMolesSince(null, Epochs.format(EPOCH), 5L, 60000L);
+
+    verify(mockedGameCommandQueryService, times(1)).molesSince(EPOCH, 5L, 100L);
+  }
+
+  @Test
+  public void shouldReturnBadRequestForNegativeWait() throws Exception
+  {
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_EVENTS).param("wait", "-1")).andReturn()))
+           .andExpect(status().isBadRequest());
+
+    verify(mockedGameCommandQueryService, never()).getUnreadEvents(anyLong());
+  }
+
   @Test
   public void shouldReturnOkAndListOfGameEvents() throws Exception
   {
-    var event1 = "event1";
-    var event2 = "event2";
-    var event3 = "event3";
-    var events = List.of(event1, event2, event3);
-    when(mockedGameCommandQueryService.getUnreadEvents()).thenReturn(CompletableFuture.completedFuture(events));
+    var player = Player.newPlayer(MOCK_PLAYER_1_NAME_DTO.getPlayerName());
+    var mole = Mole.newMole();
+    var eventLog = new EventLog<GameEvent>(3);
+    eventLog.append(GameEvent.newEvent(GameEventType.GAME_STARTED));
+    eventLog.append(GameEvent.newEvent(GameEventType.PLAYER_JOINED, player));
+    eventLog.append(GameEvent.newEvent(GameEventType.MOLE_HIT, player, mole));
+    var events = eventLog.readAfter(0L).getEntries();
+    when(mockedGameCommandQueryService.getUnreadEvents(0L)).thenReturn(CompletableFuture.completedFuture(events));
 
-    var expectedResult = new ObjectMapper().writeValueAsString(List.of(new EventDto(event1),
-                                                                       new EventDto(event2),
-                                                                       new EventDto(event3)));
     mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_EVENTS)).andReturn()))
            .andDo(MockMvcResultHandlers.print())
            .andExpect(status().isOk())
-           .andExpect(content().json(expectedResult));
+           .andExpect(jsonPath("$[0].sequence").value(1))
+           .andExpect(jsonPath("$[0].type").value("GAME_STARTED"))
+           .andExpect(jsonPath("$[0].event").value("Game started!"))
+           .andExpect(jsonPath("$[1].playerName").value(player.getName()))
+           .andExpect(jsonPath("$[2].type").value("MOLE_HIT"))
+           .andExpect(jsonPath("$[2].moleId").value(mole.getId().toString()))
+           .andExpect(jsonPath("$[2].event").value(player.getName() + " hit mole " + mole.getId()));
+
+    verify(mockedGameCommandQueryService, times(1)).getUnreadEvents(0L);
+  }
+
+  @Test
+  public void shouldReturnEventsAfterSequence() throws Exception
+  {
+    var eventLog = new EventLog<GameEvent>(2);
+    List.of(GameEventType.GAME_STARTED, GameEventType.GAME_STOPPED, GameEventType.GAME_STARTED)
+        .forEach(type -> eventLog.append(GameEvent.newEvent(type)));
+    when(mockedGameCommandQueryService.versionEpoch()).thenReturn(EPOCH);
+    when(mockedGameCommandQueryService.getEventsAfter(EPOCH, 0L, 0L)).thenReturn(CompletableFuture.completedFuture(
+        eventLog.readAfter(0L)));
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_EVENTS).param("after", "0")).andReturn()))
+           .andDo(MockMvcResultHandlers.print())
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.events[0].sequence").value(2))
+           .andExpect(jsonPath("$.events[0].type").value("GAME_STOPPED"))
+           .andExpect(jsonPath("$.events[1].sequence").value(3))
+           .andExpect(jsonPath("$.lastSequence").value(3))
+           .andExpect(jsonPath("$.missed").value(1))
+           .andExpect(jsonPath("$.epoch").value(Epochs.format(EPOCH)))
+           .andExpect(jsonPath("$.reset").value(false));
+
+    verify(mockedGameCommandQueryService, times(1)).getEventsAfter(EPOCH, 0L, 0L);
+    verify(mockedGameCommandQueryService, never()).getUnreadEvents(anyLong());
+  }
+
+  @Test
+  public void shouldPassTheEpochOfAnEventsCursorOnSoAStaleOneIsReset() throws Exception
+  {
+    var eventLog = new EventLog<GameEvent>(2);
+    eventLog.append(GameEvent.newEvent(GameEventType.GAME_STARTED));
+    when(mockedGameCommandQueryService.versionEpoch()).thenReturn(EPOCH);
+    when(mockedGameCommandQueryService.getEventsAfter(0x2aL, 9L, 0L)).thenReturn(CompletableFuture.completedFuture(
+        eventLog.readAfter(9L)));
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_EVENTS).param("afterEpoch", "2a").param("after", "9"))
+                                         .andReturn()))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.events[0].sequence").value(1))
+           .andExpect(jsonPath("$.lastSequence").value(1))
+           .andExpect(jsonPath("$.epoch").value(Epochs.format(EPOCH)))
+           .andExpect(jsonPath("$.reset").value(true));
+  }
+
+  @Test
+  public void shouldReturnBadRequestForAMalformedEventsEpoch() throws Exception
+  {
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_EVENTS).param("afterEpoch", "not-hex").param("after", "0"))
+                                         .andReturn()))
+           .andExpect(status().isBadRequest());
+
+    verify(mockedGameCommandQueryService, never()).getEventsAfter(anyLong(), anyLong(), anyLong());
+  }
+
+  @Test
+  public void shouldFindEventsByPlayerTypeAndTimeWithoutReadingUnread() throws Exception
+  {
+    var player = Player.newPlayer(MOCK_PLAYER_1_NAME_DTO.getPlayerName());
+    var eventLog = new EventLog<GameEvent>(1);
+    eventLog.append(GameEvent.newEvent(GameEventType.MOLE_HIT, player, Mole.newMole()));
+    when(mockedGameCommandQueryService.findEvents(player.getName(), GameEventType.MOLE_HIT, 1000L, Long.MAX_VALUE))
+        .thenReturn(CompletableFuture.completedFuture(eventLog.readAfter(0L).getEntries()));
+    when(mockedGameCommandQueryService.eventsHeldFromMillis()).thenReturn(500L);
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_EVENTS).param("player", player.getName())
+                                                                  .param("type", "MOLE_HIT")
+                                                                  .param("from", "1000")).andReturn()))
+           .andExpect(status().isOk())
+           .andExpect(header().string("Events-Held-From", "500"))
+           .andExpect(jsonPath("$[0].type").value("MOLE_HIT"))
+           .andExpect(jsonPath("$[0].playerName").value(player.getName()));
 
-    verify(mockedGameCommandQueryService, times(1)).getUnreadEvents();
+    verify(mockedGameCommandQueryService, never()).getUnreadEvents(anyLong());
+  }
+
+  @Test
+  public void shouldReturnBadRequestForUnknownEventTypeOrBackwardsTimeRange() throws Exception
+  {
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_EVENTS).param("type", "NOT_A_TYPE")).andReturn()))
+           .andExpect(status().isBadRequest());
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_EVENTS).param("from", "2000")
+                                                                  .param("to", "1000")).andReturn()))
+           .andExpect(status().isBadRequest());
+
+    verify(mockedGameCommandQueryService, never()).findEvents(any(), any(), anyLong(), anyLong());
   }
 
   @Test
@@ -210,4 +580,94 @@ public class GameControllerTest
 
     verify(mockedGameCommandQueryService, times(1)).activePlayers();
   }
+
+  @Test
+  public void shouldReturnTopRankedPlayersScores() throws Exception
+  {
+    var player = new Player(MOCK_PLAYER_2_NAME_DTO.getPlayerName(), new Score(20));
+    when(mockedGameCommandQueryService.rankedPlayers(0, 1)).thenReturn(CompletableFuture.completedFuture(List.of(
+        player)));
+
+    var expectedResult = new ObjectMapper().writeValueAsString(List.of(new PlayerScoreDto(player.getName(), 20)));
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_SCORES).param("top", "1")).andReturn()))
+           .andDo(MockMvcResultHandlers.print())
+           .andExpect(status().isOk())
+           .andExpect(content().json(expectedResult));
+
+    verify(mockedGameCommandQueryService, times(1)).rankedPlayers(0, 1);
+    verify(mockedGameCommandQueryService, never()).activePlayers();
+  }
+
+  @Test
+  public void shouldReturnPageOfRankedPlayersScores() throws Exception
+  {
+    when(mockedGameCommandQueryService.rankedPlayers(20, 10)).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_SCORES).param("from", "20").param("size", "10"))
+                                         .andReturn()))
+           .andExpect(status().isOk());
+
+    verify(mockedGameCommandQueryService, times(1)).rankedPlayers(20, 10);
+  }
+
+  @Test
+  public void shouldAnswerNotModifiedForScoresUntilSomeoneScores() throws Exception
+  {
+    when(mockedGameCommandQueryService.scoresVersion()).thenReturn(3L, 4L);
+    when(mockedGameCommandQueryService.rankedPlayers(0, 10)).thenReturn(CompletableFuture.completedFuture(List.of()));
+    var etag = "W/\"0-3\"";
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_SCORES).param("top", "10")
+                                                                 .header(HttpHeaders.IF_NONE_MATCH, etag))
+                                         .andReturn()))
+           .andExpect(status().isNotModified());
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_SCORES).param("top", "10")
+                                                                 .header(HttpHeaders.IF_NONE_MATCH, etag))
+                                         .andReturn()))
+           .andExpect(status().isOk())
+           .andExpect(header().string(HttpHeaders.ETAG, "\"0-4\""));
+
+    verify(mockedGameCommandQueryService, times(1)).rankedPlayers(0, 10);
+  }
+
+  @Test
+  public void shouldHoldAMatchingScoresRequestUntilSomeoneScoresWhenAskedToWait() throws Exception
+  {
+    when(mockedGameCommandQueryService.scoresVersion()).thenReturn(3L);
+    when(mockedGameCommandQueryService.scoresVersionAfter(3L, 1000L))
+        .thenReturn(CompletableFuture.completedFuture(3L))
+        .thenReturn(CompletableFuture.completedFuture(4L));
+    when(mockedGameCommandQueryService.rankedPlayers(0, 10)).thenReturn(CompletableFuture.completedFuture(List.of()));
+    var etag = "W/\"0-3\"";
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_SCORES).param("top", "10")
+                                                                 .param("wait", "1000")
+                                                                 .header(HttpHeaders.IF_NONE_MATCH, etag))
+                                         .andReturn()))
+           .andExpect(status().isNotModified());
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_SCORES).param("top", "10")
+                                                                 .param("wait", "1000")
+                                                                 .header(HttpHeaders.IF_NONE_MATCH, etag))
+                                         .andReturn()))
+           .andExpect(status().isOk())
+           .andExpect(header().string(HttpHeaders.ETAG, "\"0-4\""));
+
+    verify(mockedGameCommandQueryService, times(1)).rankedPlayers(0, 10);
+  }
+
+  @Test
+  public void shouldReturnBadRequestForNegativeScoresWait() throws Exception
+  {
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_SCORES).param("wait", "-1")).andReturn()))
+           .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void shouldReturnBadRequestForNegativeRankRange() throws Exception
+  {
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_SCORES).param("top", "-1")).andReturn()))
+           .andExpect(status().isBadRequest());
+
+    verify(mockedGameCommandQueryService, never()).rankedPlayers(anyInt(), anyInt());
+  }
 }
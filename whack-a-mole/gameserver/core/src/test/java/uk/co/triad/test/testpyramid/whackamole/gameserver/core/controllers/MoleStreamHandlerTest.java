@@ -0,0 +1,130 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleDeltaDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameListener;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameCommandQueryService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleDeltaDto.Type.*;
+
+public class MoleStreamHandlerTest
+{
+  private static final String URI_MOLE_STREAM = "ws://localhost/game/moles/stream";
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  @Mock private GameCommandQueryService mockedGameCommandQueryService;
+  @Mock private GameRoomService mockedGameRoomService;
+  @Mock private WebSocketSession mockedSession;
+  private MoleStreamHandler moleStreamHandler;
+  private List<MoleDeltaDto> sent;
+
+  @Before
+  public void setUp() throws IOException
+  {
+    MockitoAnnotations.initMocks(this);
+    when(mockedGameRoomService.room(any())).thenReturn(mockedGameCommandQueryService);
+    when(mockedSession.getUri()).thenReturn(URI.create(URI_MOLE_STREAM));
+    when(mockedSession.getAttributes()).thenReturn(new HashMap<>());
+    sent = new ArrayList<>();
+    doAnswer(invocation -> {
+      TextMessage message = invocation.getArgument(0);
+      sent.add(objectMapper.readValue(message.getPayload(), MoleDeltaDto.class));
+      return null;
+    }).when(mockedSession).sendMessage(any());
+    moleStreamHandler = new MoleStreamHandler(mockedGameRoomService, Runnable::run, objectMapper, 16);
+  }
+
+  @Test
+  public void shouldSendActiveMolesThenDeltas()
+  {
+    var activeMole = Mole.newMole();
+    var spawnedMole = Mole.newMole();
+    when(mockedGameCommandQueryService.activeMoles()).thenReturn(CompletableFuture.completedFuture(List.of(activeMole)));
+
+    moleStreamHandler.afterConnectionEstablished(mockedSession);
+    var listener = captureListener();
+    listener.moleSpawned(spawnedMole);
+    listener.moleWhacked(activeMole, Player.newPlayer("dan"), 10);
+    listener.moleExpired(spawnedMole);
+    listener.molesCleared();
+
+    assertDeltas(List.of(SPAWNED, SPAWNED, WHACKED, EXPIRED, CLEARED), sent);
+    assertEquals(activeMole.getId(), sent.get(0).getMoleId());
+    assertEquals(spawnedMole.getId(), sent.get(1).getMoleId());
+  }
+
+  @Test
+  public void shouldHoldBackDeltasUntilActiveMolesAreSent()
+  {
+    var activeMoles = new CompletableFuture<List<Mole>>();
+    var whackedMole = Mole.newMole();
+    when(mockedGameCommandQueryService.activeMoles()).thenReturn(activeMoles);
+
+    moleStreamHandler.afterConnectionEstablished(mockedSession);
+    captureListener().moleWhacked(whackedMole, Player.newPlayer("dan"), 10);
+    assertEquals(0, sent.size());
+
+    activeMoles.complete(List.of(whackedMole));
+
+    assertDeltas(List.of(SPAWNED, WHACKED), sent);
+  }
+
+  @Test
+  public void shouldStreamMolesOfNamedGame()
+  {
+    when(mockedSession.getUri()).thenReturn(URI.create("ws://localhost/game/room1/moles/stream"));
+    when(mockedGameCommandQueryService.activeMoles()).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+    moleStreamHandler.afterConnectionEstablished(mockedSession);
+
+    verify(mockedGameRoomService, times(1)).room("room1");
+  }
+
+  @Test
+  public void shouldStopListeningWhenConnectionClosed()
+  {
+    when(mockedGameCommandQueryService.activeMoles()).thenReturn(CompletableFuture.completedFuture(List.of()));
+    moleStreamHandler.afterConnectionEstablished(mockedSession);
+    var listener = captureListener();
+
+    moleStreamHandler.afterConnectionClosed(mockedSession, CloseStatus.NORMAL);
+    listener.moleSpawned(Mole.newMole());
+
+    verify(mockedGameCommandQueryService, times(1)).removeListener(listener);
+    assertEquals(0, sent.size());
+  }
+
+  private GameListener captureListener()
+  {
+    var listener = ArgumentCaptor.forClass(GameListener.class);
+    verify(mockedGameCommandQueryService, times(1)).addListener(listener.capture());
+    return listener.getValue();
+  }
+
+  private static void assertDeltas(List<MoleDeltaDto.Type> expected, List<MoleDeltaDto> actual)
+  {
+    var types = new ArrayList<MoleDeltaDto.Type>();
+    actual.forEach(delta -> types.add(delta.getType()));
+    assertEquals(expected, types);
+  }
+}
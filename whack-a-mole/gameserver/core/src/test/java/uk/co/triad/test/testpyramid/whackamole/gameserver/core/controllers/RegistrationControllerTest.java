@@ -1,6 +1,7 @@
 package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -8,16 +9,19 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.ApiMediaTypes;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerNameDto;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerAlreadyRegisteredException;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerNotRegisteredException;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameCommandQueryService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -26,6 +30,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -36,35 +42,70 @@ public class RegistrationControllerTest
   private static final PlayerNameDto MOCK_PLAYER_1_NAME_DTO = new PlayerNameDto("dan");
   private static final PlayerNameDto MOCK_PLAYER_2_NAME_DTO = new PlayerNameDto("dave");
   private static final String URI_BASE = "/players";
+  private static final String URI_GAME_PLAYERS = "/game/room1/players";
   @Mock private GameCommandQueryService mockedGameCommandQueryService;
+  @Mock private GameRoomService mockedGameRoomService;
   private MockMvc mockMvc;
 
   @Before
   public void setUp()
   {
     MockitoAnnotations.initMocks(this);
-    var registrationController = new RegistrationController(mockedGameCommandQueryService);
+    when(mockedGameRoomService.room(any())).thenReturn(mockedGameCommandQueryService);
+    when(mockedGameRoomService.openRoom(any())).thenReturn(mockedGameCommandQueryService);
+    var registrationController = new RegistrationController(mockedGameRoomService);
     this.mockMvc = MockMvcBuilders.standaloneSetup(registrationController).build();
   }
 
   @Test
-  public void shouldReturnOkWhenNewPlayerRegistered() throws Exception
+  public void shouldReturnOkWithPlayerHandleWhenNewPlayerRegistered() throws Exception
   {
-    when(mockedGameCommandQueryService.register(any(Player.class))).thenReturn(CompletableFuture.completedFuture(null));
+    when(mockedGameCommandQueryService.register(any(Player.class))).thenReturn(CompletableFuture.completedFuture(7L));
 
     var postBody = new ObjectMapper().writeValueAsString(MOCK_PLAYER_1_NAME_DTO);
     mockMvc.perform(asyncDispatch(mockMvc.perform(post(URI_BASE).content(postBody)
                                                                 .contentType(MediaType.APPLICATION_JSON)).andReturn()))
            .andDo(MockMvcResultHandlers.print())
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.playerHandle").value(7));
+
+    verify(mockedGameCommandQueryService, times(1)).register(any(Player.class));
+  }
+
+  @Test
+  public void shouldRegisterPlayerSentInSmile() throws Exception
+  {
+    when(mockedGameCommandQueryService.register(any(Player.class))).thenReturn(CompletableFuture.completedFuture(1L));
+
+    var postBody = new ObjectMapper(new SmileFactory()).writeValueAsBytes(MOCK_PLAYER_1_NAME_DTO);
+    mockMvc.perform(asyncDispatch(mockMvc.perform(post(URI_BASE).content(postBody)
+                                                                .contentType(ApiMediaTypes.APPLICATION_SMILE_VALUE))
+                                         .andReturn()))
            .andExpect(status().isOk());
 
+    verify(mockedGameCommandQueryService, times(1)).register(Player.newPlayer(MOCK_PLAYER_1_NAME_DTO.getPlayerName()));
+  }
+
+  @Test
+  public void shouldRegisterPlayerInNamedGame() throws Exception
+  {
+    when(mockedGameCommandQueryService.register(any(Player.class))).thenReturn(CompletableFuture.completedFuture(1L));
+
+    var postBody = new ObjectMapper().writeValueAsString(MOCK_PLAYER_1_NAME_DTO);
+    mockMvc.perform(asyncDispatch(mockMvc.perform(post(URI_GAME_PLAYERS).content(postBody)
+                                                                        .contentType(MediaType.APPLICATION_JSON))
+                                         .andReturn()))
+           .andDo(MockMvcResultHandlers.print())
+           .andExpect(status().isOk());
+
+    verify(mockedGameRoomService, times(1)).openRoom("room1");
     verify(mockedGameCommandQueryService, times(1)).register(any(Player.class));
   }
 
   @Test
   public void shouldReturnConflictWhenPlayerDoubleRegistered() throws Exception
   {
-    var failFlow = new CompletableFuture<Void>();
+    var failFlow = new CompletableFuture<Long>();
     failFlow.completeExceptionally(new PlayerAlreadyRegisteredException("TestDuplicatedPlayer"));
     when(mockedGameCommandQueryService.register(any(Player.class))).thenReturn(failFlow);
 
@@ -80,7 +121,7 @@ public class RegistrationControllerTest
   @Test
   public void shouldReturnServerErrorForRegisterUnexpectedException() throws Exception
   {
-    var failFlow = new CompletableFuture<Void>();
+    var failFlow = new CompletableFuture<Long>();
     failFlow.completeExceptionally(new Exception("You didn't expect me, did you?"));
     when(mockedGameCommandQueryService.register(any(Player.class))).thenReturn(failFlow);
 
@@ -158,4 +199,18 @@ public class RegistrationControllerTest
 
     verify(mockedGameCommandQueryService, times(1)).activePlayers();
   }
+
+  @Test
+  public void shouldAnswerNotModifiedForPlayersUntilSomeoneJoinsOrLeaves() throws Exception
+  {
+    when(mockedGameCommandQueryService.versionEpoch()).thenReturn(1L);
+    when(mockedGameCommandQueryService.playersVersion()).thenReturn(2L);
+
+    mockMvc.perform(asyncDispatch(mockMvc.perform(get(URI_BASE).header(HttpHeaders.IF_NONE_MATCH, "\"1-1\", \"1-2\""))
+                                         .andReturn()))
+           .andExpect(status().isNotModified())
+           .andExpect(header().string(HttpHeaders.ETAG, "\"1-2\""));
+
+    verify(mockedGameCommandQueryService, never()).activePlayers();
+  }
 }
@@ -11,13 +11,18 @@ import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.GameC
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerNotRegisteredException;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Whack;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.WhackResult;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameCommandQueryService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
@@ -26,13 +31,16 @@ import static org.mockito.Mockito.when;
 public abstract class GameContractBaseTest
 {
   @Mock private GameCommandQueryService mockedGameCommandQueryService;
+  @Mock private GameRoomService mockedGameRoomService;
 
   @Before
   public void setUp()
   {
-    RestAssuredMockMvc.standaloneSetup(new GameController(mockedGameCommandQueryService));
+    when(mockedGameRoomService.room(any())).thenReturn(mockedGameCommandQueryService);
+    RestAssuredMockMvc.standaloneSetup(new GameController(mockedGameRoomService));
     mockListMoles();
     mockWhackMole();
+    mockWhackMoles();
   }
 
   private void mockListMoles()
@@ -40,7 +48,7 @@ public abstract class GameContractBaseTest
     var mole1 = Mole.newMole();
     var mole2 = Mole.newMole();
     var moles = List.of(mole1, mole2);
-    when(mockedGameCommandQueryService.activeMoles()).thenReturn(CompletableFuture.completedFuture(moles));
+    when(mockedGameCommandQueryService.activeMoles(0L)).thenReturn(CompletableFuture.completedFuture(moles));
   }
 
   private void mockWhackMole()
@@ -57,4 +65,19 @@ public abstract class GameContractBaseTest
     when(mockedGameCommandQueryService.whack(any(Mole.class), eq(Player.newPlayer("nonExistentPlayer")))).thenReturn(
         failWhack);
   }
+
+  private void mockWhackMoles()
+  {
+    var nonExistentMoleId = UUID.fromString("00000000-0000-0000-0000-000000000000");
+    when(mockedGameCommandQueryService.whackAll(anyList())).thenAnswer(invocation -> {
+      List<Whack> whacks = invocation.getArgument(0);
+      return CompletableFuture.completedFuture(whacks.stream().map(whack -> {
+        if (whack.getPlayer().equals(Player.newPlayer("nonExistentPlayer")))
+        {
+          return WhackResult.NOT_REGISTERED;
+        }
+        return nonExistentMoleId.equals(whack.getMole().getId()) ? WhackResult.MISSED : WhackResult.HIT;
+      }).collect(Collectors.toList()));
+    });
+  }
 }
@@ -12,6 +12,7 @@ import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerAlreadyRegisteredException;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerNotRegisteredException;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameCommandQueryService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
 
 import java.util.concurrent.CompletableFuture;
 
@@ -23,20 +24,23 @@ import static org.mockito.Mockito.when;
 public abstract class RegistrationContractBaseTest
 {
   @Mock private GameCommandQueryService mockedGameCommandQueryService;
+  @Mock private GameRoomService mockedGameRoomService;
 
   @Before
   public void setUp()
   {
-    RestAssuredMockMvc.standaloneSetup(new RegistrationController(mockedGameCommandQueryService));
+    when(mockedGameRoomService.room(any())).thenReturn(mockedGameCommandQueryService);
+    when(mockedGameRoomService.openRoom(any())).thenReturn(mockedGameCommandQueryService);
+    RestAssuredMockMvc.standaloneSetup(new RegistrationController(mockedGameRoomService));
     mockRegister();
     mockDeregister();
   }
 
   private void mockRegister()
   {
-    when(mockedGameCommandQueryService.register(any(Player.class))).thenReturn(CompletableFuture.completedFuture(null));
+    when(mockedGameCommandQueryService.register(any(Player.class))).thenReturn(CompletableFuture.completedFuture(42L));
 
-    var failRegistration = new CompletableFuture<Void>();
+    var failRegistration = new CompletableFuture<Long>();
     failRegistration.completeExceptionally(new PlayerAlreadyRegisteredException("TestDuplicatedPlayer"));
     when(mockedGameCommandQueryService.register(Player.newPlayer("existentPlayer"))).thenReturn(failRegistration);
   }
@@ -0,0 +1,104 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.EventDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleIdDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerNameDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerScoreDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.WhackDto;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Payload size and encode/decode time of the API's DTOs as JSON and as Smile, for lists the size of a busy game's
+ * responses. The times are logged rather than asserted, as they depend on the machine.
+ */
+public class DtoEncodingBenchmarkTest
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(DtoEncodingBenchmarkTest.class);
+  private static final int ITEMS = 100;
+  private static final int ROUNDS = 2000;
+  private final ObjectMapper json = new ObjectMapper();
+  private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+  @Test
+  public void shouldEncodeMolesSmallerInSmile() throws IOException
+  {
+    compare("moles", items(i -> new MoleIdDto(UUID.randomUUID())), MoleIdDto.class);
+  }
+
+  @Test
+  public void shouldEncodeWhacksSmallerInSmile() throws IOException
+  {
+    compare("whacks",
+            items(i -> new WhackDto(new PlayerNameDto("player" + i % 4), new MoleIdDto(UUID.randomUUID()))),
+            WhackDto.class);
+  }
+
+  @Test
+  public void shouldEncodeScoresSmallerInSmile() throws IOException
+  {
+    compare("scores", items(i -> new PlayerScoreDto("player" + i, i * 10)), PlayerScoreDto.class);
+  }
+
+  @Test
+  public void shouldEncodeEventsSmallerInSmile() throws IOException
+  {
+    compare("events", items(i -> {
+      var moleId = UUID.randomUUID();
+      return new EventDto(i, "MOLE_HIT", "player" + i % 4, moleId, 1580000000000L + i, "player hit mole " + moleId);
+    }), EventDto.class);
+  }
+
+  private <T> void compare(String name, List<T> dtos, Class<T> type) throws IOException
+  {
+    var jsonBytes = json.writeValueAsBytes(dtos);
+    var smileBytes = smile.writeValueAsBytes(dtos);
+    var jsonNanos = time(json, dtos, type);
+    var smileNanos = time(smile, dtos, type);
+
+    LOGGER.info("{} {}: JSON {} bytes, encode+decode {} us; Smile {} bytes, encode+decode {} us",
+                ITEMS,
+                name,
+                jsonBytes.length,
+                jsonNanos / 1000,
+                smileBytes.length,
+                smileNanos / 1000);
+    assertTrue(smileBytes.length < jsonBytes.length);
+  }
+
+  /**
+   * @return the average time to encode and decode the list, after a warm-up of the same length
+   */
+  private <T> long time(ObjectMapper mapper, List<T> dtos, Class<T> type) throws IOException
+  {
+    var listType = TypeFactory.defaultInstance().constructCollectionType(List.class, type);
+    for (var i = 0; i < ROUNDS; i++)
+    {
+      mapper.readValue(mapper.writeValueAsBytes(dtos), listType);
+    }
+    var started = System.nanoTime();
+    for (var i = 0; i < ROUNDS; i++)
+    {
+      mapper.readValue(mapper.writeValueAsBytes(dtos), listType);
+    }
+    return (System.nanoTime() - started) / ROUNDS;
+  }
+
+  private static <T> List<T> items(IntFunction<T> item)
+  {
+    return IntStream.range(0, ITEMS).mapToObj(item).collect(Collectors.toList());
+  }
+}
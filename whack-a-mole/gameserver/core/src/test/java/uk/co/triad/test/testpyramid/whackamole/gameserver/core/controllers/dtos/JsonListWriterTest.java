@@ -0,0 +1,190 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleIdDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerNameDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerScoreDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.MoleIdDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.PlayerNameDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.PlayerScoreDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JsonListWriterTest
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(JsonListWriterTest.class);
+  private static final int ITEMS = 100;
+  private static final int ROUNDS = 2000;
+  // the least a DTO can take: a 12 byte header and one 4 byte (compressed) reference
+  private static final int SMALLEST_DTO_BYTES = 16;
+  private final ObjectMapper json = new ObjectMapper();
+  private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+  @Test
+  public void shouldWriteMolesAsTheirDtosWouldBeWritten() throws IOException
+  {
+    var moles = moles();
+    var dtos = moles.stream().map(MoleIdDtoMapper::createDto).collect(Collectors.toList());
+
+    for (var mapper : List.of(json, smile))
+    {
+      assertArrayEquals(mapper.writeValueAsBytes(dtos),
+                        mapper.writeValueAsBytes(JsonListWriter.of(moles, MoleIdDtoMapper::writeDto)));
+    }
+  }
+
+  @Test
+  public void shouldWritePlayersAndScoresAsTheirDtosWouldBeWritten() throws IOException
+  {
+    var players = players();
+    var names = players.stream().map(PlayerNameDtoMapper::createDto).collect(Collectors.toList());
+    var scores = players.stream().map(PlayerScoreDtoMapper::createDto).collect(Collectors.toList());
+
+    for (var mapper : List.of(json, smile))
+    {
+      assertArrayEquals(mapper.writeValueAsBytes(names),
+                        mapper.writeValueAsBytes(JsonListWriter.of(players, PlayerNameDtoMapper::writeDto)));
+      assertArrayEquals(mapper.writeValueAsBytes(scores),
+                        mapper.writeValueAsBytes(JsonListWriter.of(players, PlayerScoreDtoMapper::writeDto)));
+    }
+  }
+
+  /**
+   * The field names are written by hand, so they are checked against the properties Jackson finds on each DTO, which
+   * is what a client reads them back into.
+   */
+  @Test
+  public void shouldWriteExactlyTheFieldsOfEachDto() throws IOException
+  {
+    var players = players();
+
+    assertEquals(fieldsOf(MoleIdDto.class), fieldsWritten(JsonListWriter.of(moles(), MoleIdDtoMapper::writeDto)));
+    assertEquals(fieldsOf(PlayerNameDto.class),
+                 fieldsWritten(JsonListWriter.of(players, PlayerNameDtoMapper::writeDto)));
+    assertEquals(fieldsOf(PlayerScoreDto.class),
+                 fieldsWritten(JsonListWriter.of(players, PlayerScoreDtoMapper::writeDto)));
+  }
+
+  /**
+   * What a request for the moles used to allocate (copy the table, map it to DTOs, collect those, write them) against
+   * writing straight from the snapshot, which must save at least the DTO that is no longer created for each mole.
+   */
+  @Test
+  public void shouldAllocateLessPerRequestWritingStraightFromTheSnapshot() throws IOException
+  {
+    var table = new LinkedHashMap<UUID, Mole>();
+    moles().forEach(mole -> table.put(mole.getId(), mole));
+    var snapshot = List.copyOf(table.values());
+    var out = new DiscardingOutputStream();
+
+    var copied = allocatedPerRound(() -> json.writeValue(out, new ArrayList<>(table.values())
+        .stream()
+        .map(MoleIdDtoMapper::createDto)
+        .collect(Collectors.toList())));
+    var streamed = allocatedPerRound(() -> json.writeValue(out, JsonListWriter.of(snapshot,
+                                                                                  MoleIdDtoMapper::writeDto)));
+
+    LOGGER.info("{} moles: {} bytes allocated per request copying into DTOs, {} bytes writing from the snapshot",
+                ITEMS,
+                copied,
+                streamed);
+    assertTrue(copied - streamed >= ITEMS * SMALLEST_DTO_BYTES);
+  }
+
+  private Set<String> fieldsOf(Class<?> dtoType)
+  {
+    return json.getSerializationConfig()
+               .introspect(json.constructType(dtoType))
+               .findProperties()
+               .stream()
+               .map(BeanPropertyDefinition::getName)
+               .collect(Collectors.toSet());
+  }
+
+  private Set<String> fieldsWritten(JsonListWriter<?> writer) throws IOException
+  {
+    var fields = new HashSet<String>();
+    for (var element : json.readTree(json.writeValueAsBytes(writer)))
+    {
+      element.fieldNames().forEachRemaining(fields::add);
+    }
+    return fields;
+  }
+
+  /**
+   * @return the bytes this thread allocates per run of the request, after a warm-up of the same length
+   */
+  private static long allocatedPerRound(Request request) throws IOException
+  {
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    var thread = Thread.currentThread().getId();
+    for (var i = 0; i < ROUNDS; i++)
+    {
+      request.run();
+    }
+    var before = threads.getThreadAllocatedBytes(thread);
+    for (var i = 0; i < ROUNDS; i++)
+    {
+      request.run();
+    }
+    return (threads.getThreadAllocatedBytes(thread) - before) / ROUNDS;
+  }
+
+  private static List<Mole> moles()
+  {
+    return IntStream.range(0, ITEMS).mapToObj(i -> Mole.newMole()).collect(Collectors.toList());
+  }
+
+  private static List<Player> players()
+  {
+    return IntStream.range(0, ITEMS).mapToObj(i -> {
+      var player = Player.newPlayer("player" + i);
+      player.getScore().setTotal(i * 10);
+      return player;
+    }).collect(Collectors.toList());
+  }
+
+  private interface Request
+  {
+    void run() throws IOException;
+  }
+
+  /**
+   * Unlike {@link OutputStream#nullOutputStream()}, can still be written to once closed, as every write closes it.
+   */
+  private static final class DiscardingOutputStream extends OutputStream
+  {
+    @Override
+    public void write(int b)
+    {
+      // discarded
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+    {
+      // discarded
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers;
+
+import org.junit.Test;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.EventLog;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEvent;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEventType;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class EventDtoMapperTest
+{
+  @Test
+  public void shouldCreatePageDtoFromEventLogPage()
+  {
+    var eventLog = new EventLog<GameEvent>(1);
+    eventLog.append(GameEvent.newEvent(GameEventType.GAME_STARTED));
+    eventLog.append(GameEvent.newEvent(GameEventType.GAME_STOPPED));
+
+    var eventPageDto = EventDtoMapper.createPageDto(0x2aL, eventLog.readAfter(0L));
+
+    assertEquals(1, eventPageDto.getEvents().size());
+    assertEquals(2L, eventPageDto.getEvents().get(0).getSequence());
+    assertEquals("Game stopped!", eventPageDto.getEvents().get(0).getEvent());
+    assertEquals(2L, eventPageDto.getLastSequence());
+    assertEquals(1L, eventPageDto.getMissed());
+    assertEquals("2a", eventPageDto.getEpoch());
+    assertFalse(eventPageDto.isReset());
+  }
+
+  @Test
+  public void shouldCarryStructuredFieldsAlongsideRenderedText()
+  {
+    var player = Player.newPlayer("dan");
+    var mole = Mole.newMole();
+    var event = GameEvent.newEvent(GameEventType.MOLE_MISSED, player, mole);
+    var eventLog = new EventLog<GameEvent>(1);
+
+    var eventDto = EventDtoMapper.createDto(eventLog.append(event));
+
+    assertEquals("MOLE_MISSED", eventDto.getType());
+    assertEquals("dan", eventDto.getPlayerName());
+    assertEquals(mole.getId(), eventDto.getMoleId());
+    assertEquals(event.getTimestamp(), eventDto.getTimestamp());
+    assertEquals("dan missed mole " + mole.getId(), eventDto.getEvent());
+  }
+
+  @Test
+  public void shouldLeaveOutFieldsTheEventDoesNotHave()
+  {
+    var mole = Mole.newMole();
+    var eventLog = new EventLog<GameEvent>(1);
+
+    var eventDto = EventDtoMapper.createDto(eventLog.append(GameEvent.newEvent(GameEventType.MOLE_ESCAPED, mole)));
+
+    assertNull(eventDto.getPlayerName());
+    assertEquals("Mole " + mole.getId() + " escaped", eventDto.getEvent());
+  }
+}
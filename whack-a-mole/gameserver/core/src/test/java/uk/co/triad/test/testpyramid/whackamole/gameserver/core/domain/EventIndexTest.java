@@ -0,0 +1,139 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEventType.*;
+
+public class EventIndexTest
+{
+  private static final int CAPACITY = 4;
+  private EventLog<GameEvent> eventLog;
+  private EventIndex eventIndex;
+
+  @Before
+  public void setUp()
+  {
+    eventLog = new EventLog<>(CAPACITY);
+    eventIndex = new EventIndex(eventLog);
+  }
+
+  @Test
+  public void shouldFindOnlyTheGivenPlayersEvents()
+  {
+    add(MOLE_HIT, "dan", 100L);
+    add(MOLE_HIT, "dave", 200L);
+    add(MOLE_MISSED, "dan", 300L);
+
+    assertEquals(List.of(1L, 3L), sequences(eventIndex.find("dan", null, 0L, Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void shouldFindOnlyEventsOfTheGivenTypeAndPlayer()
+  {
+    add(MOLE_HIT, "dan", 100L);
+    add(MOLE_HIT, "dave", 200L);
+    add(MOLE_MISSED, "dan", 300L);
+
+    assertEquals(List.of(1L, 2L), sequences(eventIndex.find(null, MOLE_HIT, 0L, Long.MAX_VALUE)));
+    assertEquals(List.of(3L), sequences(eventIndex.find("dan", MOLE_MISSED, 0L, Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void shouldFindEventsWithinTimeRangeInclusive()
+  {
+    add(MOLE_HIT, "dan", 100L);
+    add(MOLE_HIT, "dan", 200L);
+    add(MOLE_HIT, "dan", 300L);
+
+    assertEquals(List.of(2L, 3L), sequences(eventIndex.find("dan", null, 200L, 300L)));
+    assertTrue(eventIndex.find("dan", null, 301L, 400L).isEmpty());
+  }
+
+  @Test
+  public void shouldTreatAnEventStampedBeforeItsPredecessorAsHappeningWithIt()
+  {
+    add(MOLE_HIT, "dan", 200L);
+    add(MOLE_HIT, "dan", 150L);
+
+    assertEquals(List.of(1L, 2L), sequences(eventIndex.find("dan", null, 200L, 200L)));
+  }
+
+  @Test
+  public void shouldForgetEventsTheLogHasOverwritten()
+  {
+    add(MOLE_HIT, "dan", 100L);
+    for (var i = 0; i < CAPACITY; i++)
+    {
+      add(GAME_STARTED, null, 200L + i);
+    }
+
+    assertTrue(eventIndex.find("dan", null, 0L, Long.MAX_VALUE).isEmpty());
+    assertEquals(CAPACITY, eventIndex.find(null, null, 0L, Long.MAX_VALUE).size());
+  }
+
+  @Test
+  public void shouldKeepFindingEventsAsTheIndexGrowsAndWraps()
+  {
+    var capacity = 100;
+    eventLog = new EventLog<>(capacity);
+    eventIndex = new EventIndex(eventLog);
+    for (var i = 1; i <= 1000; i++)
+    {
+      add(i % 2 == 0 ? MOLE_HIT : MOLE_MISSED, "player" + i % 3, i);
+    }
+
+    var found = eventIndex.find("player0", MOLE_HIT, 950L, 1000L);
+
+    assertEquals(List.of(954L, 960L, 966L, 972L, 978L, 984L, 990L, 996L), sequences(found));
+  }
+
+  @Test
+  public void shouldSayFromWhenOnEveryEventIsHeld()
+  {
+    add(MOLE_HIT, "dan", 100L);
+    assertEquals(0L, eventIndex.getHeldFromMillis());
+
+    for (var i = 1; i <= CAPACITY; i++)
+    {
+      add(MOLE_HIT, "dan", 100L + i * 100L);
+    }
+    assertEquals(101L, eventIndex.getHeldFromMillis());
+
+    // never queried while the log went round again, so these were overwritten before they were ever indexed
+    for (var i = 1; i <= CAPACITY * 2; i++)
+    {
+      add(MOLE_HIT, "dan", 1000L + i * 100L);
+    }
+    assertEquals(List.of(1500L, 1600L, 1700L, 1800L), times(eventIndex.find("dan", null, 0L, Long.MAX_VALUE)));
+    // all that is known of the lost ones is that none came after the oldest still held
+    assertEquals(1501L, eventIndex.getHeldFromMillis());
+  }
+
+  @Test
+  public void shouldFindNothingForUnknownPlayer()
+  {
+    add(MOLE_HIT, "dan", 100L);
+
+    assertTrue(eventIndex.find("dave", MOLE_HIT, 0L, Long.MAX_VALUE).isEmpty());
+  }
+
+  private void add(GameEventType type, String playerName, long timestamp)
+  {
+    eventLog.append(new GameEvent(type, playerName, null, timestamp));
+  }
+
+  private static List<Long> times(List<EventLog.Entry<GameEvent>> entries)
+  {
+    return entries.stream().map(entry -> entry.getEvent().getTimestamp()).collect(Collectors.toList());
+  }
+
+  private static List<Long> sequences(List<EventLog.Entry<GameEvent>> entries)
+  {
+    return entries.stream().map(EventLog.Entry::getSequence).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,141 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class EventLogTest
+{
+  private static final int CAPACITY = 4;
+  private EventLog<String> eventLog;
+
+  @Before
+  public void setUp()
+  {
+    eventLog = new EventLog<>(CAPACITY);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectEmptyLog()
+  {
+    new EventLog<String>(0);
+  }
+
+  @Test
+  public void shouldNumberEventsFromOne()
+  {
+    assertEquals(1L, eventLog.append("event1").getSequence());
+    assertEquals(2L, eventLog.append("event2").getSequence());
+    assertEquals(2L, eventLog.getLastSequence());
+  }
+
+  @Test
+  public void shouldReadOnlyEventsAfterSequence()
+  {
+    List.of("event1", "event2", "event3").forEach(eventLog::append);
+
+    var page = eventLog.readAfter(1L);
+
+    assertEquals(List.of("event2", "event3"), events(page));
+    assertEquals(3L, page.getLastSequence());
+    assertEquals(0L, page.getMissed());
+  }
+
+  @Test
+  public void shouldLetReadersTailIndependently()
+  {
+    eventLog.append("event1");
+    var firstReader = eventLog.readAfter(0L);
+    eventLog.append("event2");
+
+    assertEquals(List.of("event2"), events(eventLog.readAfter(firstReader.getLastSequence())));
+    assertEquals(List.of("event1", "event2"), events(eventLog.readAfter(0L)));
+  }
+
+  @Test
+  public void shouldReportEventsOverwrittenBeforeTheyWereRead()
+  {
+    for (var i = 1; i <= 10; i++)
+    {
+      eventLog.append("event" + i);
+    }
+
+    var page = eventLog.readAfter(0L);
+
+    assertEquals(List.of("event7", "event8", "event9", "event10"), events(page));
+    assertEquals(6L, page.getMissed());
+    assertEquals(10L, page.getLastSequence());
+  }
+
+  @Test
+  public void shouldReturnNothingForReaderThatIsUpToDate()
+  {
+    eventLog.append("event1");
+
+    var page = eventLog.readAfter(1L);
+
+    assertTrue(page.getEntries().isEmpty());
+    assertEquals(1L, page.getLastSequence());
+    assertFalse(page.isReset());
+  }
+
+  @Test
+  public void shouldResetReaderAheadOfTheLogToTheOldestEvent()
+  {
+    for (var i = 1; i <= 6; i++)
+    {
+      eventLog.append("event" + i);
+    }
+
+    // e.g. a sequence from a log since replaced, which had got further than this one
+    var page = eventLog.readAfter(50L);
+
+    assertTrue(page.isReset());
+    assertEquals(List.of("event3", "event4", "event5", "event6"), events(page));
+    assertEquals(2L, page.getMissed());
+    assertEquals(6L, page.getLastSequence());
+    assertTrue(eventLog.readAfter(page.getLastSequence()).getEntries().isEmpty());
+  }
+
+  @Test
+  public void shouldReadEventsInSequenceWhileWritersAppend() throws InterruptedException
+  {
+    var log = new EventLog<Integer>(1024);
+    var writers = Executors.newFixedThreadPool(4);
+    for (var i = 0; i < 10_000; i++)
+    {
+      var event = i;
+      writers.execute(() -> log.append(event));
+    }
+
+    var cursor = 0L;
+    var seen = 0L;
+    while (!writers.isTerminated() || cursor < log.getLastSequence())
+    {
+      writers.shutdown();
+      var page = log.readAfter(cursor);
+      var expected = cursor + page.getMissed() + 1;
+      for (var entry : page.getEntries())
+      {
+        assertTrue(entry.getSequence() >= expected);
+        expected = entry.getSequence() + 1;
+      }
+      seen += page.getEntries().size() + page.getMissed();
+      cursor = page.getLastSequence();
+      writers.awaitTermination(1, TimeUnit.MILLISECONDS);
+    }
+
+    assertEquals(10_000L, seen);
+  }
+
+  private static List<String> events(EventLog.Page<String> page)
+  {
+    return page.getEntries().stream().map(EventLog.Entry::getEvent).collect(Collectors.toList());
+  }
+}
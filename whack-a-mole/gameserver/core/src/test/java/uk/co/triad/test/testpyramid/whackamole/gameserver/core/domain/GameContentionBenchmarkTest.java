@@ -0,0 +1,77 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertTrue;
+import static uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameContentionTest.CORES;
+import static uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameContentionTest.MOLES;
+import static uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameContentionTest.race;
+import static uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameContentionTest.registerPlayers;
+import static uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameContentionTest.spawnMoles;
+
+/**
+ * How many whacks a second the races in {@link GameContentionTest} get through, for each way of taking them; only run
+ * with {@code -Pbenchmark}, as the rates depend on the machine.
+ */
+public class GameContentionBenchmarkTest
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(GameContentionBenchmarkTest.class);
+
+  @Test
+  public void shouldReportWhackThroughputForIncreasingNumbersOfThreads() throws Exception
+  {
+    var threadCounts = IntStream.iterate(1, threads -> threads <= Math.max(4, CORES * 2), threads -> threads * 2)
+                                .boxed()
+                                .collect(Collectors.toList());
+
+    for (var threads : threadCounts)
+    {
+      var game = new Game();
+      var players = registerPlayers(game, threads);
+      var moles = spawnMoles(game);
+
+      var start = System.nanoTime();
+      race(players, moles, new AtomicIntegerArray(MOLES), game::tryWhack);
+      var elapsedNanos = System.nanoTime() - start;
+
+      var attempts = (long) threads * MOLES;
+      LOGGER.info("{} core(s), {} whacker(s): {} whacks/ms", CORES, threads, attempts * 1_000_000L / elapsedNanos);
+      assertTrue(game.activeMoles().toCompletableFuture().get().isEmpty());
+    }
+  }
+
+  @Test
+  public void shouldReportWhackThroughputInSingleWriterMode() throws Exception
+  {
+    var game = new Game(500L, 3000L, null, new SingleWriterCommandProcessor(1024));
+    try
+    {
+      var threads = Math.max(4, CORES * 2);
+      var players = registerPlayers(game, threads);
+      var moles = spawnMoles(game);
+
+      var start = System.nanoTime();
+      race(players,
+           moles,
+           new AtomicIntegerArray(MOLES),
+           (mole, player) -> game.whack(mole, player).toCompletableFuture().get());
+      var elapsedNanos = System.nanoTime() - start;
+
+      LOGGER.info("{} core(s), {} whacker(s), single writer: {} whacks/ms",
+                  CORES,
+                  threads,
+                  (long) threads * MOLES * 1_000_000L / elapsedNanos);
+      assertTrue(game.activeMoles().toCompletableFuture().get().isEmpty());
+    }
+    finally
+    {
+      game.shutdown();
+    }
+  }
+}
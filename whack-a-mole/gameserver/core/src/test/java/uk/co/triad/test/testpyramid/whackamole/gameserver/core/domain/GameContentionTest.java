@@ -0,0 +1,130 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Races many whackers over the same moles. Each whacker is its own player, so the only shared state is the mole
+ * table itself.
+ * <p>
+ * How fast they get through them is measured by {@link GameContentionBenchmarkTest}.
+ */
+public class GameContentionTest
+{
+  static final int MOLES = 20_000;
+  static final int CORES = Runtime.getRuntime().availableProcessors();
+
+  @Test
+  public void shouldAwardEachMoleToExactlyOneConcurrentWhacker() throws Exception
+  {
+    var game = new Game();
+    var threads = Math.max(4, CORES * 2);
+    var players = registerPlayers(game, threads);
+    var moles = spawnMoles(game);
+    var winners = new AtomicIntegerArray(MOLES);
+
+    race(players, moles, winners, game::tryWhack);
+
+    for (var i = 0; i < MOLES; i++)
+    {
+      assertEquals("Mole " + i + " should have exactly one winner", 1, winners.get(i));
+    }
+    assertEquals(MOLES * 10, players.stream().mapToInt(player -> player.getScore().getTotal()).sum());
+    assertTrue(game.activeMoles().toCompletableFuture().get().isEmpty());
+  }
+
+  @Test
+  public void shouldAwardEachMoleToExactlyOneWhackerInSingleWriterMode() throws Exception
+  {
+    var game = new Game(500L, 3000L, null, new SingleWriterCommandProcessor(1024));
+    try
+    {
+      var threads = Math.max(4, CORES * 2);
+      var players = registerPlayers(game, threads);
+      var moles = spawnMoles(game);
+      var winners = new AtomicIntegerArray(MOLES);
+
+      race(players, moles, winners, (mole, player) -> game.whack(mole, player).toCompletableFuture().get());
+
+      for (var i = 0; i < MOLES; i++)
+      {
+        assertEquals("Mole " + i + " should have exactly one winner", 1, winners.get(i));
+      }
+    }
+    finally
+    {
+      game.shutdown();
+    }
+  }
+
+  static List<Player> registerPlayers(Game game, int count) throws ExecutionException, InterruptedException
+  {
+    var players = new ArrayList<Player>();
+    for (var i = 0; i < count; i++)
+    {
+      var player = Player.newPlayer("whacker-" + i);
+      game.register(player).toCompletableFuture().get();
+      players.add(player);
+    }
+    return players;
+  }
+
+  static List<Mole> spawnMoles(Game game)
+  {
+    return IntStream.range(0, MOLES).mapToObj(i -> game.spawnMole()).collect(Collectors.toList());
+  }
+
+  static void race(List<Player> players, List<Mole> moles, AtomicIntegerArray winners, Whacker whack) throws
+                                                                                                              InterruptedException,
+                                                                                                              ExecutionException
+  {
+    var executor = Executors.newFixedThreadPool(players.size());
+    try
+    {
+      var startingGun = new CountDownLatch(1);
+      var whackers = new ArrayList<Future<?>>();
+      for (var p = 0; p < players.size(); p++)
+      {
+        var player = players.get(p);
+        var offset = p * (MOLES / players.size());
+        whackers.add(executor.submit(() -> {
+          startingGun.await();
+          for (var i = 0; i < MOLES; i++)
+          {
+            var index = (offset + i) % MOLES;
+            if (whack.whack(moles.get(index), player))
+            {
+              winners.incrementAndGet(index);
+            }
+          }
+          return null;
+        }));
+      }
+
+      startingGun.countDown();
+      for (var whacker : whackers)
+      {
+        whacker.get();
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  @FunctionalInterface
+  interface Whacker
+  {
+    boolean whack(Mole mole, Player player) throws Exception;
+  }
+}
@@ -4,7 +4,17 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.MockitoAnnotations;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
@@ -23,6 +33,86 @@ public class GameTest
     game = new Game();
   }
 
+  @Test
+  public void shouldNotHoldUpOtherChangesWhileListenersOutsideTheOrderAreTold() throws Exception
+  {
+    game.addOrderedListener(new GameListener()
+    {
+    });
+    var telling = new CountDownLatch(1);
+    var told = new CountDownLatch(1);
+    game.addListener(new GameListener()
+    {
+      @Override
+      public void playerJoined(Player player)
+      {
+        if ("slow".equals(player.getName()))
+        {
+          telling.countDown();
+          try
+          {
+            told.await();
+          }
+          catch (InterruptedException e)
+          {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    });
+    try
+    {
+      var slowRegistration = game.register(Player.newPlayer("slow"));
+      assertTrue(telling.await(5, SECONDS));
+
+      game.register(Player.newPlayer(MOCK_PLAYER_NAME)).toCompletableFuture().get(5, SECONDS);
+
+      told.countDown();
+      slowRegistration.toCompletableFuture().get(5, SECONDS);
+    }
+    finally
+    {
+      told.countDown();
+    }
+  }
+
+  @Test
+  public void shouldSpawnAndExpireMolesOffTheTickThread() throws Exception
+  {
+    var shard = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "shard"));
+    var shardedGame = new Game(20L, 60L, shard, new ConcurrentCommandProcessor(ForkJoinPool.commonPool()));
+    Set<String> spawnThreads = ConcurrentHashMap.newKeySet();
+    Set<String> expiryThreads = ConcurrentHashMap.newKeySet();
+    shardedGame.addListener(new GameListener()
+    {
+      @Override
+      public void moleSpawned(Mole mole)
+      {
+        spawnThreads.add(Thread.currentThread().getName());
+      }
+
+      @Override
+      public void moleExpired(Mole mole)
+      {
+        expiryThreads.add(Thread.currentThread().getName());
+      }
+    });
+    try
+    {
+      shardedGame.start().toCompletableFuture().get();
+      await().atMost(5, SECONDS).until(() -> !spawnThreads.isEmpty() && !expiryThreads.isEmpty());
+      shardedGame.stop().toCompletableFuture().get();
+
+      assertFalse(spawnThreads.contains("shard"));
+      assertFalse(expiryThreads.contains("shard"));
+    }
+    finally
+    {
+      shardedGame.shutdown();
+      shard.shutdownNow();
+    }
+  }
+
   @Test
   public void shouldAllowRegistrationOfUniquePlayer() throws ExecutionException, InterruptedException
   {
@@ -63,6 +153,18 @@ public class GameTest
     assertFalse(game.activePlayers().toCompletableFuture().get().contains(mockPlayer));
   }
 
+  @Test
+  public void shouldFindPlayerByHandleOnlyWhileRegistered() throws ExecutionException, InterruptedException
+  {
+    var mockPlayer = Player.newPlayer(MOCK_PLAYER_NAME);
+
+    var handle = game.register(mockPlayer).toCompletableFuture().get();
+    assertSame(mockPlayer, game.player(handle));
+
+    game.remove(mockPlayer).toCompletableFuture().get();
+    assertNull(game.player(handle));
+  }
+
   @Test
   public void shouldThrowExceptionForRemovalOfNonRegisteredPlayer() throws ExecutionException, InterruptedException
   {
@@ -119,6 +221,74 @@ public class GameTest
     assertTrue(activePlayers.contains(mockPlayer2));
   }
 
+  @Test
+  public void shouldRegisterEachConcurrentPlayerExactlyOnce() throws ExecutionException, InterruptedException
+  {
+    var registrations = IntStream.range(0, 1000)
+                                 .mapToObj(i -> game.register(Player.newPlayer(MOCK_PLAYER_NAME + i))
+                                                    .toCompletableFuture())
+                                 .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(registrations).get();
+
+    var activePlayers = game.activePlayers().toCompletableFuture().get();
+
+    assertEquals(1000, activePlayers.size());
+    assertEquals(1000, activePlayers.stream().map(Player::getName).collect(Collectors.toSet()).size());
+  }
+
+  @Test
+  public void shouldNotChangeActivePlayersSnapshotWhenPlayersChange() throws ExecutionException, InterruptedException
+  {
+    var mockPlayer1 = Player.newPlayer(MOCK_PLAYER_NAME);
+    var mockPlayer2 = Player.newPlayer(MOCK_PLAYER_NAME + "1");
+    game.register(mockPlayer1).toCompletableFuture().get();
+
+    var snapshot = game.activePlayers().toCompletableFuture().get();
+    game.register(mockPlayer2).toCompletableFuture().get();
+    game.remove(mockPlayer1).toCompletableFuture().get();
+
+    assertEquals(List.of(mockPlayer1), snapshot);
+    assertEquals(List.of(mockPlayer2), game.activePlayers().toCompletableFuture().get());
+  }
+
+  @Test
+  public void shouldShareActiveMolesSnapshotUntilMolesChange() throws ExecutionException, InterruptedException
+  {
+    var mole = game.spawnMole();
+
+    var snapshot = game.activeMoles().toCompletableFuture().get();
+    assertSame(snapshot, game.activeMoles().toCompletableFuture().get());
+    game.spawnMole();
+
+    assertEquals(List.of(mole), snapshot);
+    assertEquals(2, game.activeMoles().toCompletableFuture().get().size());
+  }
+
+  @Test
+  public void shouldMoveVersionsOnWhenWhatTheyCountChanges() throws ExecutionException, InterruptedException
+  {
+    var mockPlayer = Player.newPlayer(MOCK_PLAYER_NAME);
+    var playersVersion = game.getPlayersVersion();
+    var scoresVersion = game.getScoresVersion();
+    var molesVersion = game.getMolesVersion();
+
+    game.register(mockPlayer).toCompletableFuture().get();
+    assertTrue(game.getPlayersVersion() > playersVersion);
+    assertTrue(game.getScoresVersion() > scoresVersion);
+
+    playersVersion = game.getPlayersVersion();
+    scoresVersion = game.getScoresVersion();
+    var mole = game.spawnMole();
+    assertTrue(game.getMolesVersion() > molesVersion);
+    assertEquals(scoresVersion, game.getScoresVersion());
+
+    molesVersion = game.getMolesVersion();
+    game.whack(mole, mockPlayer).toCompletableFuture().get();
+    assertTrue(game.getScoresVersion() > scoresVersion);
+    assertTrue(game.getMolesVersion() > molesVersion);
+    assertEquals(playersVersion, game.getPlayersVersion());
+  }
+
   @Test
   public void shouldStartAddingMolesToActiveListWhenGameStarted() throws ExecutionException, InterruptedException
   {
@@ -218,6 +388,190 @@ public class GameTest
     }
   }
 
+  @Test
+  public void shouldAnswerEachWhackInABatch() throws ExecutionException, InterruptedException
+  {
+    var mockPlayer = Player.newPlayer(MOCK_PLAYER_NAME);
+    game.register(mockPlayer).toCompletableFuture().get();
+    game.start().toCompletableFuture().get();
+
+    await().atMost(2, SECONDS).until(() -> !game.activeMoles().toCompletableFuture().get().isEmpty());
+
+    var doomedMole = game.activeMoles().toCompletableFuture().get().get(0);
+    var results = game.whackAll(List.of(Whack.newWhack(doomedMole, mockPlayer),
+                                        Whack.newWhack(doomedMole, mockPlayer),
+                                        Whack.newWhack(doomedMole, Player.newPlayer("nonRegisteredPlayer"))))
+                      .toCompletableFuture()
+                      .get();
+
+    assertEquals(List.of(WhackResult.HIT, WhackResult.MISSED, WhackResult.NOT_REGISTERED), results);
+    assertEquals(Game.WHACK_POINTS, game.activePlayers().toCompletableFuture().get().get(0).getScore().getTotal());
+  }
+
+  @Test
+  public void shouldExpireUnwhackedMolesAndNotifyListeners() throws ExecutionException, InterruptedException
+  {
+    var shortLivedGame = new Game(20L, 60L);
+    var expiredMoles = new ArrayList<Mole>();
+    shortLivedGame.addListener(new GameListener()
+    {
+      @Override
+      public void moleExpired(Mole mole)
+      {
+        synchronized (expiredMoles)
+        {
+          expiredMoles.add(mole);
+        }
+      }
+    });
+
+    shortLivedGame.start().toCompletableFuture().get();
+    await().atMost(2, SECONDS).until(() -> !shortLivedGame.activeMoles().toCompletableFuture().get().isEmpty());
+    var doomedMole = shortLivedGame.activeMoles().toCompletableFuture().get().get(0);
+
+    await().atMost(2, SECONDS).until(() -> !shortLivedGame.activeMoles().toCompletableFuture().get().contains(doomedMole));
+    shortLivedGame.stop().toCompletableFuture().get();
+
+    synchronized (expiredMoles)
+    {
+      assertTrue(expiredMoles.contains(doomedMole));
+    }
+  }
+
+  @Test
+  public void shouldNotExpireMoleThatWasAlreadyWhacked() throws ExecutionException, InterruptedException
+  {
+    var expiredMoles = new ArrayList<Mole>();
+    game.addListener(new GameListener()
+    {
+      @Override
+      public void moleExpired(Mole mole)
+      {
+        expiredMoles.add(mole);
+      }
+    });
+    var mockPlayer = Player.newPlayer(MOCK_PLAYER_NAME);
+    game.register(mockPlayer).toCompletableFuture().get();
+    var doomedMole = game.spawnMole();
+
+    assertTrue(game.whack(doomedMole, mockPlayer).toCompletableFuture().get());
+    game.expireMole(doomedMole);
+
+    assertTrue(expiredMoles.isEmpty());
+  }
+
+  @Test
+  public void shouldNotifyListenersOfSpawnsWhacksAndClears() throws ExecutionException, InterruptedException
+  {
+    var changes = new ArrayList<String>();
+    game.addListener(new GameListener()
+    {
+      @Override
+      public void moleSpawned(Mole mole)
+      {
+        changes.add("spawned " + mole.getId());
+      }
+
+      @Override
+      public void moleWhacked(Mole mole, Player player, int total)
+      {
+        changes.add(player.getName() + " whacked " + mole.getId());
+      }
+
+      @Override
+      public void molesCleared()
+      {
+        changes.add("cleared");
+      }
+    });
+    var mockPlayer = Player.newPlayer(MOCK_PLAYER_NAME);
+    game.register(mockPlayer).toCompletableFuture().get();
+
+    var mole = game.spawnMole();
+    game.whack(mole, mockPlayer).toCompletableFuture().get();
+    game.whack(mole, mockPlayer).toCompletableFuture().get();
+    game.stop().toCompletableFuture().get();
+
+    assertEquals(List.of("spawned " + mole.getId(), MOCK_PLAYER_NAME + " whacked " + mole.getId(), "cleared"), changes);
+  }
+
+  @Test
+  public void shouldNotifyListenersOfEachScoreResetBeforeTheGameStarts() throws ExecutionException, InterruptedException
+  {
+    var changes = new ArrayList<String>();
+    game.addListener(new GameListener()
+    {
+      @Override
+      public void scoreReset(Player player)
+      {
+        changes.add(player.getName() + " reset to " + player.getScore().getTotal());
+      }
+
+      @Override
+      public void gameStarted()
+      {
+        changes.add("started");
+      }
+    });
+    var mockPlayer = Player.newPlayer(MOCK_PLAYER_NAME);
+    game.register(mockPlayer).toCompletableFuture().get();
+    game.whack(game.spawnMole(), mockPlayer).toCompletableFuture().get();
+
+    game.start().toCompletableFuture().get();
+
+    assertEquals(List.of(MOCK_PLAYER_NAME + " reset to 0", "started"), changes);
+  }
+
+  @Test
+  public void shouldReturnOnlyMoleChangesSinceVersion() throws ExecutionException, InterruptedException
+  {
+    var mockPlayer = Player.newPlayer(MOCK_PLAYER_NAME);
+    game.register(mockPlayer).toCompletableFuture().get();
+    var whackedMole = game.spawnMole();
+    var version = game.molesSince(game.getVersionEpoch(), 0L).toCompletableFuture().get().getVersion();
+
+    var spawnedMole = game.spawnMole();
+    var shortLivedMole = game.spawnMole();
+    game.whack(whackedMole, mockPlayer).toCompletableFuture().get();
+    game.whack(shortLivedMole, mockPlayer).toCompletableFuture().get();
+    var changes = game.molesSince(game.getVersionEpoch(), version).toCompletableFuture().get();
+
+    assertFalse(changes.isSnapshot());
+    assertEquals(List.of(spawnedMole), changes.getAdded());
+    assertEquals(List.of(whackedMole), changes.getRemoved());
+    assertEquals(version + 4, changes.getVersion());
+    assertTrue(game.molesSince(game.getVersionEpoch(), changes.getVersion()).toCompletableFuture().get().isEmpty());
+  }
+
+  @Test
+  public void shouldReturnSnapshotOfMolesWhenVersionTooOld() throws ExecutionException, InterruptedException
+  {
+    var survivor = game.spawnMole();
+    for (var i = 0; i < 2000; i++)
+    {
+      game.expireMole(game.spawnMole());
+    }
+
+    var changes = game.molesSince(game.getVersionEpoch(), 1L).toCompletableFuture().get();
+
+    assertTrue(changes.isSnapshot());
+    assertEquals(List.of(survivor), changes.getAdded());
+    assertTrue(changes.getRemoved().isEmpty());
+  }
+
+  @Test
+  public void shouldReturnSnapshotOfMolesWhenGameStoppedSinceVersion() throws ExecutionException, InterruptedException
+  {
+    game.spawnMole();
+    var version = game.molesSince(game.getVersionEpoch(), 0L).toCompletableFuture().get().getVersion();
+
+    game.stop().toCompletableFuture().get();
+    var changes = game.molesSince(game.getVersionEpoch(), version).toCompletableFuture().get();
+
+    assertTrue(changes.isSnapshot());
+    assertTrue(changes.getAdded().isEmpty());
+  }
+
   @Test
   public void shouldAddPointsToPlayerWhenMoleWhacked() throws ExecutionException, InterruptedException
   {
@@ -274,4 +628,21 @@ public class GameTest
 
     assertEquals(0, mockPlayer.getScore().getTotal());
   }
+
+  @Test
+  public void shouldRankPlayersAsTheyScore() throws ExecutionException, InterruptedException
+  {
+    var dan = Player.newPlayer("dan");
+    var dave = Player.newPlayer("dave");
+    game.register(dan).toCompletableFuture().get();
+    game.register(dave).toCompletableFuture().get();
+
+    game.tryWhack(game.spawnMole(), dave);
+
+    var ranked = game.rankedPlayers(0, 2).toCompletableFuture().get();
+    assertEquals(List.of("dave", "dan"), ranked.stream().map(Player::getName).collect(Collectors.toList()));
+
+    game.remove(dave).toCompletableFuture().get();
+    assertEquals(List.of(dan), game.rankedPlayers(0, 2).toCompletableFuture().get());
+  }
 }
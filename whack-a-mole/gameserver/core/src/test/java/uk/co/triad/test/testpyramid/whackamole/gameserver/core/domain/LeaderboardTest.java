@@ -0,0 +1,147 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LeaderboardTest
+{
+  private Leaderboard leaderboard;
+
+  @Before
+  public void setUp()
+  {
+    leaderboard = new Leaderboard();
+  }
+
+  @Test
+  public void shouldRankByScoreThenName()
+  {
+    leaderboard.add(new Player("dave", new Score(10)));
+    leaderboard.add(new Player("dan", new Score(10)));
+    leaderboard.add(new Player("amy", new Score(5)));
+    leaderboard.add(new Player("zoe", new Score(30)));
+
+    assertEquals(List.of("zoe", "dan", "dave", "amy"), names(leaderboard.top(10)));
+    assertEquals(30, leaderboard.top(1).get(0).getScore().getTotal());
+  }
+
+  @Test
+  public void shouldMovePlayerWhenScoreChanges()
+  {
+    var dan = new Player("dan", new Score(10));
+    leaderboard.add(dan);
+    leaderboard.add(new Player("dave", new Score(20)));
+
+    dan.getScore().increment(20);
+    leaderboard.update(dan);
+
+    assertEquals(List.of("dan", "dave"), names(leaderboard.top(10)));
+  }
+
+  @Test
+  public void shouldReturnPagesOfRanks()
+  {
+    for (var i = 0; i < 10; i++)
+    {
+      leaderboard.add(new Player("player" + i, new Score(i)));
+    }
+
+    assertEquals(List.of("player7", "player6", "player5"), names(leaderboard.range(2, 3)));
+    assertEquals(List.of("player0"), names(leaderboard.range(9, 3)));
+    assertTrue(leaderboard.range(10, 3).isEmpty());
+  }
+
+  @Test
+  public void shouldForgetRemovedPlayer()
+  {
+    var dan = new Player("dan", new Score(10));
+    leaderboard.add(dan);
+
+    leaderboard.remove(dan);
+
+    assertTrue(leaderboard.top(10).isEmpty());
+  }
+
+  @Test
+  public void shouldKeepOneRankPerPlayerUnderConcurrentUpdates() throws InterruptedException
+  {
+    var dan = new Player("dan", new Score(0));
+    leaderboard.add(dan);
+    var executor = Executors.newFixedThreadPool(4);
+    for (var i = 0; i < 1000; i++)
+    {
+      executor.execute(() -> {
+        dan.getScore().increment(10);
+        leaderboard.update(dan);
+      });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    var ranked = leaderboard.top(10);
+    assertEquals(1, ranked.size());
+    assertEquals(10_000, ranked.get(0).getScore().getTotal());
+  }
+
+  @Test
+  public void shouldIgnoreUpdatesForPlayersNoLongerAdded()
+  {
+    var dan = new Player("dan", new Score(10));
+    var danAgain = new Player("dan", new Score(0));
+    leaderboard.add(dan);
+    leaderboard.remove(dan);
+
+    leaderboard.update(dan);
+    assertTrue(leaderboard.top(10).isEmpty());
+
+    leaderboard.add(danAgain);
+    leaderboard.update(dan);
+    assertEquals(0, leaderboard.top(1).get(0).getScore().getTotal());
+  }
+
+  @Test
+  public void shouldLeaveNoGhostRanksWhenPlayersLeaveMidWhack() throws Exception
+  {
+    var executor = Executors.newFixedThreadPool(4);
+    try
+    {
+      for (var round = 0; round < 200; round++)
+      {
+        var players = IntStream.range(0, 4)
+                               .mapToObj(i -> new Player("player" + i, new Score(0)))
+                               .collect(Collectors.toList());
+        players.forEach(leaderboard::add);
+        var whacks = players.stream().map(player -> CompletableFuture.runAsync(() -> {
+          for (var i = 0; i < 100; i++)
+          {
+            player.getScore().increment(10);
+            leaderboard.update(player);
+          }
+        }, executor)).collect(Collectors.toList());
+        players.forEach(leaderboard::remove);
+        CompletableFuture.allOf(whacks.toArray(CompletableFuture[]::new)).get();
+
+        assertTrue(leaderboard.top(10).isEmpty());
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  private static List<String> names(List<Player> players)
+  {
+    return players.stream().map(Player::getName).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,78 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class PlayerHandlesTest
+{
+  private PlayerHandles playerHandles;
+
+  @Before
+  public void setUp()
+  {
+    playerHandles = new PlayerHandles();
+  }
+
+  @Test
+  public void shouldResolveEachAssignedHandleToItsPlayer()
+  {
+    var handles = new HashSet<Long>();
+    for (var i = 0; i < 100; i++)
+    {
+      var player = Player.newPlayer("player" + i);
+      var handle = playerHandles.assign(player);
+
+      assertTrue(handles.add(handle));
+      assertSame(player, playerHandles.resolve(handle));
+    }
+  }
+
+  @Test
+  public void shouldNotResolveReleasedHandleEvenOnceItsSlotIsReused()
+  {
+    var dan = Player.newPlayer("dan");
+    var danHandle = playerHandles.assign(dan);
+    playerHandles.release(dan);
+
+    var bob = Player.newPlayer("bob");
+    var bobHandle = playerHandles.assign(bob);
+
+    assertNull(playerHandles.resolve(danHandle));
+    assertSame(bob, playerHandles.resolve(bobHandle));
+    assertEquals((int) danHandle, (int) bobHandle);
+  }
+
+  @Test
+  public void shouldNotResolveHandlesThatWereNeverAssigned()
+  {
+    playerHandles.assign(Player.newPlayer("dan"));
+
+    assertNull(playerHandles.resolve(-1L));
+    assertNull(playerHandles.resolve(1L << 40 | 1000));
+  }
+
+  @Test
+  public void shouldIgnoreReleaseOfPlayerWithoutHandle()
+  {
+    var dan = Player.newPlayer("dan");
+    var handle = playerHandles.assign(dan);
+
+    playerHandles.release(Player.newPlayer("dan"));
+
+    assertSame(dan, playerHandles.resolve(handle));
+  }
+
+  @Test
+  public void shouldKeepHandlesBelowTwoToTheFiftyThree()
+  {
+    for (var i = 0; i < 100; i++)
+    {
+      var handle = playerHandles.assign(Player.newPlayer("player" + i));
+      assertTrue(handle >= 0 && handle < 1L << 53);
+    }
+  }
+}
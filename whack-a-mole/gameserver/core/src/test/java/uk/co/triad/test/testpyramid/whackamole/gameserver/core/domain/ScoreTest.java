@@ -2,6 +2,9 @@ package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
 
 import org.junit.Test;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
@@ -26,6 +29,30 @@ public class ScoreTest
     assertEquals(10, score.getTotal());
   }
 
+  @Test
+  public void shouldReturnNewTotalWhenIncremented()
+  {
+    var score = new Score(10);
+
+    assertEquals(30, score.increment(20));
+  }
+
+  @Test
+  public void shouldNotLoseConcurrentIncrements() throws InterruptedException
+  {
+    var score = Score.newScore();
+    var executor = Executors.newFixedThreadPool(8);
+
+    for (var i = 0; i < 10_000; i++)
+    {
+      executor.execute(() -> score.increment(10));
+    }
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+
+    assertEquals(100_000, score.getTotal());
+  }
+
   @Test
   public void shouldReturnHashCode()
   {
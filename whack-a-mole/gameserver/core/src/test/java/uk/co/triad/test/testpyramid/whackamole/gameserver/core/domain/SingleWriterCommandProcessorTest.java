@@ -0,0 +1,116 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class SingleWriterCommandProcessorTest
+{
+  private static final int CAPACITY = 4;
+  private SingleWriterCommandProcessor commandProcessor;
+
+  @Before
+  public void setUp()
+  {
+    commandProcessor = new SingleWriterCommandProcessor(CAPACITY);
+  }
+
+  @After
+  public void tearDown()
+  {
+    commandProcessor.shutdown();
+  }
+
+  @Test
+  public void shouldApplyCommandsInSubmissionOrderOnOneThread() throws Exception
+  {
+    var applied = new ArrayList<Integer>();
+    var threads = ConcurrentHashMap.<String>newKeySet();
+    var results = new ArrayList<CompletableFuture<Void>>();
+
+    for (var i = 0; i < 100; i++)
+    {
+      var command = i;
+      CompletionStage<Void> result;
+      do
+      {
+        result = commandProcessor.run(() -> {
+          threads.add(Thread.currentThread().getName());
+          applied.add(command);
+        });
+      }
+      while (result.toCompletableFuture().isCompletedExceptionally());
+      results.add(result.toCompletableFuture());
+    }
+    CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+    assertEquals(IntStream.range(0, 100).boxed().collect(Collectors.toList()), applied);
+    assertEquals(1, threads.size());
+  }
+
+  @Test
+  public void shouldHandBackCommandResult() throws Exception
+  {
+    assertEquals("hit", commandProcessor.supply(() -> "hit").toCompletableFuture().get());
+  }
+
+  @Test
+  public void shouldRejectCommandsWhenQueueIsFull() throws Exception
+  {
+    var writerBusy = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    commandProcessor.run(() -> {
+      writerBusy.countDown();
+      awaitQuietly(release);
+    });
+    writerBusy.await();
+
+    var queued = new ArrayList<CompletionStage<Void>>();
+    for (var i = 0; i < CAPACITY; i++)
+    {
+      queued.add(commandProcessor.run(() -> {
+      }));
+    }
+    var rejected = commandProcessor.supply(() -> Boolean.TRUE);
+    commandProcessor.execute(() -> {
+    });
+
+    assertEquals(CAPACITY, commandProcessor.getQueueDepth());
+    assertEquals(1L, commandProcessor.getDropped());
+    try
+    {
+      rejected.toCompletableFuture().get();
+      fail("Command should have been rejected");
+    }
+    catch (ExecutionException e)
+    {
+      assertEquals(RejectedExecutionException.class, e.getCause().getClass());
+    }
+
+    release.countDown();
+    for (var command : queued)
+    {
+      command.toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch)
+  {
+    try
+    {
+      latch.await();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
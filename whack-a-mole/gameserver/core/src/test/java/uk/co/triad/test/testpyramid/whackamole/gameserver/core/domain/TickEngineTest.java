@@ -0,0 +1,167 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.*;
+
+public class TickEngineTest
+{
+  private static final Duration TICK_PERIOD = Duration.ofMillis(20);
+  private TickEngine tickEngine;
+
+  @Before
+  public void setUp()
+  {
+    tickEngine = new TickEngine(TICK_PERIOD);
+  }
+
+  @After
+  public void tearDown()
+  {
+    tickEngine.stop();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNonPositiveTickPeriod()
+  {
+    new TickEngine(Duration.ZERO);
+  }
+
+  @Test
+  public void shouldTickRepeatedlyOnceStarted()
+  {
+    var ticks = new AtomicInteger();
+
+    tickEngine.start(ticks::incrementAndGet);
+
+    assertTrue(tickEngine.isRunning());
+    await().atMost(2, SECONDS).until(() -> ticks.get() >= 5);
+  }
+
+  @Test
+  public void shouldNotTickAfterStopped() throws InterruptedException
+  {
+    var ticks = new AtomicInteger();
+    tickEngine.start(ticks::incrementAndGet);
+    await().atMost(2, SECONDS).until(() -> ticks.get() >= 1);
+
+    tickEngine.stop();
+    var ticksWhenStopped = ticks.get();
+    Thread.sleep(TICK_PERIOD.toMillis() * 5);
+
+    assertFalse(tickEngine.isRunning());
+    assertEquals(ticksWhenStopped, ticks.get());
+  }
+
+  @Test
+  public void shouldIgnoreSecondStart()
+  {
+    var firstTicks = new AtomicInteger();
+    var secondTicks = new AtomicInteger();
+
+    tickEngine.start(firstTicks::incrementAndGet);
+    tickEngine.start(secondTicks::incrementAndGet);
+
+    await().atMost(2, SECONDS).until(() -> firstTicks.get() >= 3);
+    assertEquals(0, secondTicks.get());
+  }
+
+  @Test
+  public void shouldNotLeakThreadsWhenRestarted()
+  {
+    var threadsBefore = countTickThreads();
+
+    for (var i = 0; i < 10; i++)
+    {
+      tickEngine.start(() -> {
+      });
+      tickEngine.stop();
+    }
+
+    // awaitTermination can return just before the worker thread itself has exited
+    await().atMost(2, SECONDS).until(() -> countTickThreads() == threadsBefore);
+  }
+
+  @Test
+  public void shouldLeaveSharedSchedulerRunningWhenStopped()
+  {
+    var sharedScheduler = Executors.newSingleThreadScheduledExecutor();
+    try
+    {
+      var otherEngine = new TickEngine(TICK_PERIOD, sharedScheduler);
+      var sharedEngine = new TickEngine(TICK_PERIOD, sharedScheduler);
+      var otherTicks = new AtomicInteger();
+      otherEngine.start(otherTicks::incrementAndGet);
+      sharedEngine.start(() -> {
+      });
+
+      sharedEngine.stop();
+      var ticksWhenStopped = otherTicks.get();
+
+      assertFalse(sharedScheduler.isShutdown());
+      await().atMost(2, SECONDS).until(() -> otherTicks.get() >= ticksWhenStopped + 3);
+      otherEngine.stop();
+    }
+    finally
+    {
+      sharedScheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldRunJitteredTaskWithinTheTick()
+  {
+    var runs = new AtomicInteger();
+
+    tickEngine.start(() -> tickEngine.jittered(runs::incrementAndGet));
+
+    await().atMost(2, SECONDS).until(() -> runs.get() >= 5);
+  }
+
+  @Test
+  public void shouldKeepTickingWhenTaskThrows()
+  {
+    var ticks = new AtomicInteger();
+
+    tickEngine.start(() -> {
+      ticks.incrementAndGet();
+      throw new IllegalStateException("Boom");
+    });
+
+    await().atMost(2, SECONDS).until(() -> ticks.get() >= 3);
+  }
+
+  @Test
+  public void shouldCountOverrunsWhenTickTakesLongerThanPeriod()
+  {
+    tickEngine.start(() -> {
+      try
+      {
+        Thread.sleep(TICK_PERIOD.toMillis() * 2);
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    await().atMost(2, SECONDS).until(() -> tickEngine.getOverruns() >= 2);
+  }
+
+  private static long countTickThreads()
+  {
+    return Thread.getAllStackTraces()
+                 .keySet()
+                 .stream()
+                 .filter(thread -> thread.isAlive() && thread.getName().startsWith("game-tick-"))
+                 .count();
+  }
+}
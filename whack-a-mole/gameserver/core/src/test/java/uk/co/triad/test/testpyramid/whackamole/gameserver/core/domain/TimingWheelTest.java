@@ -0,0 +1,92 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest
+{
+  private TimingWheel<String> timingWheel;
+  private List<String> expired;
+
+  @Before
+  public void setUp()
+  {
+    timingWheel = new TimingWheel<>(4);
+    expired = new ArrayList<>();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectEmptyWheel()
+  {
+    new TimingWheel<String>(0);
+  }
+
+  @Test
+  public void shouldExpireItemOnItsDeadlineTick()
+  {
+    timingWheel.schedule("mole", 3);
+
+    timingWheel.advance(expired::add);
+    timingWheel.advance(expired::add);
+    assertTrue(expired.isEmpty());
+
+    timingWheel.advance(expired::add);
+    assertEquals(List.of("mole"), expired);
+  }
+
+  @Test
+  public void shouldExpireItemsScheduledFurtherAheadThanOneRevolution()
+  {
+    timingWheel.schedule("mole", 10);
+
+    for (var tick = 1; tick < 10; tick++)
+    {
+      timingWheel.advance(expired::add);
+      assertTrue("Expired early at tick " + tick, expired.isEmpty());
+    }
+
+    timingWheel.advance(expired::add);
+    assertEquals(List.of("mole"), expired);
+  }
+
+  @Test
+  public void shouldExpireEachItemOnlyOnce()
+  {
+    timingWheel.schedule("mole", 1);
+
+    for (var tick = 0; tick < 12; tick++)
+    {
+      timingWheel.advance(expired::add);
+    }
+
+    assertEquals(List.of("mole"), expired);
+  }
+
+  @Test
+  public void shouldTreatNonPositiveDelayAsNextTick()
+  {
+    timingWheel.schedule("mole", 0);
+
+    timingWheel.advance(expired::add);
+
+    assertEquals(List.of("mole"), expired);
+  }
+
+  @Test
+  public void shouldForgetScheduledItemsWhenCleared()
+  {
+    timingWheel.schedule("mole", 1);
+
+    timingWheel.clear();
+    timingWheel.advance(expired::add);
+
+    assertTrue(expired.isEmpty());
+    assertEquals(1L, timingWheel.getCurrentTick());
+  }
+}
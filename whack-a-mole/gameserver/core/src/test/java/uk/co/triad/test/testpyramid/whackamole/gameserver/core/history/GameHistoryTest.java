@@ -0,0 +1,189 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.history;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.EventLog;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEvent;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEventType;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Score;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class GameHistoryTest
+{
+  private static final long HOURLY = 3_600_000L;
+  private static final long DAILY = 86_400_000L;
+  private EmbeddedDatabase database;
+  private JdbcTemplate jdbcTemplate;
+  private GameHistory gameHistory;
+
+  @Before
+  public void setUp()
+  {
+    database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+                                            .generateUniqueName(true)
+                                            .addScript("schema.sql")
+                                            .build();
+    jdbcTemplate = new JdbcTemplate(database);
+  }
+
+  @After
+  public void tearDown()
+  {
+    gameHistory.shutdown();
+    database.shutdown();
+  }
+
+  @Test
+  public void shouldWriteScoresAndEventsBehindOnTheFlushInterval()
+  {
+    gameHistory = new GameHistory(true, 50L, 100, 1000, DAILY, jdbcTemplate);
+    var roomHistory = gameHistory.forRoom("room1");
+    var mole = Mole.newMole();
+    var events = new EventLog<GameEvent>(16);
+
+    roomHistory.moleWhacked(mole, new Player("dan", new Score(10)), 10);
+    roomHistory.send(events.append(GameEvent.newEvent(GameEventType.MOLE_HIT, Player.newPlayer("dan"), mole)));
+
+    await().atMost(5, SECONDS).until(() -> count("game_score") == 1 && count("game_event") == 1);
+    assertEquals(Integer.valueOf(10), jdbcTemplate.queryForObject("SELECT total FROM game_score", Integer.class));
+    assertEquals("HIT", jdbcTemplate.queryForObject("SELECT reason FROM game_score", String.class));
+    assertEquals(mole.getId(), jdbcTemplate.queryForObject("SELECT mole_id FROM game_event", UUID.class));
+    assertEquals("MOLE_HIT", jdbcTemplate.queryForObject("SELECT type FROM game_event", String.class));
+  }
+
+  @Test
+  public void shouldRecordEveryScoreChange()
+  {
+    gameHistory = new GameHistory(true, HOURLY, 100, 1000, DAILY, jdbcTemplate);
+    var roomHistory = gameHistory.forRoom("room1");
+    var player = new Player("dan", new Score(0));
+
+    roomHistory.playerJoined(player);
+    roomHistory.moleWhacked(Mole.newMole(), player, player.getScore().increment(10));
+    player.getScore().setTotal(0);
+    roomHistory.scoreReset(player);
+    roomHistory.playerLeft(player);
+    gameHistory.flush();
+
+    assertEquals(List.of("JOINED 0", "HIT 10", "RESET 0", "LEFT 0"),
+                 jdbcTemplate.queryForList("SELECT reason || ' ' || total FROM game_score ORDER BY id", String.class));
+  }
+
+  @Test
+  public void shouldRecordTheTotalAWhackLeftRatherThanTheScoreWhenItIsQueued()
+  {
+    gameHistory = new GameHistory(true, HOURLY, 100, 1000, DAILY, jdbcTemplate);
+    // whacked since, by the time the first whack is heard of
+    var player = new Player("dan", new Score(30));
+
+    gameHistory.forRoom("room1").moleWhacked(Mole.newMole(), player, 10);
+    gameHistory.flush();
+
+    assertEquals(Integer.valueOf(10), jdbcTemplate.queryForObject("SELECT total FROM game_score", Integer.class));
+  }
+
+  @Test
+  public void shouldCountRowsInABatchTheDatabaseRefusedAsDropped()
+  {
+    gameHistory = new GameHistory(true, HOURLY, 100, 1000, DAILY, jdbcTemplate);
+    jdbcTemplate.execute("DROP TABLE game_score");
+
+    whack(gameHistory.forRoom("room1"), 3);
+    gameHistory.flush();
+
+    assertEquals(3L, gameHistory.getDropped());
+  }
+
+  @Test
+  public void shouldPruneRowsOlderThanTheRetentionPeriod()
+  {
+    gameHistory = new GameHistory(true, HOURLY, 100, 1000, HOURLY, jdbcTemplate);
+    var old = new Timestamp(System.currentTimeMillis() - 2 * HOURLY);
+    jdbcTemplate.update("INSERT INTO game_score (game_id, player_name, total, reason, recorded_at) "
+                            + "VALUES ('room1', 'dan', 10, 'HIT', ?)", old);
+    jdbcTemplate.update("INSERT INTO game_event (game_id, sequence, type, occurred_at) "
+                            + "VALUES ('room1', 1, 'GAME_STARTED', ?)", old);
+    whack(gameHistory.forRoom("room1"), 1);
+    gameHistory.flush();
+
+    gameHistory.prune();
+
+    assertEquals(1, count("game_score"));
+    assertEquals(0, count("game_event"));
+  }
+
+  @Test
+  public void shouldStayOffWithoutADatabaseOfItsOwn()
+  {
+    gameHistory = new GameHistory(false, HOURLY, 100, 1000, DAILY, "", jdbcTemplate);
+
+    assertFalse(gameHistory.isEnabled());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotBeEnabledWithoutADatabaseOfItsOwn()
+  {
+    gameHistory = GameHistory.disabled();
+
+    new GameHistory(true, HOURLY, 100, 1000, DAILY, "", jdbcTemplate);
+  }
+
+  @Test
+  public void shouldFlushAsSoonAsABatchIsFull()
+  {
+    gameHistory = new GameHistory(true, HOURLY, 5, 1000, DAILY, jdbcTemplate);
+
+    whack(gameHistory.forRoom("room1"), 5);
+
+    await().atMost(5, SECONDS).until(() -> count("game_score") == 5);
+  }
+
+  @Test
+  public void shouldDropRowsRatherThanWaitWhenQueueIsFull()
+  {
+    gameHistory = new GameHistory(true, HOURLY, 100, 2, DAILY, jdbcTemplate);
+
+    whack(gameHistory.forRoom("room1"), 3);
+
+    assertEquals(1L, gameHistory.getDropped());
+  }
+
+  @Test
+  public void shouldFlushWhatIsLeftOnShutdown()
+  {
+    gameHistory = new GameHistory(true, HOURLY, 100, 1000, DAILY, jdbcTemplate);
+    whack(gameHistory.forRoom("room1"), 3);
+
+    gameHistory.shutdown();
+
+    assertEquals(3, count("game_score"));
+  }
+
+  private static void whack(RoomHistory roomHistory, int times)
+  {
+    for (var i = 1; i <= times; i++)
+    {
+      roomHistory.moleWhacked(Mole.newMole(), new Player("dan", new Score(i * 10)), i * 10);
+    }
+  }
+
+  private int count(String table)
+  {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+  }
+}
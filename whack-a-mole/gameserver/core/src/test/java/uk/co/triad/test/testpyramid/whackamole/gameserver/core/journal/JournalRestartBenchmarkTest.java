@@ -0,0 +1,87 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Game;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal.JournalTest.playGame;
+
+/**
+ * How long a room takes to come back after a restart: replaying its whole journal, against reading its snapshot and
+ * replaying only the records written since. The times are logged rather than asserted, as they depend on the machine;
+ * only run with {@code -Pbenchmark}.
+ */
+public class JournalRestartBenchmarkTest
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(JournalRestartBenchmarkTest.class);
+  private static final int SEGMENT_BYTES = 1024 * 1024;
+  private static final int ROUNDS = 50_000;
+  private static final int TAIL_ROUNDS = 1_000;
+  private static final int RESTARTS = 5;
+  private static final long HOURLY = TimeUnit.HOURS.toMillis(1L);
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldReportRestartTimeWithAndWithoutSnapshot() throws Exception
+  {
+    var replayAllDirectory = folder.newFolder("replay-all").toPath();
+    var snapshotDirectory = folder.newFolder("snapshot").toPath();
+    try (var journal = Journal.open(replayAllDirectory, SEGMENT_BYTES, false))
+    {
+      playGame(journal, ROUNDS + TAIL_ROUNDS);
+    }
+    try (var journal = Journal.open(snapshotDirectory, SEGMENT_BYTES, false, HOURLY))
+    {
+      // closing snapshots all of this
+      playGame(journal, ROUNDS);
+    }
+    try (var journal = Journal.open(snapshotDirectory, SEGMENT_BYTES, false))
+    {
+      // and with snapshots off, this is left as the tail to replay
+      playGame(journal, TAIL_ROUNDS);
+    }
+
+    // restarts with snapshots off, so none of them snapshots the tail for the next
+    var replayAllNanos = medianRestartNanos(replayAllDirectory);
+    var snapshotNanos = medianRestartNanos(snapshotDirectory);
+
+    LOGGER.info("Restart after {} records: {} ms replaying the whole journal, {} ms from a snapshot plus {} records",
+                (ROUNDS + TAIL_ROUNDS) * 2 + 1,
+                TimeUnit.NANOSECONDS.toMillis(replayAllNanos),
+                TimeUnit.NANOSECONDS.toMillis(snapshotNanos),
+                TAIL_ROUNDS * 2 + 1);
+  }
+
+  /**
+   * @return the median time of several restarts, after one to warm up
+   */
+  private static long medianRestartNanos(Path directory) throws IOException
+  {
+    var nanos = new long[RESTARTS];
+    for (var i = -1; i < RESTARTS; i++)
+    {
+      var start = System.nanoTime();
+      try (var journal = Journal.open(directory, SEGMENT_BYTES, false))
+      {
+        var elapsed = System.nanoTime() - start;
+        assertEquals((ROUNDS + TAIL_ROUNDS) * Game.WHACK_POINTS,
+                     journal.recovered().getPlayers().get(0).getScore().getTotal());
+        if (i >= 0)
+        {
+          nanos[i] = elapsed;
+        }
+      }
+    }
+    Arrays.sort(nanos);
+    return nanos[RESTARTS / 2];
+  }
+}
@@ -0,0 +1,287 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.ConcurrentCommandProcessor;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Game;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameListener;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JournalTest
+{
+  private static final int SEGMENT_BYTES = 4096;
+  private static final long HOURLY = TimeUnit.HOURS.toMillis(1L);
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldReplaySyncedRecordsAfterReopening() throws IOException, ExecutionException, InterruptedException
+  {
+    var moleId = UUID.randomUUID();
+    try (var journal = Journal.open(folder.getRoot().toPath(), SEGMENT_BYTES, true))
+    {
+      journal.append(JournalRecord.playerJoined("dan"));
+      journal.append(JournalRecord.moleSpawned(moleId));
+      journal.append(JournalRecord.moleWhacked(moleId, "dan"));
+      journal.sync().toCompletableFuture().get();
+    }
+
+    try (var journal = Journal.open(folder.getRoot().toPath(), SEGMENT_BYTES, true))
+    {
+      var replayed = replay(journal, 0L);
+
+      assertEquals(3, replayed.size());
+      assertEquals(JournalRecord.Type.MOLE_WHACKED, replayed.get(2).getType());
+      assertEquals("dan", replayed.get(2).getPlayerName());
+      assertEquals(moleId, replayed.get(2).getMoleId());
+      assertEquals(3L, replayed.get(2).getSequence());
+      assertEquals(3L, journal.getLastSequence());
+      assertEquals(1, replay(journal, 2L).size());
+    }
+  }
+
+  @Test
+  public void shouldRollOntoNewSegmentWhenCurrentIsFull() throws IOException, ExecutionException, InterruptedException
+  {
+    try (var journal = Journal.open(folder.getRoot().toPath(), SEGMENT_BYTES, false))
+    {
+      for (var i = 0; i < 500; i++)
+      {
+        journal.append(JournalRecord.moleSpawned(UUID.randomUUID()));
+      }
+      journal.sync().toCompletableFuture().get();
+
+      assertTrue(journal.segmentPaths().size() > 1);
+      assertEquals(500, replay(journal, 0L).size());
+      assertEquals(500L, journal.getLastSequence());
+    }
+  }
+
+  @Test
+  public void shouldDropTornTailAndCarryOnAfterIt() throws IOException, ExecutionException, InterruptedException
+  {
+    try (var journal = Journal.open(folder.getRoot().toPath(), SEGMENT_BYTES, true))
+    {
+      journal.append(JournalRecord.playerJoined("dan"));
+      journal.append(JournalRecord.playerJoined("bob"));
+      journal.sync().toCompletableFuture().get();
+    }
+    tearLastRecord();
+
+    try (var journal = Journal.open(folder.getRoot().toPath(), SEGMENT_BYTES, true))
+    {
+      journal.append(JournalRecord.gameStarted());
+      journal.sync().toCompletableFuture().get();
+
+      var replayed = replay(journal, 0L);
+      assertEquals(2, replayed.size());
+      assertEquals("dan", replayed.get(0).getPlayerName());
+      assertEquals(JournalRecord.Type.GAME_STARTED, replayed.get(1).getType());
+      assertEquals(2L, replayed.get(1).getSequence());
+    }
+  }
+
+  @Test
+  public void shouldRestartFromSnapshotAndReplayOnlyTheTail() throws Exception
+  {
+    var directory = folder.getRoot().toPath();
+    try (var journal = Journal.open(directory, SEGMENT_BYTES, false, HOURLY))
+    {
+      playGame(journal, 200);
+    }
+
+    try (var journal = Journal.open(directory, SEGMENT_BYTES, false, HOURLY))
+    {
+      // closing snapshotted everything, leaving only the segment being written to
+      assertEquals(1, journal.segmentPaths().size());
+      assertEquals(1L, countFiles(directory, ".snapshot"));
+      assertEquals(200 * Game.WHACK_POINTS, journal.recovered().getPlayers().get(0).getScore().getTotal());
+
+      journal.append(JournalRecord.playerLeft("dan"));
+    }
+
+    try (var journal = Journal.open(directory, SEGMENT_BYTES, false, HOURLY))
+    {
+      assertTrue(journal.recovered().getPlayers().isEmpty());
+      assertEquals(402L, journal.getLastSequence());
+    }
+  }
+
+  @Test
+  public void shouldRecoverTheScoresOfAGamePlayedConcurrently() throws Exception
+  {
+    var directory = folder.getRoot().toPath();
+    var executor = Executors.newFixedThreadPool(8);
+    var game = new Game(10L, 100L, null, new ConcurrentCommandProcessor(executor));
+    var liveScores = new HashMap<String, Integer>();
+    try (var journal = Journal.open(directory, 1024 * 1024, false))
+    {
+      // dawdles over every change, so any gap between a change and the journal hearing of it is wide open
+      game.addListener(new GameListener()
+      {
+        @Override
+        public void gameStarted()
+        {
+          dawdle();
+        }
+
+        @Override
+        public void moleSpawned(Mole mole)
+        {
+          dawdle();
+        }
+      });
+      game.addOrderedListener(new GameJournaler(journal));
+      var players = List.of(Player.newPlayer("dan"), Player.newPlayer("kim"), Player.newPlayer("sam"));
+      for (var player : players)
+      {
+        game.register(player).toCompletableFuture().get();
+      }
+      game.start().toCompletableFuture().get();
+
+      var whackers = new ArrayList<CompletableFuture<Void>>();
+      var resetsEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500L);
+      var deadline = resetsEnd + TimeUnit.MILLISECONDS.toNanos(500L);
+      for (var player : players)
+      {
+        whackers.add(CompletableFuture.runAsync(() -> {
+          while (System.nanoTime() < deadline)
+          {
+            game.activeMoles()
+                .toCompletableFuture()
+                .join()
+                .forEach(mole -> game.whack(mole, player).toCompletableFuture().join());
+          }
+        }));
+      }
+      // resets every score while whacks are landing
+      while (System.nanoTime() < resetsEnd)
+      {
+        game.start().toCompletableFuture().get();
+        Thread.sleep(50L);
+      }
+      CompletableFuture.allOf(whackers.toArray(CompletableFuture[]::new)).get();
+      game.stop().toCompletableFuture().get();
+      game.activePlayers()
+          .toCompletableFuture()
+          .get()
+          .forEach(player -> liveScores.put(player.getName(), player.getScore().getTotal()));
+      journal.sync().toCompletableFuture().get();
+    }
+    finally
+    {
+      game.shutdown();
+      executor.shutdownNow();
+    }
+
+    try (var journal = Journal.open(directory, 1024 * 1024, false))
+    {
+      var recoveredScores = new HashMap<String, Integer>();
+      journal.recovered()
+             .getPlayers()
+             .forEach(player -> recoveredScores.put(player.getName(), player.getScore().getTotal()));
+
+      assertEquals(liveScores, recoveredScores);
+    }
+  }
+
+  @Test
+  public void shouldRecoverTheSameGameWithAndWithoutSnapshot() throws Exception
+  {
+    var rounds = 5_000;
+    var replayAllDirectory = folder.newFolder("replay-all").toPath();
+    var snapshotDirectory = folder.newFolder("snapshot").toPath();
+    try (var journal = Journal.open(replayAllDirectory, SEGMENT_BYTES, false))
+    {
+      playGame(journal, rounds);
+    }
+    try (var journal = Journal.open(snapshotDirectory, SEGMENT_BYTES, false, HOURLY))
+    {
+      playGame(journal, rounds);
+    }
+
+    assertRecovered(replayAllDirectory, rounds);
+    assertRecovered(snapshotDirectory, rounds);
+  }
+
+  private static void dawdle()
+  {
+    try
+    {
+      Thread.sleep(1L);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  static void playGame(Journal journal, int rounds) throws ExecutionException, InterruptedException
+  {
+    journal.append(JournalRecord.playerJoined("dan"));
+    for (var i = 0; i < rounds; i++)
+    {
+      var moleId = UUID.randomUUID();
+      journal.append(JournalRecord.moleSpawned(moleId));
+      journal.append(JournalRecord.moleWhacked(moleId, "dan"));
+    }
+    journal.sync().toCompletableFuture().get();
+  }
+
+  private static void assertRecovered(Path directory, int rounds) throws IOException
+  {
+    try (var journal = Journal.open(directory, SEGMENT_BYTES, false, HOURLY))
+    {
+      assertEquals(rounds * 2L + 1L, journal.getLastSequence());
+      assertEquals(rounds * Game.WHACK_POINTS, journal.recovered().getPlayers().get(0).getScore().getTotal());
+      assertTrue(journal.recovered().getActiveMoles().isEmpty());
+    }
+  }
+
+  private static long countFiles(Path directory, String suffix) throws IOException
+  {
+    try (var files = Files.list(directory))
+    {
+      return files.filter(path -> path.getFileName().toString().endsWith(suffix)).count();
+    }
+  }
+
+  private void tearLastRecord() throws IOException
+  {
+    var segment = folder.getRoot().toPath().resolve(String.format("%020d.journal", 1L));
+    try (var channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE))
+    {
+      var length = ByteBuffer.allocate(4);
+      channel.read(length, 0L);
+      // frame: length and checksum ints, then the sequence and body they cover
+      var secondFrame = 8 + length.getInt(0);
+      channel.write(ByteBuffer.wrap(new byte[] {(byte) 0x7f}), secondFrame + 8 + 8 + 1);
+    }
+  }
+
+  private static List<JournalRecord> replay(Journal journal, long afterSequence) throws IOException
+  {
+    var replayed = new ArrayList<JournalRecord>();
+    journal.replay(afterSequence, replayed::add);
+    return replayed;
+  }
+}
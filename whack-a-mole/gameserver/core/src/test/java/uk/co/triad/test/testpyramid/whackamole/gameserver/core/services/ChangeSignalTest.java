@@ -0,0 +1,43 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.services;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.*;
+
+public class ChangeSignalTest
+{
+  private final ChangeSignal signal = new ChangeSignal(ForkJoinPool.commonPool());
+  private final AtomicInteger value = new AtomicInteger();
+
+  @Test
+  public void shouldWakeAParkedReaderWhenSignalled() throws Exception
+  {
+    var result = signal.awaitReady(() -> CompletableFuture.completedFuture(value.get()), read -> read > 0, 5000L);
+    await().atMost(5, SECONDS).until(() -> signal.getWaitingCount() == 1);
+
+    value.set(1);
+    signal.signal();
+
+    assertEquals(1, (int) result.toCompletableFuture().get(5, SECONDS));
+    assertEquals(0, signal.getWaitingCount());
+  }
+
+  @Test
+  public void shouldLeaveNothingWaitingOnceReadersHaveTimedOut() throws Exception
+  {
+    for (var i = 0; i < 100; i++)
+    {
+      var result = signal.awaitReady(() -> CompletableFuture.completedFuture(value.get()), read -> read > 0, 1L);
+
+      assertEquals(0, (int) result.toCompletableFuture().get(5, SECONDS));
+    }
+
+    assertEquals(0, signal.getWaitingCount());
+  }
+}
@@ -0,0 +1,132 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.EventLog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.*;
+
+public class EventSubscriptionTest
+{
+  private EventLog<String> eventLog;
+  private RecordingSink sink;
+  private List<Runnable> pendingSends;
+  private Executor manualExecutor;
+
+  @Before
+  public void setUp()
+  {
+    eventLog = new EventLog<>(64);
+    sink = new RecordingSink();
+    pendingSends = new ArrayList<>();
+    manualExecutor = pendingSends::add;
+  }
+
+  @Test
+  public void shouldSendEventsInOrder()
+  {
+    var subscription = new EventSubscription<>(8, SlowConsumerPolicy.DROP_OLDEST, Runnable::run, sink);
+
+    subscription.offer(eventLog.append("event1"));
+    subscription.offer(eventLog.append("event2"));
+
+    assertEquals(List.of("event1", "event2"), sink.events());
+  }
+
+  @Test
+  public void shouldDropOldestEventsForSlowConsumer()
+  {
+    var subscription = new EventSubscription<>(2, SlowConsumerPolicy.DROP_OLDEST, manualExecutor, sink);
+
+    for (var i = 1; i <= 5; i++)
+    {
+      assertTrue(subscription.offer(eventLog.append("event" + i)));
+    }
+    pendingSends.forEach(Runnable::run);
+
+    assertEquals(List.of("event4", "event5"), sink.events());
+    assertEquals(3L, subscription.getDropped());
+    assertFalse(subscription.isClosed());
+  }
+
+  @Test
+  public void shouldDisconnectSlowConsumer()
+  {
+    var subscription = new EventSubscription<>(2, SlowConsumerPolicy.DISCONNECT, manualExecutor, sink);
+
+    subscription.offer(eventLog.append("event1"));
+    subscription.offer(eventLog.append("event2"));
+    var accepted = subscription.offer(eventLog.append("event3"));
+    pendingSends.forEach(Runnable::run);
+
+    assertFalse(accepted);
+    assertTrue(subscription.isClosed());
+    assertTrue(sink.closed);
+    assertTrue(sink.events().isEmpty());
+  }
+
+  @Test
+  public void shouldCloseWhenSubscriberGoesAway()
+  {
+    sink.failSends = true;
+    var subscription = new EventSubscription<>(8, SlowConsumerPolicy.DROP_OLDEST, Runnable::run, sink);
+
+    subscription.offer(eventLog.append("event1"));
+
+    assertTrue(subscription.isClosed());
+    assertFalse(subscription.offer(eventLog.append("event2")));
+  }
+
+  @Test
+  public void shouldDeliverEventsOfferedWhileSending()
+  {
+    var subscription = new EventSubscription<>(1024,
+                                             SlowConsumerPolicy.DROP_OLDEST,
+                                             command -> new Thread(command).start(),
+                                             sink);
+
+    for (var i = 0; i < 1000; i++)
+    {
+      subscription.offer(eventLog.append("event" + i));
+    }
+
+    await().atMost(5, SECONDS).until(() -> sink.events().size() == 1000);
+  }
+
+  private static class RecordingSink implements EventSubscription.Sink<EventLog.Entry<String>>
+  {
+    private final List<EventLog.Entry<String>> sent = new CopyOnWriteArrayList<>();
+    private volatile boolean failSends;
+    private volatile boolean closed;
+
+    @Override
+    public void send(EventLog.Entry<String> event) throws IOException
+    {
+      if (failSends)
+      {
+        throw new IOException("Broken pipe");
+      }
+      sent.add(event);
+    }
+
+    @Override
+    public void close()
+    {
+      closed = true;
+    }
+
+    private List<String> events()
+    {
+      return sent.stream().map(EventLog.Entry::getEvent).collect(Collectors.toList());
+    }
+  }
+}
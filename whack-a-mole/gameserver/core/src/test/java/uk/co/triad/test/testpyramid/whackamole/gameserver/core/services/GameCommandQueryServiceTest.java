@@ -2,16 +2,24 @@ package uk.co.triad.test.testpyramid.whackamole.gameserver.core.services;
 
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.*;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -19,23 +27,229 @@ import static org.mockito.Mockito.*;
 public class GameCommandQueryServiceTest
 {
   @Mock private Game mockedGame;
-  @InjectMocks private GameCommandQueryService gameCommandQueryService;
+  private GameCommandQueryService gameCommandQueryService;
   private static final String EXCEPTION_EXPECTED = "Exception should have been thrown";
+  private static final long EPOCH = 7L;
 
   @Before
   public void setUp()
   {
     MockitoAnnotations.initMocks(this);
+    when(mockedGame.getVersionEpoch()).thenReturn(EPOCH);
     gameCommandQueryService = new GameCommandQueryService(mockedGame);
   }
 
+  @Test
+  public void shouldListenForGameEvents()
+  {
+    verify(mockedGame, times(1)).addListener(gameCommandQueryService);
+  }
+
+  @Test
+  public void shouldCreateOneEventForExpiredMole() throws ExecutionException, InterruptedException
+  {
+    gameCommandQueryService.moleExpired(Mole.newMole());
+
+    assertEquals(1, gameCommandQueryService.getUnreadEvents().toCompletableFuture().get().size());
+  }
+
+  @Test
+  public void shouldLetEveryReaderSeeEveryEvent() throws ExecutionException, InterruptedException
+  {
+    gameCommandQueryService.moleExpired(Mole.newMole());
+    gameCommandQueryService.moleExpired(Mole.newMole());
+
+    var firstReader = gameCommandQueryService.getEventsAfter(EPOCH, 0L).toCompletableFuture().get();
+    var secondReader = gameCommandQueryService.getEventsAfter(EPOCH, 0L).toCompletableFuture().get();
+    var firstReaderAgain = gameCommandQueryService.getEventsAfter(EPOCH, firstReader.getLastSequence())
+                                                  .toCompletableFuture()
+                                                  .get();
+
+    assertEquals(2, firstReader.getEntries().size());
+    assertEquals(2, secondReader.getEntries().size());
+    assertTrue(firstReaderAgain.getEntries().isEmpty());
+    assertFalse(firstReaderAgain.isReset());
+  }
+
+  @Test
+  public void shouldResetReadersWhoseSequenceIsNotFromThisRoomsLog() throws Exception
+  {
+    gameCommandQueryService.moleExpired(Mole.newMole());
+    gameCommandQueryService.moleExpired(Mole.newMole());
+
+    // e.g. held from before the room was recreated: from another epoch, or simply further on than this log has got
+    for (var page : List.of(gameCommandQueryService.getEventsAfter(EPOCH + 1, 1L).toCompletableFuture().get(),
+                            gameCommandQueryService.getEventsAfter(EPOCH, 50L).toCompletableFuture().get(),
+                            gameCommandQueryService.getEventsAfter(EPOCH, 50L, 10000L)
+                                                   .toCompletableFuture()
+                                                   .get(2, TimeUnit.SECONDS)))
+    {
+      assertTrue(page.isReset());
+      assertEquals(List.of(1L, 2L),
+                   page.getEntries().stream().map(EventLog.Entry::getSequence).collect(Collectors.toList()));
+      assertEquals(2L, page.getLastSequence());
+    }
+  }
+
+  @Test
+  public void shouldPushEventsToSubscribersUntilTheyClose()
+  {
+    @SuppressWarnings("unchecked")
+    EventSubscription<EventLog.Entry<GameEvent>> subscription = mock(EventSubscription.class);
+    when(subscription.offer(any())).thenReturn(true).thenReturn(false);
+    gameCommandQueryService.subscribe(subscription);
+
+    gameCommandQueryService.moleExpired(Mole.newMole());
+    gameCommandQueryService.moleExpired(Mole.newMole());
+    gameCommandQueryService.moleExpired(Mole.newMole());
+
+    verify(subscription, times(2)).offer(any());
+  }
+
+  @Test
+  public void shouldOfferSubscribersEventsInSequenceWhenTheyArriveConcurrently() throws Exception
+  {
+    assertOfferedInSequenceWhenAppendedBy(8);
+  }
+
+  @Test
+  public void shouldOfferSubscribersEventsInSequenceWithMoreAppendersThanCores() throws Exception
+  {
+    // appenders preempted mid-append are the ones whoever is publishing has to leave their events to
+    assertOfferedInSequenceWhenAppendedBy(Runtime.getRuntime().availableProcessors() * 4);
+  }
+
+  private void assertOfferedInSequenceWhenAppendedBy(int threads) throws InterruptedException
+  {
+    // all within the log's capacity, so none can be missed
+    var eventsPerThread = GameCommandQueryService.DEFAULT_EVENT_CAPACITY / threads;
+    var sent = new ConcurrentLinkedQueue<Long>();
+    gameCommandQueryService.subscribe(new EventSubscription<>(GameCommandQueryService.DEFAULT_EVENT_CAPACITY,
+                                                              SlowConsumerPolicy.DISCONNECT,
+                                                              Runnable::run,
+                                                              sequenceRecorder(sent)));
+    var start = new CountDownLatch(1);
+    var expirers = new ArrayList<Thread>();
+    for (var i = 0; i < threads; i++)
+    {
+      var expirer = new Thread(() -> {
+        try
+        {
+          start.await();
+        }
+        catch (InterruptedException e)
+        {
+          return;
+        }
+        for (var j = 0; j < eventsPerThread; j++)
+        {
+          gameCommandQueryService.moleExpired(Mole.newMole());
+        }
+      });
+      expirer.start();
+      expirers.add(expirer);
+    }
+    start.countDown();
+    for (var expirer : expirers)
+    {
+      expirer.join();
+    }
+
+    var expected = LongStream.rangeClosed(1L, threads * eventsPerThread).boxed().collect(Collectors.toList());
+    assertEquals(expected, List.copyOf(sent));
+  }
+
+  @Test
+  public void shouldParkMolesRequestUntilAMoleSpawns() throws Exception
+  {
+    var mole = Mole.newMole();
+    when(mockedGame.activeMoles()).thenReturn(CompletableFuture.completedFuture(List.of()))
+                                  .thenReturn(CompletableFuture.completedFuture(List.of(mole)));
+
+    var moles = gameCommandQueryService.activeMoles(10000L).toCompletableFuture();
+    assertFalse(moles.isDone());
+
+    gameCommandQueryService.moleSpawned(mole);
+
+    assertEquals(List.of(mole), moles.get(2, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldParkScoresVersionRequestUntilAScoreChanges() throws Exception
+  {
+    when(mockedGame.getScoresVersion()).thenReturn(3L).thenReturn(4L);
+
+    var version = gameCommandQueryService.scoresVersionAfter(3L, 10000L).toCompletableFuture();
+    assertFalse(version.isDone());
+
+    gameCommandQueryService.scoreReset(Player.newPlayer("dan"));
+
+    assertEquals(Long.valueOf(4L), version.get(2, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldAnswerParkedMolesVersionRequestUnchangedOnceWaitIsUp() throws Exception
+  {
+    when(mockedGame.getMolesVersion()).thenReturn(5L);
+
+    assertEquals(Long.valueOf(5L),
+                 gameCommandQueryService.molesVersionAfter(5L, 50L).toCompletableFuture().get(2, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldAnswerParkedEventsRequestEmptyOnceWaitIsUp() throws Exception
+  {
+    var started = System.nanoTime();
+
+    var page = gameCommandQueryService.getEventsAfter(EPOCH, 0L, 50L).toCompletableFuture().get(2, TimeUnit.SECONDS);
+
+    assertTrue(page.getEntries().isEmpty());
+    assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(50L));
+  }
+
+  @Test
+  public void shouldAnswerParkedEventsRequestAsSoonAsAnEventArrives() throws Exception
+  {
+    var page = gameCommandQueryService.getEventsAfter(EPOCH, 0L, 10000L).toCompletableFuture();
+    assertFalse(page.isDone());
+
+    gameCommandQueryService.moleExpired(Mole.newMole());
+
+    assertEquals(1, page.get(2, TimeUnit.SECONDS).getEntries().size());
+  }
+
+  @Test
+  public void shouldHandOutUnreadEventsOnce() throws ExecutionException, InterruptedException
+  {
+    gameCommandQueryService.moleExpired(Mole.newMole());
+
+    assertEquals(1, gameCommandQueryService.getUnreadEvents().toCompletableFuture().get().size());
+    assertTrue(gameCommandQueryService.getUnreadEvents().toCompletableFuture().get().isEmpty());
+  }
+
+  @Test
+  public void shouldFindEventsByPlayerWithoutMovingTheUnreadCursor() throws Exception
+  {
+    when(mockedGame.whack(any(Mole.class),
+                          any(Player.class))).thenReturn(CompletableFuture.completedFuture(Boolean.TRUE));
+    gameCommandQueryService.whack(Mole.newMole(), Player.newPlayer("dan")).toCompletableFuture().get();
+    gameCommandQueryService.whack(Mole.newMole(), Player.newPlayer("dave")).toCompletableFuture().get();
+
+    var found = gameCommandQueryService.findEvents("dan", null, 0L, Long.MAX_VALUE).toCompletableFuture().get();
+
+    assertEquals(1, found.size());
+    assertEquals("dan", found.get(0).getEvent().getPlayerName());
+    assertEquals(2, gameCommandQueryService.getUnreadEvents().toCompletableFuture().get().size());
+  }
+
   @Test
   public void shouldRegisterPlayerAndCreateOneEvent() throws ExecutionException, InterruptedException
   {
-    when(mockedGame.register(any(Player.class))).thenReturn(CompletableFuture.completedFuture(null));
+    when(mockedGame.register(any(Player.class))).thenReturn(CompletableFuture.completedFuture(7L));
 
-    gameCommandQueryService.register(Player.newPlayer("dan")).toCompletableFuture().get();
+    var handle = gameCommandQueryService.register(Player.newPlayer("dan")).toCompletableFuture().get();
 
+    assertEquals(Long.valueOf(7L), handle);
     verify(mockedGame, times(1)).register(any(Player.class));
     assertEquals(1, gameCommandQueryService.getUnreadEvents().toCompletableFuture().get().size());
   }
@@ -45,7 +259,7 @@ public class GameCommandQueryServiceTest
                                                                                  InterruptedException,
                                                                                  ExecutionException
   {
-    var failFlow = new CompletableFuture<Void>();
+    var failFlow = new CompletableFuture<Long>();
     failFlow.completeExceptionally((new PlayerAlreadyRegisteredException("TestDuplicatedPlayer")));
     when(mockedGame.register(any(Player.class))).thenReturn(failFlow);
 
@@ -150,6 +364,21 @@ public class GameCommandQueryServiceTest
     assertEquals(1, gameCommandQueryService.getUnreadEvents().toCompletableFuture().get().size());
   }
 
+  @Test
+  public void shouldRecordWhoHitWhichMole() throws ExecutionException, InterruptedException
+  {
+    var mole = Mole.newMole();
+    when(mockedGame.whack(any(Mole.class),
+                          any(Player.class))).thenReturn(CompletableFuture.completedFuture(Boolean.TRUE));
+
+    gameCommandQueryService.whack(mole, Player.newPlayer("dan")).toCompletableFuture().get();
+
+    var event = gameCommandQueryService.getUnreadEvents().toCompletableFuture().get().get(0).getEvent();
+    assertEquals(GameEventType.MOLE_HIT, event.getType());
+    assertEquals("dan", event.getPlayerName());
+    assertEquals(mole.getId(), event.getMoleId());
+  }
+
   @Test
   public void shouldReturnFalseForMissedMoleAndCreateOneEvent() throws ExecutionException, InterruptedException
   {
@@ -163,6 +392,23 @@ public class GameCommandQueryServiceTest
     assertEquals(1, gameCommandQueryService.getUnreadEvents().toCompletableFuture().get().size());
   }
 
+  @Test
+  public void shouldCreateOneEventPerWhackInABatch() throws ExecutionException, InterruptedException
+  {
+    var whacks = List.of(Whack.newWhack(Mole.newMole(), Player.newPlayer("dan")),
+                         Whack.newWhack(Mole.newMole(), Player.newPlayer("dave")));
+    when(mockedGame.whackAll(whacks)).thenReturn(CompletableFuture.completedFuture(List.of(WhackResult.HIT,
+                                                                                           WhackResult.NOT_REGISTERED)));
+
+    var results = gameCommandQueryService.whackAll(whacks).toCompletableFuture().get();
+
+    assertEquals(List.of(WhackResult.HIT, WhackResult.NOT_REGISTERED), results);
+    var events = gameCommandQueryService.getUnreadEvents().toCompletableFuture().get();
+    assertEquals(GameEventType.MOLE_HIT, events.get(0).getEvent().getType());
+    assertEquals(GameEventType.WHACK_BY_NON_PLAYER, events.get(1).getEvent().getType());
+    assertEquals("dave", events.get(1).getEvent().getPlayerName());
+  }
+
   @Test
   public void shouldThrownExceptionForNonPlayerWhackAttemptAndCreateOneEvent() throws
                                                                                ExecutionException,
@@ -185,4 +431,22 @@ public class GameCommandQueryServiceTest
     verify(mockedGame, times(1)).whack(any(Mole.class), any(Player.class));
     assertEquals(1, gameCommandQueryService.getUnreadEvents().toCompletableFuture().get().size());
   }
+
+  private static EventSubscription.Sink<EventLog.Entry<GameEvent>> sequenceRecorder(Collection<Long> sequences)
+  {
+    return new EventSubscription.Sink<>()
+    {
+      @Override
+      public void send(EventLog.Entry<GameEvent> event)
+      {
+        sequences.add(event.getSequence());
+      }
+
+      @Override
+      public void close()
+      {
+        // nothing to close
+      }
+    };
+  }
 }
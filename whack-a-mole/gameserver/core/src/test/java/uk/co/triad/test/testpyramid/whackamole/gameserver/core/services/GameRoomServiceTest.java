@@ -0,0 +1,401 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.core.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.EngineMode;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Game;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameListener;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.history.GameHistory;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal.GameJournals;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal.Journal;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.*;
+
+public class GameRoomServiceTest
+{
+  // the default room and two more
+  private static final int MAX_ROOMS = 3;
+  private static final long NEVER_IDLE = 0L;
+  private static final Executor COMMON_POOL = ForkJoinPool.commonPool();
+  @Rule public TemporaryFolder journalFolder = new TemporaryFolder();
+  private GameRoomService gameRoomService;
+
+  @Before
+  public void setUp()
+  {
+    gameRoomService = new GameRoomService(20L,
+                                          60L,
+                                          MAX_ROOMS,
+                                          NEVER_IDLE,
+                                          0,
+                                          EngineMode.CONCURRENT,
+                                          16,
+                                          16,
+                                          COMMON_POOL,
+                                          COMMON_POOL,
+                                          GameJournals.disabled(),
+                                          GameHistory.disabled());
+  }
+
+  @After
+  public void tearDown()
+  {
+    gameRoomService.shutdown();
+  }
+
+  @Test
+  public void shouldReturnSameRoomForSameGameId()
+  {
+    assertSame(gameRoomService.openRoom("room1"), gameRoomService.room("room1"));
+    assertSame(gameRoomService.room("room1"), gameRoomService.openRoom("room1"));
+  }
+
+  @Test(expected = GameRoomNotFoundException.class)
+  public void shouldNotCreateARoomJustByLookingItUp()
+  {
+    gameRoomService.room("room1");
+  }
+
+  @Test
+  public void shouldUseDefaultRoomWhenNoGameIdGiven()
+  {
+    assertSame(gameRoomService.room(GameRoomService.DEFAULT_GAME_ID), gameRoomService.room(null));
+  }
+
+  @Test
+  public void shouldKeepPlayersSeparateBetweenRooms() throws ExecutionException, InterruptedException
+  {
+    gameRoomService.openRoom("room1").register(Player.newPlayer("dan")).toCompletableFuture().get();
+
+    assertEquals(1, gameRoomService.room("room1").activePlayers().toCompletableFuture().get().size());
+    assertTrue(gameRoomService.openRoom("room2").activePlayers().toCompletableFuture().get().isEmpty());
+    assertEquals(Set.of(GameRoomService.DEFAULT_GAME_ID, "room1", "room2"), gameRoomService.gameIds());
+  }
+
+  @Test
+  public void shouldPlayInSingleWriterMode() throws ExecutionException, InterruptedException
+  {
+    var singleWriterRooms = new GameRoomService(20L,
+                                                60L,
+                                                MAX_ROOMS,
+                                                NEVER_IDLE,
+                                                0,
+                                                EngineMode.SINGLE_WRITER,
+                                                16,
+                                                16,
+                                                COMMON_POOL,
+                                                COMMON_POOL,
+                                                GameJournals.disabled(),
+                                                GameHistory.disabled());
+    try
+    {
+      var room = singleWriterRooms.openRoom("room1");
+      room.register(Player.newPlayer("dan")).toCompletableFuture().get();
+      room.start().toCompletableFuture().get();
+      room.stop().toCompletableFuture().get();
+
+      assertEquals(1, room.activePlayers().toCompletableFuture().get().size());
+      assertTrue(room.activeMoles().toCompletableFuture().get().isEmpty());
+    }
+    finally
+    {
+      singleWriterRooms.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldRebuildJournaledRoomsOnStartup() throws Exception
+  {
+    var journals = new GameJournals(true, journalFolder.getRoot().toString(), 64 * 1024, false, 1L);
+    var firstRun = newJournaledRoomService(journals, MAX_ROOMS);
+    try
+    {
+      var room = firstRun.openRoom("room1");
+      room.register(Player.newPlayer("dan")).toCompletableFuture().get();
+      room.register(Player.newPlayer("bob")).toCompletableFuture().get();
+      room.start().toCompletableFuture().get();
+      await().atMost(5, SECONDS).until(() -> !room.activeMoles().toCompletableFuture().get().isEmpty());
+      var mole = room.activeMoles().toCompletableFuture().get().get(0);
+      assertTrue(room.whack(mole, Player.newPlayer("dan")).toCompletableFuture().get());
+      room.remove(Player.newPlayer("bob")).toCompletableFuture().get();
+    }
+    finally
+    {
+      firstRun.shutdown();
+    }
+
+    var secondRun = newJournaledRoomService(journals, MAX_ROOMS);
+    try
+    {
+      var room = secondRun.room("room1");
+      var players = room.activePlayers().toCompletableFuture().get();
+
+      assertEquals(Set.of(GameRoomService.DEFAULT_GAME_ID, "room1"), secondRun.gameIds());
+      assertEquals(1, players.size());
+      assertEquals("dan", players.get(0).getName());
+      assertEquals(Game.WHACK_POINTS, players.get(0).getScore().getTotal());
+      await().atMost(5, SECONDS).until(() -> !room.activeMoles().toCompletableFuture().get().isEmpty());
+    }
+    finally
+    {
+      secondRun.shutdown();
+    }
+  }
+
+  @Test(expected = GameRoomLimitExceededException.class)
+  public void shouldRefuseRoomsBeyondLimit()
+  {
+    for (var i = 0; i <= MAX_ROOMS; i++)
+    {
+      gameRoomService.openRoom("room" + i);
+    }
+  }
+
+  @Test
+  public void shouldNeverHostMoreRoomsThanTheLimitWhenOpenedConcurrently() throws Exception
+  {
+    var opened = new AtomicInteger();
+    var openers = new ArrayList<Callable<Void>>();
+    for (var i = 0; i < 32; i++)
+    {
+      var gameId = "room" + i;
+      openers.add(() -> {
+        try
+        {
+          gameRoomService.openRoom(gameId);
+          opened.incrementAndGet();
+        }
+        catch (GameRoomLimitExceededException e)
+        {
+          // expected for all but the first to get in
+        }
+        return null;
+      });
+    }
+    var pool = Executors.newFixedThreadPool(8);
+    try
+    {
+      for (var result : pool.invokeAll(openers))
+      {
+        result.get();
+      }
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+
+    assertEquals(MAX_ROOMS - 1, opened.get());
+    assertEquals(MAX_ROOMS, gameRoomService.gameIds().size());
+  }
+
+  @Test
+  public void shouldRebuildNoMoreJournaledRoomsThanTheLimit() throws Exception
+  {
+    var journals = new GameJournals(true, journalFolder.getRoot().toString(), 64 * 1024, false, 1L);
+    var firstRun = newJournaledRoomService(journals, MAX_ROOMS);
+    try
+    {
+      firstRun.openRoom("room1").register(Player.newPlayer("dan")).toCompletableFuture().get();
+      firstRun.openRoom("room2").register(Player.newPlayer("bob")).toCompletableFuture().get();
+    }
+    finally
+    {
+      firstRun.shutdown();
+    }
+
+    var secondRun = newJournaledRoomService(journals, 2);
+    try
+    {
+      assertEquals(2, secondRun.gameIds().size());
+      assertTrue(secondRun.gameIds().contains(GameRoomService.DEFAULT_GAME_ID));
+    }
+    finally
+    {
+      secondRun.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldOpenOtherRoomsWhileOneIsRebuiltFromItsJournal() throws Exception
+  {
+    var rebuilding = new CountDownLatch(1);
+    var rebuilt = new CountDownLatch(1);
+    var journals = new GameJournals(true, journalFolder.getRoot().toString(), 64 * 1024, false, 1L)
+    {
+      @Override
+      public Journal open(String gameId)
+      {
+        if ("slow".equals(gameId))
+        {
+          rebuilding.countDown();
+          try
+          {
+            rebuilt.await();
+          }
+          catch (InterruptedException e)
+          {
+            Thread.currentThread().interrupt();
+          }
+        }
+        return super.open(gameId);
+      }
+    };
+    var rooms = newJournaledRoomService(journals, MAX_ROOMS);
+    var pool = Executors.newFixedThreadPool(2);
+    try
+    {
+      var firstOpener = pool.submit(() -> rooms.openRoom("slow"));
+      assertTrue(rebuilding.await(5, SECONDS));
+      var secondOpener = pool.submit(() -> rooms.openRoom("slow"));
+
+      rooms.openRoom("quick");
+      assertEquals(Set.of(GameRoomService.DEFAULT_GAME_ID, "quick"), rooms.gameIds());
+      try
+      {
+        rooms.openRoom("another");
+        fail("The room being rebuilt should count towards the limit");
+      }
+      catch (GameRoomLimitExceededException e)
+      {
+        // expected
+      }
+
+      rebuilt.countDown();
+      assertSame(firstOpener.get(5, SECONDS), secondOpener.get(5, SECONDS));
+      assertEquals(Set.of(GameRoomService.DEFAULT_GAME_ID, "slow", "quick"), rooms.gameIds());
+    }
+    finally
+    {
+      rebuilt.countDown();
+      pool.shutdown();
+      rooms.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldEvictRoomsLeftIdleAndFreeTheirPlaces() throws Exception
+  {
+    var idleRooms = newQuicklyIdleRoomService(2);
+    try
+    {
+      idleRooms.openRoom("room1").start().toCompletableFuture().get();
+
+      await().atMost(5, SECONDS).until(() -> Set.of(GameRoomService.DEFAULT_GAME_ID).equals(idleRooms.gameIds()));
+
+      idleRooms.openRoom("room2");
+      assertEquals(Set.of(GameRoomService.DEFAULT_GAME_ID, "room2"), idleRooms.gameIds());
+    }
+    finally
+    {
+      idleRooms.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldNotEvictARoomSomeoneIsStillWatching() throws Exception
+  {
+    var idleRooms = newQuicklyIdleRoomService(MAX_ROOMS);
+    try
+    {
+      var watcher = new GameListener()
+      {
+      };
+      var room = idleRooms.openRoom("room1");
+      room.addListener(watcher);
+
+      Thread.sleep(300L);
+      assertTrue(idleRooms.gameIds().contains("room1"));
+
+      room.removeListener(watcher);
+      await().atMost(5, SECONDS).until(() -> !idleRooms.gameIds().contains("room1"));
+    }
+    finally
+    {
+      idleRooms.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldAnswerAMolesVersionFromBeforeItsRoomWasRecreatedWithASnapshot() throws Exception
+  {
+    var idleRooms = newQuicklyIdleRoomService(MAX_ROOMS);
+    try
+    {
+      var staleEpoch = idleRooms.openRoom("room1").versionEpoch();
+      await().atMost(5, SECONDS).until(() -> !idleRooms.gameIds().contains("room1"));
+
+      var room = idleRooms.openRoom("room1");
+      // watched, so it is not evicted in turn while its moles come and go
+      room.addListener(new GameListener()
+      {
+      });
+      room.start().toCompletableFuture().get();
+      await().atMost(5, SECONDS).until(() -> room.molesVersion() > 2L);
+
+      var changes = room.molesSince(staleEpoch, 1L).toCompletableFuture().get();
+
+      assertTrue(changes.isSnapshot());
+      assertEquals(room.versionEpoch(), changes.getEpoch());
+      assertFalse(room.molesSince(room.versionEpoch(), 1L).toCompletableFuture().get().isSnapshot());
+    }
+    finally
+    {
+      idleRooms.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldCreateOneShardPerCoreByDefault()
+  {
+    assertEquals(Runtime.getRuntime().availableProcessors(), gameRoomService.getShardCount());
+  }
+
+  private static GameRoomService newQuicklyIdleRoomService(int maxRooms)
+  {
+    return new GameRoomService(20L,
+                               60L,
+                               maxRooms,
+                               50L,
+                               0,
+                               EngineMode.CONCURRENT,
+                               16,
+                               16,
+                               COMMON_POOL,
+                               COMMON_POOL,
+                               GameJournals.disabled(),
+                               GameHistory.disabled());
+  }
+
+  private static GameRoomService newJournaledRoomService(GameJournals journals, int maxRooms)
+  {
+    return new GameRoomService(20L,
+                               60000L,
+                               maxRooms,
+                               NEVER_IDLE,
+                               1,
+                               EngineMode.SINGLE_WRITER,
+                               16,
+                               16,
+                               COMMON_POOL,
+                               COMMON_POOL,
+                               journals,
+                               GameHistory.disabled());
+  }
+}
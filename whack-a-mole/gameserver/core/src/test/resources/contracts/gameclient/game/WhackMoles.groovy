@@ -0,0 +1,71 @@
+package contracts.gameclient.game
+
+import org.springframework.cloud.contract.spec.Contract
+
+[
+        Contract.make {
+            name("should whack a batch of moles")
+            request {
+                method POST()
+                url '/game/moles/batch'
+                body(
+                        [
+                                [
+                                        "playerNameDto": ["playerName": "existentPlayer"],
+                                        "moleIdDto"    : ["moleId": "11111111-1111-1111-1111-111111111111"]
+                                ],
+                                [
+                                        "playerNameDto": ["playerName": "existentPlayer"],
+                                        "moleIdDto"    : ["moleId": "00000000-0000-0000-0000-000000000000"]
+                                ]
+                        ]
+                )
+                headers {
+                    contentType('application/json')
+                }
+            }
+            response {
+                status OK()
+                body(
+                        [
+                                ["moleId": "11111111-1111-1111-1111-111111111111", "result": "HIT"],
+                                ["moleId": "00000000-0000-0000-0000-000000000000", "result": "MISSED"]
+                        ]
+                )
+                headers {
+                    contentType('application/json')
+                }
+                async()
+            }
+        },
+        Contract.make {
+            name("non-player should not whack a batch of moles")
+            request {
+                method POST()
+                url '/game/moles/batch'
+                body(
+                        [
+                                [
+                                        "playerNameDto": ["playerName": "nonExistentPlayer"],
+                                        "moleIdDto"    : ["moleId": "11111111-1111-1111-1111-111111111111"]
+                                ]
+                        ]
+                )
+                headers {
+                    contentType('application/json')
+                }
+            }
+            response {
+                status OK()
+                body(
+                        [
+                                ["moleId": "11111111-1111-1111-1111-111111111111", "result": "NOT_REGISTERED"]
+                        ]
+                )
+                headers {
+                    contentType('application/json')
+                }
+                async()
+            }
+        }
+]
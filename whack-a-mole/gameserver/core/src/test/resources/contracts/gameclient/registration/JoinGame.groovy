@@ -19,6 +19,14 @@ import org.springframework.cloud.contract.spec.Contract
             }
             response {
                 status OK()
+                body(
+                        [
+                                "playerHandle": 42
+                        ]
+                )
+                headers {
+                    contentType('application/json')
+                }
                 async()
             }
         },
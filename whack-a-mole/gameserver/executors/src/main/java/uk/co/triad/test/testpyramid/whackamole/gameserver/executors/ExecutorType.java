@@ -0,0 +1,8 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.executors;
+
+public enum ExecutorType
+{
+  FIXED,
+  WORK_STEALING,
+  VIRTUAL
+}
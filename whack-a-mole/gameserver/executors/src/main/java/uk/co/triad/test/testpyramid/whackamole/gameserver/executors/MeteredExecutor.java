@@ -0,0 +1,139 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.executors;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A named executor of the configured {@link ExecutorType} that counts tasks waiting for a thread and tasks running,
+ * and publishes both as gauges named after the service using it (e.g. {@code game.executor.queue.depth}).
+ * <p>
+ * Virtual threads need a JDK that has them; on older runtimes {@link ExecutorType#VIRTUAL} falls back to one platform
+ * thread per task.
+ */
+public class MeteredExecutor implements Executor, MeterBinder
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(MeteredExecutor.class);
+  private final String meterPrefix;
+  private final String name;
+  private final ExecutorService delegate;
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicInteger active = new AtomicInteger();
+
+  /**
+   * @param meterPrefix what the gauge names start with, so each service's executors are told apart from another's
+   */
+  public MeteredExecutor(String meterPrefix, String name, ExecutorType type, int threads)
+  {
+    this.meterPrefix = meterPrefix;
+    this.name = name;
+    var poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    switch (type)
+    {
+      case WORK_STEALING:
+        this.delegate = newWorkStealingPool(name, poolSize);
+        break;
+      case VIRTUAL:
+        this.delegate = newThreadPerTaskExecutor(name);
+        break;
+      default:
+        this.delegate = Executors.newFixedThreadPool(poolSize, namedThreads(name));
+    }
+  }
+
+  @Override
+  public void execute(Runnable task)
+  {
+    queued.incrementAndGet();
+    try
+    {
+      delegate.execute(() -> {
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        try
+        {
+          task.run();
+        }
+        finally
+        {
+          active.decrementAndGet();
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      queued.decrementAndGet();
+      throw e;
+    }
+  }
+
+  public String getName()
+  {
+    return name;
+  }
+
+  public int getQueueDepth()
+  {
+    return queued.get();
+  }
+
+  public int getActiveThreads()
+  {
+    return active.get();
+  }
+
+  public void shutdown()
+  {
+    delegate.shutdown();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry)
+  {
+    Gauge.builder(meterPrefix + ".executor.queue.depth", queued, AtomicInteger::get)
+         .tag("name", name)
+         .description("Tasks waiting for a thread")
+         .register(registry);
+    Gauge.builder(meterPrefix + ".executor.active.threads", active, AtomicInteger::get)
+         .tag("name", name)
+         .description("Threads currently running a task")
+         .register(registry);
+  }
+
+  private static ExecutorService newWorkStealingPool(String name, int parallelism)
+  {
+    return new ForkJoinPool(parallelism, pool -> {
+      var worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      worker.setName(name + "-" + worker.getPoolIndex());
+      return worker;
+    }, null, true);
+  }
+
+  private static ExecutorService newThreadPerTaskExecutor(String name)
+  {
+    try
+    {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+    catch (ReflectiveOperationException e)
+    {
+      LOGGER.warn("Virtual threads are not available on this JDK, {} will start a platform thread per task", name);
+      return Executors.newCachedThreadPool(namedThreads(name));
+    }
+  }
+
+  private static ThreadFactory namedThreads(String name)
+  {
+    var count = new AtomicInteger();
+    return runnable -> {
+      var thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,69 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.executors;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+
+public class MeteredExecutorTest
+{
+  @Test
+  public void shouldRunTasksOnEveryExecutorType() throws Exception
+  {
+    for (var type : ExecutorType.values())
+    {
+      var executor = new MeteredExecutor("game", "test-" + type, type, 2);
+      try
+      {
+        assertEquals(type.name(), CompletableFuture.supplyAsync(type::name, executor).get(5, SECONDS));
+      }
+      finally
+      {
+        executor.shutdown();
+      }
+    }
+  }
+
+  @Test
+  public void shouldReportQueueDepthAndActiveThreadsAsGauges() throws Exception
+  {
+    var executor = new MeteredExecutor("game", "test", ExecutorType.FIXED, 1);
+    var registry = new SimpleMeterRegistry();
+    executor.bindTo(registry);
+    var release = new CountDownLatch(1);
+    try
+    {
+      executor.execute(() -> awaitQuietly(release));
+      executor.execute(() -> awaitQuietly(release));
+      await().atMost(2, SECONDS).until(() -> executor.getActiveThreads() == 1);
+
+      assertEquals(1.0, registry.get("game.executor.active.threads").tag("name", "test").gauge().value(), 0.0);
+      assertEquals(1.0, registry.get("game.executor.queue.depth").tag("name", "test").gauge().value(), 0.0);
+
+      release.countDown();
+      await().atMost(2, SECONDS).until(() -> executor.getActiveThreads() == 0 && executor.getQueueDepth() == 0);
+    }
+    finally
+    {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch)
+  {
+    try
+    {
+      latch.await();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
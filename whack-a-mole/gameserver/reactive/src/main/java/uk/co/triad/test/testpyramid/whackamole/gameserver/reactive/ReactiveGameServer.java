@@ -0,0 +1,30 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.ExecutorConfig;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.history.GameHistory;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.journal.GameJournals;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
+
+/**
+ * The game server on Netty: the same game rooms and routes as the servlet GameServer, answered with Mono and Flux.
+ */
+@SpringBootApplication
+@Import({ ExecutorConfig.class, GameJournals.class, GameRoomService.class })
+public class ReactiveGameServer
+{
+  public static void main(String[] args)
+  {
+    SpringApplication.run(ReactiveGameServer.class, args);
+  }
+
+  @Bean
+  public GameHistory gameHistory()
+  {
+    // no database here; journaling still works for durability
+    return GameHistory.disabled();
+  }
+}
@@ -0,0 +1,108 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.reactive.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.EventDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.EventDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.EventLog;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEvent;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.EventSubscription;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.SlowConsumerPolicy;
+
+import java.util.concurrent.Executor;
+
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
+
+/**
+ * Game events as a server-sent event stream that honours the subscriber's demand: events wait in a bounded buffer
+ * until the connection asks for more, and a subscriber that falls a whole buffer behind is handled by the configured
+ * {@link SlowConsumerPolicy}, as in the servlet server.
+ */
+@RestController
+@RequestMapping({ "game", "game/{gameId}" })
+public class ReactiveEventStreamController
+{
+  static final String EVENT_NAME = "game-event";
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveEventStreamController.class);
+  private static final String GAME_ID = "gameId";
+  private GameRoomService gameRoomService;
+  private Executor executor;
+  private int bufferSize;
+  private SlowConsumerPolicy slowConsumerPolicy;
+
+  @Autowired
+  public ReactiveEventStreamController(GameRoomService gameRoomService,
+                                       @Qualifier("serviceExecutor") Executor executor,
+                                       @Value("${game.events.stream.buffer-size:256}") int bufferSize,
+                                       @Value("${game.events.stream.slow-consumer:drop-oldest}")
+                                           SlowConsumerPolicy slowConsumerPolicy)
+  {
+    this.gameRoomService = gameRoomService;
+    this.executor = executor;
+    this.bufferSize = bufferSize;
+    this.slowConsumerPolicy = slowConsumerPolicy;
+  }
+
+  @GetMapping(path = "events/stream", produces = TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<EventDto>> streamEvents(@PathVariable(name = GAME_ID, required = false) String gameId)
+  {
+    LOGGER.info("Stream events");
+    var room = gameRoomService.room(gameId);
+    var events = Flux.<EventLog.Entry<GameEvent>>create(sink -> {
+      var subscription = new EventSubscription<>(bufferSize, slowConsumerPolicy, executor, new FluxEventSink(sink));
+      sink.onDispose(() -> {
+        room.unsubscribe(subscription);
+        subscription.close();
+      });
+      room.subscribe(subscription);
+    });
+    var overflow = slowConsumerPolicy == SlowConsumerPolicy.DROP_OLDEST
+                   ? BufferOverflowStrategy.DROP_OLDEST
+                   : BufferOverflowStrategy.ERROR;
+    // the id lets a reconnecting EventSource resume with GET /game/events?after=<Last-Event-ID>
+    return events.onBackpressureBuffer(bufferSize, this::dropped, overflow)
+                 .map(entry -> ServerSentEvent.builder(EventDtoMapper.createDto(entry))
+                                              .id(String.valueOf(entry.getSequence()))
+                                              .event(EVENT_NAME)
+                                              .build());
+  }
+
+  private void dropped(EventLog.Entry<GameEvent> entry)
+  {
+    LOGGER.debug("Dropped event {} for a slow subscriber", entry.getSequence());
+  }
+
+  private static class FluxEventSink implements EventSubscription.Sink<EventLog.Entry<GameEvent>>
+  {
+    private final FluxSink<EventLog.Entry<GameEvent>> sink;
+
+    FluxEventSink(FluxSink<EventLog.Entry<GameEvent>> sink)
+    {
+      this.sink = sink;
+    }
+
+    @Override
+    public void send(EventLog.Entry<GameEvent> event)
+    {
+      sink.next(event);
+    }
+
+    @Override
+    public void close()
+    {
+      sink.complete();
+    }
+  }
+}
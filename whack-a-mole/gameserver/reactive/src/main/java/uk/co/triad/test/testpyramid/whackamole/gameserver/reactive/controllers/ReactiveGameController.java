@@ -0,0 +1,329 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.reactive.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.EventDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.EventPageDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleChangesDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.WhackDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.WhackResultDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.ETags;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.Epochs;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.JsonListWriter;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.EventDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.MoleChangesDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.MoleIdDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.PlayerScoreDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.WhackDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.WhackResultDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEventType;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerNotRegisteredException;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameCommandQueryService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+
+/**
+ * The routes of the servlet GameController, on WebFlux. The game rooms already answer with CompletionStages, so each
+ * route just adapts one to a Mono; no request ever holds a thread while it waits.
+ */
+@RestController
+@RequestMapping({ "game", "game/{gameId}" })
+public class ReactiveGameController
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveGameController.class);
+  private static final String GAME_ID = "gameId";
+  private static final String WAIT = "wait";
+  private static final String PLAYER = "player";
+  private static final String TYPE = "type";
+  private static final String FROM = "from";
+  private static final String TO = "to";
+  private static final String EVENTS_HELD_FROM = "Events-Held-From";
+  private static final long DEFAULT_MAX_WAIT_MILLIS = 20000L;
+  private GameRoomService gameRoomService;
+  private long maxWaitMillis;
+
+  public ReactiveGameController(GameRoomService gameRoomService)
+  {
+    this(gameRoomService, DEFAULT_MAX_WAIT_MILLIS);
+  }
+
+  @Autowired
+  public ReactiveGameController(GameRoomService gameRoomService,
+                                @Value("${game.poll.max-wait-millis:20000}") long maxWaitMillis)
+  {
+    this.gameRoomService = gameRoomService;
+    this.maxWaitMillis = maxWaitMillis;
+  }
+
+  @PostMapping(path = "start")
+  public Mono<ResponseEntity<Void>> start(@PathVariable(name = GAME_ID, required = false) String gameId)
+  {
+    LOGGER.info("Start game");
+    return Mono.fromCompletionStage(gameRoomService.openRoom(gameId).start()).thenReturn(ResponseEntity.ok().build());
+  }
+
+  @PostMapping(path = "stop")
+  public Mono<ResponseEntity<Void>> stop(@PathVariable(name = GAME_ID, required = false) String gameId)
+  {
+    LOGGER.info("Stop game");
+    return Mono.fromCompletionStage(gameRoomService.room(gameId).stop()).thenReturn(ResponseEntity.ok().build());
+  }
+
+  @GetMapping(path = "moles")
+  public Mono<ResponseEntity<JsonListWriter<Mole>>> listMoles(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestParam(name = WAIT, defaultValue = "0") long wait,
+      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+  {
+    LOGGER.info("View all active moles");
+    if (wait < 0)
+    {
+      return Mono.just(ResponseEntity.badRequest().build());
+    }
+    var room = gameRoomService.room(gameId);
+    var version = room.molesVersion();
+    var etag = ETags.of(room.versionEpoch(), version);
+    if (ETags.matches(ifNoneMatch, etag))
+    {
+      if (wait == 0)
+      {
+        return Mono.just(notModified(etag));
+      }
+      return Mono.fromCompletionStage(room.molesVersionAfter(version, capWait(wait)))
+                 .flatMap(current -> current == version
+                     ? Mono.just(notModified(etag))
+                     : Mono.fromCompletionStage(room.activeMoles())
+                           .map(moles -> molesResponse(ETags.of(room.versionEpoch(), current), moles)));
+    }
+    return Mono.fromCompletionStage(room.activeMoles(capWait(wait))).map(moles -> molesResponse(etag, moles));
+  }
+
+  private static ResponseEntity<JsonListWriter<Mole>> molesResponse(String etag, List<Mole> moles)
+  {
+    return ResponseEntity.ok().eTag(etag).body(JsonListWriter.of(moles, MoleIdDtoMapper::writeDto));
+  }
+
+  @GetMapping(path = "moles", params = "sinceVersion")
+  public Mono<ResponseEntity<MoleChangesDto>> listMolesSince(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestParam(name = "sinceEpoch") String sinceEpoch,
+      @RequestParam(name = "sinceVersion") long sinceVersion,
+      @RequestParam(name = WAIT, defaultValue = "0") long wait)
+  {
+    LOGGER.info("View moles changed since version {}", sinceVersion);
+    var epoch = Epochs.parse(sinceEpoch);
+    if (epoch == null || sinceVersion < 0 || wait < 0)
+    {
+      return Mono.just(ResponseEntity.badRequest().build());
+    }
+    return Mono.fromCompletionStage(gameRoomService.room(gameId).molesSince(epoch, sinceVersion, capWait(wait)))
+               .map(changes -> {
+                 if (changes.isEmpty())
+                 {
+                   return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+                 }
+                 return ResponseEntity.ok(MoleChangesDtoMapper.createDto(changes));
+               });
+  }
+
+  @PostMapping(path = "moles")
+  public Mono<ResponseEntity<Void>> whack(@PathVariable(name = GAME_ID, required = false) String gameId,
+                                          @RequestBody WhackDto whackDto)
+  {
+    LOGGER.info("Whack a mole");
+    var room = gameRoomService.room(gameId);
+    var player = WhackDtoMapper.createPlayer(whackDto, room::player);
+    if (player == null)
+    {
+      return Mono.just(ResponseEntity.badRequest().build());
+    }
+    return Mono.fromCompletionStage(room.whack(Mole.newMole(WhackDtoMapper.createMoleId(whackDto)), player))
+               .map(result -> new ResponseEntity<Void>(Boolean.TRUE.equals(result)
+                                                       ? HttpStatus.OK
+                                                       : HttpStatus.NOT_FOUND))
+               .onErrorResume(t -> Mono.just(new ResponseEntity<>(t instanceof PlayerNotRegisteredException
+                                                                  ? HttpStatus.BAD_REQUEST
+                                                                  : HttpStatus.INTERNAL_SERVER_ERROR)));
+  }
+
+  @PostMapping(path = "moles/batch")
+  public Mono<ResponseEntity<List<WhackResultDto>>> whackAll(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestBody List<WhackDto> whackDtos)
+  {
+    LOGGER.info("Whack {} moles", whackDtos.size());
+    var room = gameRoomService.room(gameId);
+    var whacks = whackDtos.stream()
+                          .map(whackDto -> WhackDtoMapper.createWhack(whackDto, room::player))
+                          .collect(Collectors.toList());
+    if (whacks.contains(null))
+    {
+      return Mono.just(ResponseEntity.badRequest().build());
+    }
+    return Mono.fromCompletionStage(room.whackAll(whacks)).map(results -> {
+      var resultDtos = new ArrayList<WhackResultDto>(results.size());
+      for (var i = 0; i < results.size(); i++)
+      {
+        resultDtos.add(WhackResultDtoMapper.createDto(whacks.get(i), results.get(i)));
+      }
+      return ResponseEntity.ok(resultDtos);
+    });
+  }
+
+  @GetMapping(path = "events")
+  public Mono<ResponseEntity<List<EventDto>>> unreadEvents(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestParam(name = WAIT, defaultValue = "0") long wait,
+      @RequestParam(name = PLAYER, required = false) String player,
+      @RequestParam(name = TYPE, required = false) String type,
+      @RequestParam(name = FROM, required = false) Long from,
+      @RequestParam(name = TO, required = false) Long to)
+  {
+    if (player != null || type != null || from != null || to != null)
+    {
+      LOGGER.info("Find events for player {} of type {} from {} to {}", player, type, from, to);
+      var eventType = parseEventType(type);
+      var fromMillis = from != null ? from : 0L;
+      var toMillis = to != null ? to : Long.MAX_VALUE;
+      if (eventType == null && type != null || fromMillis < 0 || fromMillis > toMillis)
+      {
+        return Mono.just(ResponseEntity.badRequest().build());
+      }
+      var room = gameRoomService.room(gameId);
+      return Mono.fromCompletionStage(room.findEvents(player, eventType, fromMillis, toMillis))
+                 .map(events -> ResponseEntity.ok()
+                                              .header(EVENTS_HELD_FROM, Long.toString(room.eventsHeldFromMillis()))
+                                              .body(events.stream()
+                                                          .map(EventDtoMapper::createDto)
+                                                          .collect(Collectors.toList())));
+    }
+    LOGGER.info("Get unread events");
+    if (wait < 0)
+    {
+      return Mono.just(ResponseEntity.badRequest().build());
+    }
+    return Mono.fromCompletionStage(gameRoomService.room(gameId).getUnreadEvents(capWait(wait)))
+               .map(events -> ResponseEntity.ok(events.stream()
+                                                      .map(EventDtoMapper::createDto)
+                                                      .collect(Collectors.toList())));
+  }
+
+  @GetMapping(path = "events", params = "after")
+  public Mono<ResponseEntity<EventPageDto>> eventsAfter(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestParam(name = "afterEpoch", required = false) String afterEpoch,
+      @RequestParam(name = "after") long after,
+      @RequestParam(name = WAIT, defaultValue = "0") long wait)
+  {
+    LOGGER.info("Get events after {}", after);
+    var epoch = afterEpoch == null ? null : Epochs.parse(afterEpoch);
+    if ((afterEpoch != null && epoch == null) || after < 0 || wait < 0)
+    {
+      return Mono.just(ResponseEntity.badRequest().build());
+    }
+    var room = gameRoomService.room(gameId);
+    return Mono.fromCompletionStage(room.getEventsAfter(epoch == null ? room.versionEpoch() : epoch,
+                                                        after,
+                                                        capWait(wait)))
+               .map(page -> ResponseEntity.ok(EventDtoMapper.createPageDto(room.versionEpoch(), page)));
+  }
+
+  @GetMapping(path = "scores")
+  public Mono<ResponseEntity<JsonListWriter<Player>>> listScores(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestParam(name = "top", required = false) Integer top,
+      @RequestParam(name = FROM, defaultValue = "0") int from,
+      @RequestParam(name = "size", required = false) Integer size,
+      @RequestParam(name = WAIT, defaultValue = "0") long wait,
+      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+  {
+    var ranked = top != null || size != null;
+    var count = top != null ? top : size;
+    var first = top != null ? 0 : from;
+    if (ranked && (count < 0 || first < 0) || wait < 0)
+    {
+      return Mono.just(ResponseEntity.badRequest().build());
+    }
+    var room = gameRoomService.room(gameId);
+    var version = room.scoresVersion();
+    var etag = ETags.of(room.versionEpoch(), version);
+    if (ETags.matches(ifNoneMatch, etag))
+    {
+      if (wait == 0)
+      {
+        return Mono.just(notModified(etag));
+      }
+      return Mono.fromCompletionStage(room.scoresVersionAfter(version, capWait(wait)))
+                 .flatMap(current -> current == version
+                     ? Mono.just(notModified(etag))
+                     : scores(room, ranked, first, count, ETags.of(room.versionEpoch(), current)));
+    }
+    return scores(room, ranked, first, count, etag);
+  }
+
+  private static Mono<ResponseEntity<JsonListWriter<Player>>> scores(GameCommandQueryService room,
+                                                                      boolean ranked,
+                                                                      int first,
+                                                                      Integer count,
+                                                                      String etag)
+  {
+    CompletionStage<List<Player>> players;
+    if (ranked)
+    {
+      LOGGER.info("Get scores for players ranked {} to {}", first + 1, first + count);
+      players = room.rankedPlayers(first, count);
+    }
+    else
+    {
+      LOGGER.info("Get scores for all players");
+      players = room.activePlayers();
+    }
+    return Mono.fromCompletionStage(players)
+               .map(scoredPlayers -> ResponseEntity.ok()
+                                                   .eTag(etag)
+                                                   .body(JsonListWriter.of(scoredPlayers,
+                                                                           PlayerScoreDtoMapper::writeDto)));
+  }
+
+  private static <T> ResponseEntity<T> notModified(String etag)
+  {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+  }
+
+  private long capWait(long wait)
+  {
+    return Math.min(wait, maxWaitMillis);
+  }
+
+  /**
+   * @return the type named, or null if there is no name or no such type
+   */
+  private static GameEventType parseEventType(String type)
+  {
+    if (type == null)
+    {
+      return null;
+    }
+    try
+    {
+      return GameEventType.valueOf(type);
+    }
+    catch (IllegalArgumentException e)
+    {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.reactive.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerHandleDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerNameDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.ETags;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.JsonListWriter;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.controllers.dtos.mappers.PlayerNameDtoMapper;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerAlreadyRegisteredException;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerNotRegisteredException;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+@RestController
+@RequestMapping(value = { "players", "game/{gameId}/players" }, produces = APPLICATION_JSON_VALUE)
+public class ReactiveRegistrationController
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveRegistrationController.class);
+  private static final String GAME_ID = "gameId";
+  private GameRoomService gameRoomService;
+
+  @Autowired
+  public ReactiveRegistrationController(GameRoomService gameRoomService)
+  {
+    this.gameRoomService = gameRoomService;
+  }
+
+  @PostMapping
+  public Mono<ResponseEntity<PlayerHandleDto>> register(@PathVariable(name = GAME_ID, required = false) String gameId,
+                                                        @RequestBody PlayerNameDto playerNameDto)
+  {
+    LOGGER.info("Registering player {}", playerNameDto.getPlayerName());
+    var registered = gameRoomService.openRoom(gameId).register(Player.newPlayer(playerNameDto.getPlayerName()));
+    return Mono.fromCompletionStage(registered)
+               .map(handle -> ResponseEntity.ok(new PlayerHandleDto(handle)))
+               .onErrorResume(t -> Mono.just(new ResponseEntity<>(t instanceof PlayerAlreadyRegisteredException
+                                                                  ? HttpStatus.CONFLICT
+                                                                  : HttpStatus.INTERNAL_SERVER_ERROR)));
+  }
+
+  @DeleteMapping
+  public Mono<ResponseEntity<Void>> remove(@PathVariable(name = GAME_ID, required = false) String gameId,
+                                           @RequestBody PlayerNameDto playerNameDto)
+  {
+    LOGGER.info("Removing player {}", playerNameDto.getPlayerName());
+    var removed = gameRoomService.room(gameId).remove(Player.newPlayer(playerNameDto.getPlayerName()));
+    return Mono.fromCompletionStage(removed)
+               .thenReturn(ResponseEntity.ok().<Void>build())
+               .onErrorResume(t -> Mono.just(new ResponseEntity<>(t instanceof PlayerNotRegisteredException
+                                                                  ? HttpStatus.BAD_REQUEST
+                                                                  : HttpStatus.INTERNAL_SERVER_ERROR)));
+  }
+
+  @GetMapping
+  public Mono<ResponseEntity<JsonListWriter<Player>>> listPlayers(
+      @PathVariable(name = GAME_ID, required = false) String gameId,
+      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+  {
+    LOGGER.info("View all players");
+    var room = gameRoomService.room(gameId);
+    var etag = ETags.of(room.versionEpoch(), room.playersVersion());
+    if (ETags.matches(ifNoneMatch, etag))
+    {
+      return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+    }
+    return Mono.fromCompletionStage(room.activePlayers())
+               .map(players -> ResponseEntity.ok().eTag(etag).body(JsonListWriter.of(players,
+                                                                                      PlayerNameDtoMapper::writeDto)));
+  }
+}
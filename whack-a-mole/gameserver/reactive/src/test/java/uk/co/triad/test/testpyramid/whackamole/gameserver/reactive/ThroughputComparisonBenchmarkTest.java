@@ -0,0 +1,147 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleIdDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerNameDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.WhackDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.GameServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the servlet and the reactive game servers side by side in one JVM and drives each with the same closed-loop
+ * load (a fixed number of requests in flight), logging requests per second for each route. Only run with
+ * {@code -Pbenchmark}, as it takes half a minute and the rates depend on the machine.
+ */
+public class ThroughputComparisonBenchmarkTest
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(ThroughputComparisonBenchmarkTest.class);
+  private static final int IN_FLIGHT = 64;
+  private static final long WARM_UP_MILLIS = 1000L;
+  private static final long MEASURE_MILLIS = 2000L;
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final String CORE_CONTROLLERS = GameServer.class.getPackageName() + ".controllers";
+  private static final String REACTIVE_CONTROLLERS = ReactiveGameServer.class.getPackageName() + ".controllers";
+  private static ConfigurableApplicationContext servlet;
+  private static ConfigurableApplicationContext reactive;
+  private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+  @BeforeClass
+  public static void startServers()
+  {
+    servlet = start(GameServer.class, WebApplicationType.SERVLET);
+    reactive = start(ReactiveGameServer.class, WebApplicationType.REACTIVE);
+  }
+
+  @AfterClass
+  public static void stopServers()
+  {
+    for (var context : new ConfigurableApplicationContext[] { servlet, reactive })
+    {
+      if (context != null)
+      {
+        context.close();
+      }
+    }
+  }
+
+  @Test
+  public void shouldReportThroughputOfBothServers() throws Exception
+  {
+    for (var context : new ConfigurableApplicationContext[] { servlet, reactive })
+    {
+      var player = OBJECT_MAPPER.writeValueAsString(new PlayerNameDto("dan"));
+      send(HttpRequest.newBuilder(uri(context, "/players")).POST(HttpRequest.BodyPublishers.ofString(player)));
+    }
+
+    compare("GET /game/moles", base -> HttpRequest.newBuilder(URI.create(base + "/game/moles")).GET());
+    var miss = new WhackDto(new PlayerNameDto("dan"), new MoleIdDto(UUID.randomUUID()));
+    var missBody = HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(miss));
+    compare("POST /game/moles (miss)", base -> HttpRequest.newBuilder(URI.create(base + "/game/moles")).POST(missBody));
+  }
+
+  private void compare(String route, Function<String, HttpRequest.Builder> request) throws InterruptedException
+  {
+    var servletRate = measure(baseOf(servlet), request);
+    var reactiveRate = measure(baseOf(reactive), request);
+
+    LOGGER.info("{} with {} in flight: servlet {} requests/s, reactive {} requests/s",
+                route,
+                IN_FLIGHT,
+                servletRate,
+                reactiveRate);
+    assertTrue(servletRate > 0 && reactiveRate > 0);
+  }
+
+  private long measure(String base, Function<String, HttpRequest.Builder> request) throws InterruptedException
+  {
+    var permits = new Semaphore(IN_FLIGHT);
+    var answered = new AtomicLong();
+    var warmUpEnds = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARM_UP_MILLIS);
+    var measureEnds = warmUpEnds + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+    var countedFrom = -1L;
+
+    while (System.nanoTime() < measureEnds)
+    {
+      permits.acquire();
+      if (countedFrom < 0L && System.nanoTime() >= warmUpEnds)
+      {
+        countedFrom = answered.get();
+      }
+      httpClient.sendAsync(request.apply(base).header("Content-Type", "application/json").build(),
+                           HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, t) -> {
+                  if (t == null && response.statusCode() < 500)
+                  {
+                    answered.incrementAndGet();
+                  }
+                  permits.release();
+                });
+    }
+    var countedTo = answered.get();
+    permits.acquire(IN_FLIGHT);
+    return (countedTo - countedFrom) * 1000L / MEASURE_MILLIS;
+  }
+
+  private void send(HttpRequest.Builder request) throws Exception
+  {
+    httpClient.send(request.header("Content-Type", "application/json").build(), HttpResponse.BodyHandlers.discarding());
+  }
+
+  private static ConfigurableApplicationContext start(Class<?> application, WebApplicationType type)
+  {
+    // per-request info logging would otherwise be most of what is measured
+    return new SpringApplicationBuilder(application).web(type)
+                                                    .run("--server.port=0",
+                                                         "--logging.level." + CORE_CONTROLLERS + "=WARN",
+                                                         "--logging.level." + REACTIVE_CONTROLLERS + "=WARN");
+  }
+
+  private static URI uri(ConfigurableApplicationContext context, String path)
+  {
+    return URI.create(baseOf(context) + path);
+  }
+
+  private static String baseOf(ConfigurableApplicationContext context)
+  {
+    return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+  }
+}
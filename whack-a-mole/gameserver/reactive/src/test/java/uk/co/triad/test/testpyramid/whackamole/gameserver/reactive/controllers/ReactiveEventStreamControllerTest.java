@@ -0,0 +1,84 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.reactive.controllers;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.test.StepVerifier;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Game;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameCommandQueryService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.SlowConsumerPolicy;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class ReactiveEventStreamControllerTest
+{
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+  @Mock private GameRoomService mockedGameRoomService;
+  private GameCommandQueryService room;
+
+  @Before
+  public void setUp()
+  {
+    MockitoAnnotations.initMocks(this);
+    room = new GameCommandQueryService(new Game());
+    when(mockedGameRoomService.room(any())).thenReturn(room);
+  }
+
+  @After
+  public void tearDown()
+  {
+    room.shutdown();
+  }
+
+  @Test
+  public void shouldStreamEventsWithTheirSequenceNumbers()
+  {
+    var controller = newController(16);
+
+    StepVerifier.create(controller.streamEvents(null))
+                .then(() -> room.moleExpired(Mole.newMole()))
+                .assertNext(event -> {
+                  assertEquals("1", event.id());
+                  assertEquals(ReactiveEventStreamController.EVENT_NAME, event.event());
+                  assertEquals("MOLE_ESCAPED", event.data().getType());
+                })
+                .thenCancel()
+                .verify(TIMEOUT);
+  }
+
+  @Test
+  public void shouldHoldEventsUntilRequestedAndDropTheOldestBeyondTheBuffer()
+  {
+    var controller = newController(2);
+
+    StepVerifier.create(controller.streamEvents(null), 0)
+                .then(() -> {
+                  for (var i = 0; i < 5; i++)
+                  {
+                    room.moleExpired(Mole.newMole());
+                  }
+                })
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(2)
+                .assertNext(event -> assertEquals("4", event.id()))
+                .assertNext(event -> assertEquals("5", event.id()))
+                .thenCancel()
+                .verify(TIMEOUT);
+  }
+
+  private ReactiveEventStreamController newController(int bufferSize)
+  {
+    return new ReactiveEventStreamController(mockedGameRoomService,
+                                             Runnable::run,
+                                             bufferSize,
+                                             SlowConsumerPolicy.DROP_OLDEST);
+  }
+}
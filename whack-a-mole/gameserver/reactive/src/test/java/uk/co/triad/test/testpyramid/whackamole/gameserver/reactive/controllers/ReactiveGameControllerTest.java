@@ -0,0 +1,252 @@
+package uk.co.triad.test.testpyramid.whackamole.gameserver.reactive.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.ApiMediaTypes;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.MoleIdDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.PlayerNameDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.api.controllers.dtos.WhackDto;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.EventLog;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEvent;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.GameEventType;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Mole;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.MoleChanges;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.Player;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.PlayerNotRegisteredException;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.domain.WhackResult;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameCommandQueryService;
+import uk.co.triad.test.testpyramid.whackamole.gameserver.core.services.GameRoomService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReactiveGameControllerTest
+{
+  private static final String URI_MOLES = "/game/moles";
+  private static final WhackDto WHACK_DTO = new WhackDto(new PlayerNameDto("dan"),
+                                                         new MoleIdDto(Mole.newMole().getId()));
+
+  @Mock private GameCommandQueryService mockedGameCommandQueryService;
+  @Mock private GameRoomService mockedGameRoomService;
+  private WebTestClient webTestClient;
+
+  @Before
+  public void setUp()
+  {
+    MockitoAnnotations.initMocks(this);
+    when(mockedGameRoomService.room(any())).thenReturn(mockedGameCommandQueryService);
+    when(mockedGameRoomService.openRoom(any())).thenReturn(mockedGameCommandQueryService);
+    webTestClient = WebTestClient.bindToController(new ReactiveGameController(mockedGameRoomService, 100L)).build();
+  }
+
+  @Test
+  public void shouldReturnOkWhenGameStartedInNamedRoom()
+  {
+    when(mockedGameCommandQueryService.start()).thenReturn(CompletableFuture.completedFuture(null));
+
+    webTestClient.post().uri("/game/room1/start").exchange().expectStatus().isOk();
+
+    verify(mockedGameRoomService).openRoom("room1");
+  }
+
+  @Test
+  public void shouldListActiveMolesWaitingNoLongerThanTheCap()
+  {
+    var mole = Mole.newMole();
+    when(mockedGameCommandQueryService.activeMoles(100L)).thenReturn(CompletableFuture.completedFuture(List.of(mole)));
+
+    webTestClient.get()
+                 .uri(URI_MOLES + "?wait=60000")
+                 .exchange()
+                 .expectStatus()
+                 .isOk()
+                 .expectBody()
+                 .jsonPath("$[0].moleId")
+                 .isEqualTo(mole.getId().toString());
+  }
+
+  @Test
+  public void shouldAnswerNotModifiedWhileMolesAreUnchanged()
+  {
+    when(mockedGameCommandQueryService.versionEpoch()).thenReturn(0xabcL);
+    when(mockedGameCommandQueryService.molesVersion()).thenReturn(5L);
+
+    webTestClient.get()
+                 .uri(URI_MOLES)
+                 .header(HttpHeaders.IF_NONE_MATCH, "\"abc-5\"")
+                 .exchange()
+                 .expectStatus()
+                 .isNotModified()
+                 .expectHeader()
+                 .valueEquals(HttpHeaders.ETAG, "\"abc-5\"")
+                 .expectBody()
+                 .isEmpty();
+
+    verify(mockedGameCommandQueryService, never()).activeMoles(anyLong());
+  }
+
+  @Test
+  public void shouldHoldAMatchingMolesRequestUntilTheMolesChangeWhenAskedToWait()
+  {
+    var mole = Mole.newMole();
+    when(mockedGameCommandQueryService.versionEpoch()).thenReturn(0xabcL);
+    when(mockedGameCommandQueryService.molesVersion()).thenReturn(5L);
+    when(mockedGameCommandQueryService.molesVersionAfter(5L, 100L)).thenReturn(CompletableFuture.completedFuture(6L));
+    when(mockedGameCommandQueryService.activeMoles()).thenReturn(CompletableFuture.completedFuture(List.of(mole)));
+
+    webTestClient.get()
+                 .uri(URI_MOLES + "?wait=60000")
+                 .header(HttpHeaders.IF_NONE_MATCH, "\"abc-5\"")
+                 .exchange()
+                 .expectStatus()
+                 .isOk()
+                 .expectHeader()
+                 .valueEquals(HttpHeaders.ETAG, "\"abc-6\"")
+                 .expectBody()
+                 .jsonPath("$[0].moleId")
+                 .isEqualTo(mole.getId().toString());
+
+    verify(mockedGameCommandQueryService, never()).activeMoles(anyLong());
+  }
+
+  @Test
+  public void shouldAnswerInSmileWhenAskedFor() throws Exception
+  {
+    var mole = Mole.newMole();
+    when(mockedGameCommandQueryService.activeMoles(0L)).thenReturn(CompletableFuture.completedFuture(List.of(mole)));
+
+    var body = webTestClient.get()
+                            .uri(URI_MOLES)
+                            .accept(MediaType.valueOf(ApiMediaTypes.APPLICATION_SMILE_VALUE))
+                            .exchange()
+                            .expectStatus()
+                            .isOk()
+                            .expectHeader()
+                            .contentType(ApiMediaTypes.APPLICATION_SMILE_VALUE)
+                            .expectBody(byte[].class)
+                            .returnResult()
+                            .getResponseBody();
+
+    var moles = new ObjectMapper(new SmileFactory()).readValue(body, MoleIdDto[].class);
+    assertEquals(mole.getId(), moles[0].getMoleId());
+  }
+
+  @Test
+  public void shouldReturnNotModifiedWhenNoMolesChangedSinceVersion()
+  {
+    when(mockedGameCommandQueryService.molesSince(0x2aL, 5L, 0L)).thenReturn(CompletableFuture.completedFuture(
+        new MoleChanges(0x2aL, 5L, false, List.of(), List.of())));
+
+    webTestClient.get().uri(URI_MOLES + "?sinceEpoch=2a&sinceVersion=5").exchange().expectStatus().isNotModified();
+  }
+
+  @Test
+  public void shouldReturnBadRequestForNegativeWait()
+  {
+    webTestClient.get().uri(URI_MOLES + "?wait=-1").exchange().expectStatus().isBadRequest();
+  }
+
+  @Test
+  public void shouldFindEventsByPlayerAndRejectUnknownType()
+  {
+    var eventLog = new EventLog<GameEvent>(1);
+    eventLog.append(GameEvent.newEvent(GameEventType.PLAYER_JOINED, Player.newPlayer("dan")));
+    when(mockedGameCommandQueryService.findEvents("dan", null, 0L, Long.MAX_VALUE))
+        .thenReturn(CompletableFuture.completedFuture(eventLog.readAfter(0L).getEntries()));
+    when(mockedGameCommandQueryService.eventsHeldFromMillis()).thenReturn(500L);
+
+    webTestClient.get()
+                 .uri("/game/events?player=dan")
+                 .exchange()
+                 .expectStatus()
+                 .isOk()
+                 .expectHeader()
+                 .valueEquals("Events-Held-From", "500")
+                 .expectBody()
+                 .jsonPath("$[0].playerName")
+                 .isEqualTo("dan");
+    webTestClient.get().uri("/game/events?type=NOT_A_TYPE").exchange().expectStatus().isBadRequest();
+  }
+
+  @Test
+  public void shouldReturnOkForHitAndNotFoundForMiss()
+  {
+    when(mockedGameCommandQueryService.whack(any(Mole.class), any(Player.class)))
+        .thenReturn(CompletableFuture.completedFuture(Boolean.TRUE))
+        .thenReturn(CompletableFuture.completedFuture(Boolean.FALSE));
+
+    whack().expectStatus().isOk();
+    whack().expectStatus().isNotFound();
+  }
+
+  @Test
+  public void shouldWhackByHandleAndRejectAnUnknownOne()
+  {
+    var player = Player.newPlayer("dan");
+    when(mockedGameCommandQueryService.player(7L)).thenReturn(player);
+    when(mockedGameCommandQueryService.whack(any(Mole.class), same(player)))
+        .thenReturn(CompletableFuture.completedFuture(Boolean.TRUE));
+
+    whack(new WhackDto(7L, WHACK_DTO.getMoleIdDto())).expectStatus().isOk();
+    whack(new WhackDto(8L, WHACK_DTO.getMoleIdDto())).expectStatus().isBadRequest();
+  }
+
+  @Test
+  public void shouldReturnBadRequestForWhackByNonPlayer()
+  {
+    var notRegistered = new CompletableFuture<Boolean>();
+    notRegistered.completeExceptionally(new PlayerNotRegisteredException("dan"));
+    when(mockedGameCommandQueryService.whack(any(Mole.class), eq(Player.newPlayer("dan")))).thenReturn(notRegistered);
+
+    whack().expectStatus().isBadRequest();
+  }
+
+  @Test
+  public void shouldReturnAResultForEachWhackInABatch()
+  {
+    when(mockedGameCommandQueryService.whackAll(anyList())).thenReturn(CompletableFuture.completedFuture(List.of(
+        WhackResult.MISSED)));
+
+    webTestClient.post()
+                 .uri(URI_MOLES + "/batch")
+                 .contentType(MediaType.APPLICATION_JSON)
+                 .bodyValue(List.of(WHACK_DTO))
+                 .exchange()
+                 .expectStatus()
+                 .isOk()
+                 .expectBody()
+                 .jsonPath("$[0].result")
+                 .isEqualTo("MISSED");
+  }
+
+  private WebTestClient.ResponseSpec whack()
+  {
+    return whack(WHACK_DTO);
+  }
+
+  private WebTestClient.ResponseSpec whack(WhackDto whackDto)
+  {
+    return webTestClient.post()
+                        .uri(URI_MOLES)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(whackDto)
+                        .exchange();
+  }
+}